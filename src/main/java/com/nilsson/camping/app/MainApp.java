@@ -1,5 +1,6 @@
 package com.nilsson.camping.app;
 
+import com.nilsson.camping.data.PersistenceQueue;
 import com.nilsson.camping.service.SessionTimerService;
 import com.nilsson.camping.ui.CustomTitleBar;
 import com.nilsson.camping.ui.RootLayout;
@@ -53,6 +54,9 @@ public class MainApp extends Application {
                 primaryStage.getScene().setRoot(contentWrapper);
             };
 
+            // Read all data in the background while the login screen is showing
+            StartupLoader.start();
+
             // Instantiate the single RootLayout
             rootLayout = new RootLayout(primaryStage, onLogout, customTitleBar, onLanguageChange);
 
@@ -86,6 +90,8 @@ public class MainApp extends Application {
         }
         // Log out the user
         UserSession.logout();
+        // Write any queued saves before the JVM exits
+        PersistenceQueue.flush();
         // Close the application
         if (getPrimaryStage() != null) {
             getPrimaryStage().close();
@@ -0,0 +1,106 @@
+package com.nilsson.camping.app;
+
+import com.nilsson.camping.data.Preloader;
+import com.nilsson.camping.data.RentalLedger;
+import com.nilsson.camping.data.Storage;
+import com.nilsson.camping.model.registries.Inventory;
+import com.nilsson.camping.model.registries.MemberRegistry;
+import com.nilsson.camping.model.registries.ProfitsRegistry;
+import com.nilsson.camping.model.registries.RentalRegistry;
+import com.nilsson.camping.service.RentalDayService;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Loads all data while the login screen is showing, so the views can be built instantly after login.
+ * The five data files are read in parallel on a small background pool, then the registries are
+ * built from the preloaded records and published. Each phase is timed and logged.
+ * Afterwards, ledger years older than the archive horizon are archived on the same pool, and the items'
+ * rented flags start following the calendar.
+ */
+public class StartupLoader {
+
+    private static final int THREADS = 5;
+
+    private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+
+    private static final ExecutorService POOL = Executors.newFixedThreadPool(THREADS, runnable -> {
+        Thread thread = new Thread(runnable, "StartupLoader-" + THREAD_COUNT.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static CompletableFuture<Void> ready;
+
+    private StartupLoader() {
+
+    }
+
+    // Starts the preload. Called when the login screen is shown; later calls do nothing.
+    public static synchronized void start() {
+        if (ready != null) {
+            return;
+        }
+        long started = System.nanoTime();
+
+        CompletableFuture<?>[] reads = {
+                Preloader.start("members", Storage.members(), POOL),
+                Preloader.start("vehicles", Storage.vehicles(), POOL),
+                Preloader.start("gear", Storage.gear(), POOL),
+                Preloader.start("rentals", Storage.rentals(), POOL),
+                Preloader.start("profit records", Storage.profits(), POOL)
+        };
+
+        ready = CompletableFuture.allOf(reads).thenRunAsync(() -> {
+            long readMillis = millisSince(started);
+            long publishStarted = System.nanoTime();
+
+            // Touching each singleton builds it here, from the preloaded records, instead of on the FX thread.
+            MemberRegistry.getInstance();
+            Inventory.getInstance();
+            RentalRegistry.getInstance();
+            ProfitsRegistry.getInstance();
+
+            System.out.println("Startup data ready: read " + readMillis + " ms, published registries " +
+                    millisSince(publishStarted) + " ms, total " + millisSince(started) + " ms.");
+        }, POOL);
+
+        // Old ledger years move to the archive in the background; the views never wait for it.
+        ready.thenRunAsync(RentalLedger::archiveOldYears, POOL);
+
+        // Bookings that started since the app last ran take their items out now, and later ones at midnight.
+        ready.thenRun(RentalDayService::start);
+    }
+
+    /**
+     * Blocks until the registries are published. Called on login before the views are built;
+     * usually the preload finished long before and this returns at once.
+     */
+    public static void awaitReady() {
+        CompletableFuture<Void> loading;
+        synchronized (StartupLoader.class) {
+            loading = ready;
+        }
+        if (loading == null) {
+            return;
+        }
+        long started = System.nanoTime();
+        try {
+            loading.join();
+        } catch (RuntimeException e) {
+            // The registries load themselves on first use if the preload failed.
+            System.err.println("ERROR: Startup preload failed: " + e.getMessage());
+            e.printStackTrace();
+        }
+        long waited = millisSince(started);
+        if (waited > 0) {
+            System.out.println("Waited " + waited + " ms for startup data.");
+        }
+    }
+
+    private static long millisSince(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
+}
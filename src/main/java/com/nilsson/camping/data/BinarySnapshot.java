@@ -0,0 +1,428 @@
+package com.nilsson.camping.data;
+
+import com.nilsson.camping.model.DailyProfit;
+import com.nilsson.camping.model.Member;
+import com.nilsson.camping.model.Rental;
+import com.nilsson.camping.model.items.Gear;
+import com.nilsson.camping.model.items.RecreationalVehicle;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Compact binary snapshot format written next to each JSON file for fast cold starts.
+ *
+ * Layout: magic, version, kind, string dictionary, record count, then one length-prefixed record per entity.
+ * Dates are stored as epoch-day ints, and repeated strings (types, membership levels, capacities)
+ * are stored once in the dictionary and referenced by index.
+ * Snapshots can be disabled with -Dcamping.binarySnapshots=false.
+ */
+public class BinarySnapshot {
+
+    public static final boolean ENABLED =
+            !"false".equalsIgnoreCase(System.getProperty("camping.binarySnapshots"));
+
+    private static final int MAGIC = 0x57474E53; // "WGNS"
+    // 2: daily profit income stored as long öre instead of double kronor.
+    // 3: rentals carry the daily price they were booked at.
+    private static final short VERSION = 3;
+
+    private static final byte KIND_MEMBERS = 1;
+    private static final byte KIND_VEHICLES = 2;
+    private static final byte KIND_GEAR = 3;
+    private static final byte KIND_RENTALS = 4;
+    private static final byte KIND_PROFITS = 5;
+
+    private static final int NULL_INDEX = -1;
+    private static final int NULL_DATE = Integer.MIN_VALUE;
+
+    private BinarySnapshot() {
+
+    }
+
+    // The snapshot path for a JSON file, e.g. members.json -> members.bin
+    public static File snapshotFileFor(String jsonPath) {
+        return new File(jsonPath.replaceFirst("\\.json$", ".bin"));
+    }
+
+    // True when snapshots are enabled and the snapshot is at least as new as its JSON file.
+    public static boolean isFresher(File snapshot, File json) {
+        if (!ENABLED || !snapshot.exists() || snapshot.length() == 0) {
+            return false;
+        }
+        return !json.exists() || snapshot.lastModified() >= json.lastModified();
+    }
+
+    /**
+     * Loads from the snapshot next to the given JSON file when it is fresher than the JSON.
+     * @return true if the snapshot was used, false if the caller should fall back to JSON.
+     */
+    static boolean tryLoad(String jsonPath, String label, SnapshotReader reader) {
+        File snapshot = snapshotFileFor(jsonPath);
+        if (!isFresher(snapshot, new File(jsonPath))) {
+            return false;
+        }
+        try {
+            int count = reader.read(snapshot);
+            System.out.println("Successfully loaded " + count + " " + label + " from " + snapshot.getPath());
+            return true;
+        } catch (IOException e) {
+            System.err.println("WARNING: Could not read " + label + " snapshot, falling back to JSON: " + e.getMessage());
+            return false;
+        }
+    }
+
+    // Writes the snapshot after its JSON file has been saved, so a successful snapshot is always the newer one.
+    static void tryWrite(String jsonPath, String label, SnapshotWriter writer) {
+        if (!ENABLED) {
+            return;
+        }
+        try {
+            File snapshot = snapshotFileFor(jsonPath);
+            writer.write(snapshot);
+            WriteMetrics.recordFile(snapshot);
+        } catch (IOException e) {
+            System.err.println("ERROR: Could not write " + label + " snapshot: " + e.getMessage());
+        }
+    }
+
+    interface SnapshotReader {
+        int read(File snapshot) throws IOException;
+    }
+
+    interface SnapshotWriter {
+        void write(File snapshot) throws IOException;
+    }
+
+    // ──────────────────────────────────────────────────────
+    //                      Public API
+    // ──────────────────────────────────────────────────────
+
+    public static void writeMembers(File file, List<Member> members) throws IOException {
+        write(file, KIND_MEMBERS, members, MEMBER_CODEC);
+    }
+
+    public static int readMembers(File file, Consumer<Member> sink) throws IOException {
+        return read(file, KIND_MEMBERS, MEMBER_CODEC, sink);
+    }
+
+    public static void writeRecreationalVehicles(File file, List<RecreationalVehicle> vehicles) throws IOException {
+        write(file, KIND_VEHICLES, vehicles, VEHICLE_CODEC);
+    }
+
+    public static int readRecreationalVehicles(File file, Consumer<RecreationalVehicle> sink) throws IOException {
+        return read(file, KIND_VEHICLES, VEHICLE_CODEC, sink);
+    }
+
+    public static void writeGear(File file, List<Gear> gearList) throws IOException {
+        write(file, KIND_GEAR, gearList, GEAR_CODEC);
+    }
+
+    public static int readGear(File file, Consumer<Gear> sink) throws IOException {
+        return read(file, KIND_GEAR, GEAR_CODEC, sink);
+    }
+
+    public static void writeRentals(File file, List<Rental> rentals) throws IOException {
+        write(file, KIND_RENTALS, rentals, RENTAL_CODEC);
+    }
+
+    public static int readRentals(File file, Consumer<Rental> sink) throws IOException {
+        return read(file, KIND_RENTALS, RENTAL_CODEC, sink);
+    }
+
+    public static void writeProfits(File file, List<DailyProfit> profits) throws IOException {
+        write(file, KIND_PROFITS, profits, PROFIT_CODEC);
+    }
+
+    public static int readProfits(File file, Consumer<DailyProfit> sink) throws IOException {
+        return read(file, KIND_PROFITS, PROFIT_CODEC, sink);
+    }
+
+    // ──────────────────────────────────────────────────────
+    //                      Writing
+    // ──────────────────────────────────────────────────────
+
+    private static <T> void write(File file, byte kind, List<T> records, RecordCodec<T> codec) throws IOException {
+        Dictionary dictionary = new Dictionary();
+
+        // Encode records first, since the dictionary is only complete once every record has been seen.
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        DataOutputStream bodyOut = new DataOutputStream(body);
+        ByteArrayOutputStream record = new ByteArrayOutputStream(128);
+        DataOutputStream recordOut = new DataOutputStream(record);
+        for (T value : records) {
+            record.reset();
+            codec.write(value, recordOut, dictionary);
+            bodyOut.writeInt(record.size());
+            record.writeTo(bodyOut);
+        }
+
+        file.getParentFile().mkdirs();
+        File tempFile = new File(file.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeByte(kind);
+            out.writeInt(dictionary.values.size());
+            for (String value : dictionary.values) {
+                writeString(out, value);
+            }
+            out.writeInt(records.size());
+            body.writeTo(out);
+        }
+        Files.move(tempFile.toPath(), file.toPath(),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(NULL_INDEX);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static void writeDate(DataOutputStream out, LocalDate date) throws IOException {
+        out.writeInt(date == null ? NULL_DATE : (int) date.toEpochDay());
+    }
+
+    // ──────────────────────────────────────────────────────
+    //                      Reading
+    // ──────────────────────────────────────────────────────
+
+    private static <T> int read(File file, byte kind, RecordCodec<T> codec, Consumer<T> sink) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file.toPath()));
+
+        if (buffer.remaining() < 11 || buffer.getInt() != MAGIC) {
+            throw new IOException("Not a snapshot file: " + file.getName());
+        }
+        short version = buffer.getShort();
+        if (version != VERSION) {
+            throw new IOException("Unsupported snapshot version " + version + " in " + file.getName());
+        }
+        if (buffer.get() != kind) {
+            throw new IOException("Snapshot " + file.getName() + " holds a different record kind.");
+        }
+
+        String[] dictionary = new String[buffer.getInt()];
+        for (int i = 0; i < dictionary.length; i++) {
+            dictionary[i] = readString(buffer);
+        }
+
+        int count = buffer.getInt();
+        verifyFrames(buffer, count, file);
+
+        // Frames are known to be intact, so records can go straight into the sink.
+        for (int i = 0; i < count; i++) {
+            int length = buffer.getInt();
+            int end = buffer.position() + length;
+            sink.accept(codec.read(buffer, dictionary));
+            // Skip fields appended by newer writers of the same version.
+            buffer.position(end);
+        }
+        return count;
+    }
+
+    // Walks the length prefixes once, so a truncated file is rejected before any record reaches a registry.
+    private static void verifyFrames(ByteBuffer buffer, int count, File file) throws IOException {
+        int start = buffer.position();
+        for (int i = 0; i < count; i++) {
+            if (buffer.remaining() < 4) {
+                throw new IOException("Truncated snapshot " + file.getName());
+            }
+            int length = buffer.getInt();
+            if (length < 0 || length > buffer.remaining()) {
+                throw new IOException("Truncated snapshot " + file.getName());
+            }
+            buffer.position(buffer.position() + length);
+        }
+        buffer.position(start);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length == NULL_INDEX) {
+            return null;
+        }
+        String value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+
+    private static String readDictionaryString(ByteBuffer buffer, String[] dictionary) {
+        int index = buffer.getInt();
+        return index == NULL_INDEX ? null : dictionary[index];
+    }
+
+    private static LocalDate readDate(ByteBuffer buffer) {
+        int epochDay = buffer.getInt();
+        return epochDay == NULL_DATE ? null : LocalDate.ofEpochDay(epochDay);
+    }
+
+    // ──────────────────────────────────────────────────────
+    //                      Record Codecs
+    // ──────────────────────────────────────────────────────
+
+    private interface RecordCodec<T> {
+        void write(T value, DataOutputStream out, Dictionary dictionary) throws IOException;
+        T read(ByteBuffer in, String[] dictionary);
+    }
+
+    private static final RecordCodec<Member> MEMBER_CODEC = new RecordCodec<Member>() {
+        @Override
+        public void write(Member member, DataOutputStream out, Dictionary dictionary) throws IOException {
+            out.writeInt(member.getId());
+            writeString(out, member.getFirstName());
+            writeString(out, member.getLastName());
+            out.writeInt(dictionary.indexOf(member.getMembershipLevel()));
+            List<String> history = member.getHistory();
+            out.writeInt(history == null ? NULL_INDEX : history.size());
+            if (history != null) {
+                for (String entry : history) {
+                    writeString(out, entry);
+                }
+            }
+        }
+
+        @Override
+        public Member read(ByteBuffer in, String[] dictionary) {
+            Member member = new Member();
+            member.setId(in.getInt());
+            member.setFirstName(readString(in));
+            member.setLastName(readString(in));
+            member.setMembershipLevel(readDictionaryString(in, dictionary));
+            int historySize = in.getInt();
+            if (historySize != NULL_INDEX) {
+                List<String> history = new ArrayList<>(historySize);
+                for (int i = 0; i < historySize; i++) {
+                    history.add(readString(in));
+                }
+                member.setHistory(history);
+            }
+            return member;
+        }
+    };
+
+    private static final RecordCodec<RecreationalVehicle> VEHICLE_CODEC = new RecordCodec<RecreationalVehicle>() {
+        @Override
+        public void write(RecreationalVehicle vehicle, DataOutputStream out, Dictionary dictionary) throws IOException {
+            out.writeInt(vehicle.getItemId());
+            out.writeDouble(vehicle.getDailyPrice());
+            writeString(out, vehicle.getMake());
+            writeString(out, vehicle.getModel());
+            out.writeInt(dictionary.indexOf(vehicle.getYear()));
+            out.writeInt(dictionary.indexOf(vehicle.getCapacity()));
+            out.writeInt(dictionary.indexOf(vehicle.getType()));
+            out.writeBoolean(vehicle.isRented());
+        }
+
+        @Override
+        public RecreationalVehicle read(ByteBuffer in, String[] dictionary) {
+            RecreationalVehicle vehicle = new RecreationalVehicle();
+            vehicle.setItemId(in.getInt());
+            vehicle.setDailyPrice(in.getDouble());
+            vehicle.setMake(readString(in));
+            vehicle.setModel(readString(in));
+            vehicle.setYear(readDictionaryString(in, dictionary));
+            vehicle.setCapacity(readDictionaryString(in, dictionary));
+            vehicle.setType(readDictionaryString(in, dictionary));
+            vehicle.setRented(in.get() != 0);
+            return vehicle;
+        }
+    };
+
+    private static final RecordCodec<Gear> GEAR_CODEC = new RecordCodec<Gear>() {
+        @Override
+        public void write(Gear gear, DataOutputStream out, Dictionary dictionary) throws IOException {
+            out.writeInt(gear.getItemId());
+            out.writeDouble(gear.getDailyPrice());
+            writeString(out, gear.getModel());
+            out.writeInt(dictionary.indexOf(gear.getType()));
+            out.writeInt(dictionary.indexOf(gear.getCapacity()));
+            out.writeBoolean(gear.isRented());
+        }
+
+        @Override
+        public Gear read(ByteBuffer in, String[] dictionary) {
+            Gear gear = new Gear();
+            gear.setItemId(in.getInt());
+            gear.setDailyPrice(in.getDouble());
+            gear.setModel(readString(in));
+            gear.setType(readDictionaryString(in, dictionary));
+            gear.setCapacity(readDictionaryString(in, dictionary));
+            gear.setRented(in.get() != 0);
+            return gear;
+        }
+    };
+
+    private static final RecordCodec<Rental> RENTAL_CODEC = new RecordCodec<Rental>() {
+        @Override
+        public void write(Rental rental, DataOutputStream out, Dictionary dictionary) throws IOException {
+            out.writeInt(rental.getRentalId());
+            out.writeInt(rental.getMemberId());
+            out.writeInt(rental.getItemId());
+            writeDate(out, rental.getStartDate());
+            out.writeInt(rental.getRentalDays());
+            out.writeLong(rental.getDailyPriceOre());
+        }
+
+        @Override
+        public Rental read(ByteBuffer in, String[] dictionary) {
+            Rental rental = new Rental();
+            rental.setRentalId(in.getInt());
+            rental.setMemberId(in.getInt());
+            rental.setItemId(in.getInt());
+            rental.setStartDate(readDate(in));
+            rental.setRentalDays(in.getInt());
+            rental.setDailyPriceOre(in.getLong());
+            return rental;
+        }
+    };
+
+    private static final RecordCodec<DailyProfit> PROFIT_CODEC = new RecordCodec<DailyProfit>() {
+        @Override
+        public void write(DailyProfit profit, DataOutputStream out, Dictionary dictionary) throws IOException {
+            writeDate(out, profit.getDate());
+            out.writeLong(profit.getIncomeOre());
+        }
+
+        @Override
+        public DailyProfit read(ByteBuffer in, String[] dictionary) {
+            return new DailyProfit(readDate(in), in.getLong());
+        }
+    };
+
+    // Assigns each distinct string an index in first-seen order.
+    private static class Dictionary {
+        private final Map<String, Integer> indexes = new HashMap<>();
+        private final List<String> values = new ArrayList<>();
+
+        int indexOf(String value) {
+            if (value == null) {
+                return NULL_INDEX;
+            }
+            Integer index = indexes.get(value);
+            if (index == null) {
+                index = values.size();
+                indexes.put(value, index);
+                values.add(value);
+            }
+            return index;
+        }
+    }
+}
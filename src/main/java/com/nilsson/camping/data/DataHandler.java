@@ -1,7 +1,11 @@
 package com.nilsson.camping.data;
 
-import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.MappingIterator;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.nilsson.camping.model.Member;
@@ -10,15 +14,24 @@ import com.nilsson.camping.model.items.Gear;
 import com.nilsson.camping.model.items.RecreationalVehicle;
 import java.io.File;
 import java.io.IOException;
+import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.function.Consumer;
 
 // Handles persistent data operations using the Jackson library.
 public class DataHandler {
 
     private static final ObjectMapper MAPPER = new ObjectMapper()
-            .registerModule(new JavaTimeModule())
-            .enable(SerializationFeature.INDENT_OUTPUT);
+            .registerModule(new JavaTimeModule());
+
+    // Pretty-printing is only used for writing; loading goes through pre-built per-type readers.
+    private static final ObjectWriter JSON_WRITER = MAPPER.writer(SerializationFeature.INDENT_OUTPUT);
+
+    static final ObjectReader MEMBER_READER = MAPPER.readerFor(Member.class);
+    static final ObjectReader VEHICLE_READER = MAPPER.readerFor(RecreationalVehicle.class);
+    static final ObjectReader GEAR_READER = MAPPER.readerFor(Gear.class);
 
     // Absolute File Paths
     private static final String MEMBERS_PERSISTENCE_PATH =
@@ -33,147 +46,251 @@ public class DataHandler {
     private static final String RENTALS_PERSISTENCE_PATH =
             System.getProperty("user.dir") + "/src/main/resources/data/json/rentals.json";
 
+    // Re-apply any committed group a crash left behind before the first file is read.
+    static {
+        GroupCommitLog.recover();
+    }
+
     // ──────────────────────────────────────────────────────
     //                      Member Operations
     // ──────────────────────────────────────────────────────
 
-    // Load Members
-    public static List<Member> loadMembers() {
+    // Load Members, streaming each record into the sink one at a time.
+    public static void loadMembers(Consumer<Member> sink) {
+        if (BinarySnapshot.tryLoad(MEMBERS_PERSISTENCE_PATH, "members", snapshot -> BinarySnapshot.readMembers(snapshot, sink))) {
+            return;
+        }
         File file = new File(MEMBERS_PERSISTENCE_PATH);
-        List<com.nilsson.camping.model.Member> members = new ArrayList<>();
         if (!file.exists() || file.length() == 0) {
             System.out.println("INFO: Members file not found or is empty at " + MEMBERS_PERSISTENCE_PATH + ". Starting with empty list.");
-        return members;
+            return;
         }
         try {
-            members = MAPPER.readValue(file, new TypeReference<List<com.nilsson.camping.model.Member>>() {});
-            System.out.println("Successfully loaded " + members.size() + " members from " + MEMBERS_PERSISTENCE_PATH);
+            int count = streamArray(file, MEMBER_READER, sink);
+            System.out.println("Successfully loaded " + count + " members from " + MEMBERS_PERSISTENCE_PATH);
         } catch (IOException e) {
             System.err.println("FATAL ERROR: Could not load members data from JSON: " + e.getMessage());
             e.printStackTrace();
         }
-        return members;
     }
 
-    // Save Members
-    public static void saveMembers(List<Member> members) {
-        try {
-            File file = new File(MEMBERS_PERSISTENCE_PATH);
-            file.getParentFile().mkdirs();
-            MAPPER.writeValue(file, members);
-            System.out.println("Successfully saved " + members.size() + " members to " + MEMBERS_PERSISTENCE_PATH);
-        } catch (IOException e) {
-            System.err.println("FATAL ERROR: Could not save members data to JSON: " + e.getMessage());
-            e.printStackTrace();
-        }
+    // Stages a save of all members into a unit of work, to be written together with the rest of it.
+    public static void saveMembers(Collection<Member> members, UnitOfWork unitOfWork) {
+        List<Member> snapshot = new ArrayList<>(members);
+        unitOfWork.stageReplace(MEMBERS_PERSISTENCE_PATH, () -> JSON_WRITER.writeValueAsBytes(snapshot),
+                () -> savedMembers(snapshot));
+    }
+
+    // Refreshes the binary snapshot once members.json holds the new state.
+    private static void savedMembers(List<Member> members) {
+        BinarySnapshot.tryWrite(MEMBERS_PERSISTENCE_PATH, "members", snapshot -> BinarySnapshot.writeMembers(snapshot, members));
+        System.out.println("Successfully saved " + members.size() + " members to " + MEMBERS_PERSISTENCE_PATH);
     }
 
     // ──────────────────────────────────────────────────────
     //                  Vehicle Operations
     // ──────────────────────────────────────────────────────
 
-    // Load Vehicles
-    public static List<RecreationalVehicle> loadRecreationalVehicles() {
+    // Load Vehicles, streaming each record into the sink one at a time.
+    public static void loadRecreationalVehicles(Consumer<RecreationalVehicle> sink) {
+        if (BinarySnapshot.tryLoad(VEHICLES_PERSISTENCE_PATH, "vehicles", snapshot -> BinarySnapshot.readRecreationalVehicles(snapshot, sink))) {
+            return;
+        }
         File file = new File(VEHICLES_PERSISTENCE_PATH);
-        List<RecreationalVehicle> recreationalVehicles = new ArrayList<>();
         if (!file.exists() || file.length() == 0) {
             System.out.println("INFO: Vehicles file not found or is empty at " + VEHICLES_PERSISTENCE_PATH + ". Starting with empty list.");
-            return recreationalVehicles;
+            return;
         }
         try {
-            recreationalVehicles = MAPPER.readValue(file, new TypeReference<List<RecreationalVehicle>>() {});
-            System.out.println("Successfully loaded " + recreationalVehicles.size() + " vehicles from " + VEHICLES_PERSISTENCE_PATH);
-
+            int count = streamArray(file, VEHICLE_READER, sink);
+            System.out.println("Successfully loaded " + count + " vehicles from " + VEHICLES_PERSISTENCE_PATH);
         } catch (IOException e) {
             System.err.println("FATAL ERROR: Could not load vehicle data from JSON: " + e.getMessage());
             e.printStackTrace();
         }
-        return recreationalVehicles;
     }
 
-    // Save Vehicles
-    public static void saveRecreationalVehicle(List<RecreationalVehicle> recreationalVehicles) {
-        try {
-            File file = new File(VEHICLES_PERSISTENCE_PATH);
-            file.getParentFile().mkdirs();
-            MAPPER.writeValue(file, recreationalVehicles);
-            System.out.println("Successfully saved " + recreationalVehicles.size() + " vehicles to " + VEHICLES_PERSISTENCE_PATH);
-        } catch (IOException e) {
-            System.err.println("FATAL ERROR: Could not save vehicle data to JSON: " + e.getMessage());
-            e.printStackTrace();
-        }
+    // Stages a save of all vehicles into a unit of work, to be written together with the rest of it.
+    public static void saveRecreationalVehicle(Collection<RecreationalVehicle> recreationalVehicles, UnitOfWork unitOfWork) {
+        List<RecreationalVehicle> snapshot = new ArrayList<>(recreationalVehicles);
+        unitOfWork.stageReplace(VEHICLES_PERSISTENCE_PATH, () -> JSON_WRITER.writeValueAsBytes(snapshot),
+                () -> savedRecreationalVehicles(snapshot));
+    }
+
+    // Refreshes the binary snapshot once vehicles.json holds the new state.
+    private static void savedRecreationalVehicles(List<RecreationalVehicle> recreationalVehicles) {
+        BinarySnapshot.tryWrite(VEHICLES_PERSISTENCE_PATH, "vehicles", snapshot -> BinarySnapshot.writeRecreationalVehicles(snapshot, recreationalVehicles));
+        System.out.println("Successfully saved " + recreationalVehicles.size() + " vehicles to " + VEHICLES_PERSISTENCE_PATH);
     }
 
     // ──────────────────────────────────────────────────────
     //                  Gear Operations
     // ──────────────────────────────────────────────────────
 
-    // Load Gear
-    public static List<Gear> loadGear() {
+    // Load Gear, streaming each record into the sink one at a time.
+    public static void loadGear(Consumer<Gear> sink) {
+        if (BinarySnapshot.tryLoad(GEAR_PERSISTENCE_PATH, "gear", snapshot -> BinarySnapshot.readGear(snapshot, sink))) {
+            return;
+        }
         File file = new File(GEAR_PERSISTENCE_PATH);
-        List<Gear> gearList = new ArrayList<>();
         if (!file.exists() || file.length() == 0) {
             System.out.println("INFO: Gear file not found or is empty at " + GEAR_PERSISTENCE_PATH + ". Starting with empty list.");
-            return gearList;
+            return;
         }
         try {
-            gearList = MAPPER.readValue(file, new TypeReference<List<Gear>>() {});
-            System.out.println("Successfully loaded " + gearList.size() + " items from " + GEAR_PERSISTENCE_PATH);
+            int count = streamArray(file, GEAR_READER, sink);
+            System.out.println("Successfully loaded " + count + " items from " + GEAR_PERSISTENCE_PATH);
         } catch (IOException e) {
             System.err.println("FATAL ERROR: Could not load gear data from JSON: " + e.getMessage());
             e.printStackTrace();
         }
-        return gearList;
     }
 
-    // Save Gear
-    public static void saveGear(List<Gear> gearList) {
-        try {
-            File file = new File(GEAR_PERSISTENCE_PATH);
-            file.getParentFile().mkdirs();
-            MAPPER.writeValue(file, gearList);
-            System.out.println("Successfully saved " + gearList.size() + " gear to " + GEAR_PERSISTENCE_PATH);
-        } catch (IOException e) {
-            System.err.println("FATAL ERROR: Could not save gear data to JSON: " + e.getMessage());
-            e.printStackTrace();
-        }
+    // Stages a save of all gear into a unit of work, to be written together with the rest of it.
+    public static void saveGear(Collection<Gear> gearList, UnitOfWork unitOfWork) {
+        List<Gear> snapshot = new ArrayList<>(gearList);
+        unitOfWork.stageReplace(GEAR_PERSISTENCE_PATH, () -> JSON_WRITER.writeValueAsBytes(snapshot),
+                () -> savedGear(snapshot));
+    }
+
+    // Refreshes the binary snapshot once gear.json holds the new state.
+    private static void savedGear(List<Gear> gearList) {
+        BinarySnapshot.tryWrite(GEAR_PERSISTENCE_PATH, "gear", snapshot -> BinarySnapshot.writeGear(snapshot, gearList));
+        System.out.println("Successfully saved " + gearList.size() + " gear to " + GEAR_PERSISTENCE_PATH);
     }
 
     // ──────────────────────────────────────────────────────
     //                      Rental Operations
     // ──────────────────────────────────────────────────────
 
-    // Load Rentals
-    public static List<Rental> loadRentals() {
+    // Load Rentals, streaming each record into the sink one at a time.
+    public static void loadRentals(Consumer<Rental> sink) {
+        if (BinarySnapshot.tryLoad(RENTALS_PERSISTENCE_PATH, "rentals", snapshot -> BinarySnapshot.readRentals(snapshot, sink))) {
+            return;
+        }
         File file = new File(RENTALS_PERSISTENCE_PATH);
-        List<Rental> rentals = new ArrayList<>();
         if (!file.exists() || file.length() == 0) {
-            System.out.println("INFO: Rentals file not found or is empty at " +
-                    RENTALS_PERSISTENCE_PATH + ". Starting with empty list.");
-            return rentals;
+            System.out.println("INFO: Rentals file not found or is empty at " + RENTALS_PERSISTENCE_PATH + ". Starting with empty list.");
+            return;
         }
         try {
-            rentals = MAPPER.readValue(file, new TypeReference<List<Rental>>() {});
-            System.out.println("Successfully loaded " + rentals.size() +
-                    " rentals from " + RENTALS_PERSISTENCE_PATH);
+            int count = streamRentals(file, sink);
+            System.out.println("Successfully loaded " + count + " rentals from " + RENTALS_PERSISTENCE_PATH);
         } catch (IOException e) {
             System.err.println("FATAL ERROR: Could not load rentals data from JSON: " + e.getMessage());
             e.printStackTrace();
         }
-        return rentals;
     }
 
-    // Save Rentals
-    public static void saveRentals(List<Rental> rentals) {
-        try {
-            File file = new File(RENTALS_PERSISTENCE_PATH);
-            file.getParentFile().mkdirs();
-            MAPPER.writeValue(file, rentals);
-            System.out.println("Successfully saved " + rentals.size() +
-                    " rentals to " + RENTALS_PERSISTENCE_PATH);
-        } catch (IOException e) {
-            System.err.println("FATAL ERROR: Could not save rentals data to JSON: " + e.getMessage());
-            e.printStackTrace();
+    // Stages a save of all rentals into a unit of work. The rental journal uses it to fold itself into rentals.json.
+    static void saveRentals(Collection<Rental> rentals, UnitOfWork unitOfWork) {
+        List<Rental> snapshot = new ArrayList<>(rentals);
+        unitOfWork.stageReplace(RENTALS_PERSISTENCE_PATH, () -> JSON_WRITER.writeValueAsBytes(snapshot),
+                () -> savedRentals(snapshot));
+    }
+
+    // Refreshes the binary snapshot once rentals.json holds the new state.
+    private static void savedRentals(List<Rental> rentals) {
+        BinarySnapshot.tryWrite(RENTALS_PERSISTENCE_PATH, "rentals", snapshot -> BinarySnapshot.writeRentals(snapshot, rentals));
+        System.out.println("Successfully saved " + rentals.size() + " rentals to " + RENTALS_PERSISTENCE_PATH);
+    }
+
+    // ──────────────────────────────────────────────────────
+    //                      Streaming
+    // ──────────────────────────────────────────────────────
+
+    // Reads a top-level JSON array one object at a time, so no tree or intermediate list is built.
+    static <T> int streamArray(File file, ObjectReader reader, Consumer<T> sink) throws IOException {
+        int count = 0;
+        try (JsonParser parser = MAPPER.getFactory().createParser(file)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IOException("Expected a JSON array in " + file.getName());
+            }
+            // Step onto the first element; the iterator then reuses one deserialization context for all records.
+            // An empty array has no first element, and the iterator would try to read its END_ARRAY as one.
+            if (parser.nextToken() == JsonToken.END_ARRAY) {
+                return 0;
+            }
+            MappingIterator<T> records = reader.readValues(parser);
+            while (records.hasNextValue()) {
+                sink.accept(records.nextValue());
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Reads rentals.json field by field instead of binding each record through the ObjectMapper.
+     * Rentals are by far the largest file, and this takes about half the time. Unknown fields are skipped,
+     * so a field added to Rental must also be read here.
+     */
+    static int streamRentals(File file, Consumer<Rental> sink) throws IOException {
+        int count = 0;
+        try (JsonParser parser = MAPPER.getFactory().createParser(file)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IOException("Expected a JSON array in " + file.getName());
+            }
+            JsonToken token;
+            while ((token = parser.nextToken()) == JsonToken.START_OBJECT) {
+                sink.accept(readRental(parser));
+                count++;
+            }
+            if (token != JsonToken.END_ARRAY) {
+                throw new IOException("Expected a rental at " + parser.getCurrentLocation() + " in " + file.getName());
+            }
+        }
+        return count;
+    }
+
+    private static Rental readRental(JsonParser parser) throws IOException {
+        Rental rental = new Rental();
+        String field;
+        while ((field = parser.nextFieldName()) != null) {
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "rentalId":
+                    rental.setRentalId(parser.getIntValue());
+                    break;
+                case "memberId":
+                    rental.setMemberId(parser.getIntValue());
+                    break;
+                case "itemId":
+                    rental.setItemId(parser.getIntValue());
+                    break;
+                case "startDate":
+                    rental.setStartDate(readDate(parser, value));
+                    break;
+                case "rentalDays":
+                    rental.setRentalDays(parser.getIntValue());
+                    break;
+                case "dailyPriceOre":
+                    rental.setDailyPriceOre(parser.getLongValue());
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+        return rental;
+    }
+
+    // Dates are written as [year, month, day]; an ISO string is accepted too, like JavaTimeModule does.
+    private static LocalDate readDate(JsonParser parser, JsonToken value) throws IOException {
+        if (value == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (value == JsonToken.VALUE_STRING) {
+            return LocalDate.parse(parser.getText());
+        }
+        if (value != JsonToken.START_ARRAY) {
+            throw new IOException("Expected a date at " + parser.getCurrentLocation());
+        }
+        int year = parser.nextIntValue(0);
+        int month = parser.nextIntValue(0);
+        int day = parser.nextIntValue(0);
+        if (parser.nextToken() != JsonToken.END_ARRAY) {
+            throw new IOException("Expected a date at " + parser.getCurrentLocation());
         }
+        return LocalDate.of(year, month, day);
     }
 }
\ No newline at end of file
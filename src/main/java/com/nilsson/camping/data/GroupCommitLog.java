@@ -0,0 +1,469 @@
+package com.nilsson.camping.data;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.zip.CRC32;
+
+/**
+ * Redo log behind UnitOfWork.
+ * All units committed while the persistence thread was busy are written as one group record:
+ * a manifest (path, mode, offset and length of every write) followed by the data, guarded by a CRC.
+ * The record is forced to disk once, then the writes are applied to the data files without further fsyncs.
+ * Applied files are forced and the log is truncated at the next checkpoint. On startup every complete
+ * group left in the log is applied again; a torn last record was never acknowledged and is dropped.
+ * Applying a group twice must leave the files as applying it once. Replacements, page writes and deletes are
+ * like that by nature; appends are logged with the offset they land at and replayed as writes at that offset.
+ */
+class GroupCommitLog {
+
+    private static final String LOG_PATH =
+            System.getProperty("user.dir") + "/src/main/resources/data/json/commit.log";
+
+    // "WGCL", marks the start of each group record.
+    private static final int RECORD_MAGIC = 0x5747434C;
+
+    // Checkpoint after this many groups, so the log and recovery time stay small.
+    private static final int CHECKPOINT_GROUPS = 64;
+
+    private static final ConcurrentLinkedQueue<UnitOfWork> COMMITTED = new ConcurrentLinkedQueue<>();
+
+    private static boolean recovered = false;
+
+    // Only touched on the persistence thread.
+    private static FileOutputStream logStream;
+    private static int groupsSinceCheckpoint = 0;
+    // Set when a logged write could not be applied. The next checkpoint applies the whole log again before truncating it.
+    private static boolean applyFailed = false;
+    private static final Set<String> unsyncedPaths = new LinkedHashSet<>();
+    // Length of every file written since the last checkpoint, once all logged writes are applied.
+    // Appends are logged at this offset, even if an earlier write to the file failed to apply.
+    private static final Map<String, Long> loggedLengths = new HashMap<>();
+
+    private GroupCommitLog() {
+
+    }
+
+    // Queues a committed unit. Every unit waiting when the persistence thread gets to it shares one group record.
+    static void enqueue(UnitOfWork unit) {
+        unit.getAction().retain();
+        COMMITTED.add(unit);
+        PersistenceQueue.execute(GroupCommitLog::drain);
+    }
+
+    // ──────────────────────────────────────────────────────
+    //                      Group Commit
+    // ──────────────────────────────────────────────────────
+
+    private static void drain() {
+        List<UnitOfWork> group = new ArrayList<>();
+        UnitOfWork unit;
+        while ((unit = COMMITTED.poll()) != null) {
+            group.add(unit);
+        }
+        if (group.isEmpty()) {
+            return;
+        }
+
+        try {
+            // A unit is logged whole or not at all, so a write that cannot be serialized drops the rest of its unit.
+            List<UnitOfWork> units = new ArrayList<>(group);
+            Map<UnitOfWork.StagedWrite, byte[]> serializedPayloads = new IdentityHashMap<>();
+            List<UnitOfWork.StagedWrite> serialized = collapse(units);
+            UnitOfWork broken;
+            while ((broken = serialize(units, serialized, serializedPayloads)) != null) {
+                units.remove(broken);
+                serialized = collapse(units);
+            }
+            List<byte[]> payloads = new ArrayList<>();
+            for (UnitOfWork.StagedWrite write : serialized) {
+                payloads.add(serializedPayloads.get(write));
+            }
+            // Offsets are worked out on a copy, which only replaces the logged lengths once the record is durable.
+            Map<String, Long> lengths = new HashMap<>(loggedLengths);
+            long[] offsets = new long[serialized.size()];
+            for (int i = 0; i < serialized.size(); i++) {
+                offsets[i] = logOffset(lengths, serialized.get(i), payloads.get(i).length);
+            }
+
+            try {
+                appendRecord(serialized, offsets, payloads);
+            } catch (IOException e) {
+                // Without a durable record the group is not applied and the logged lengths stay as they were,
+                // so the next group's appends land where the data files really end.
+                System.err.println("FATAL ERROR: Could not write commit log: " + e.getMessage());
+                e.printStackTrace();
+                return;
+            }
+            loggedLengths.clear();
+            loggedLengths.putAll(lengths);
+
+            for (int i = 0; i < serialized.size(); i++) {
+                UnitOfWork.StagedWrite write = serialized.get(i);
+                byte[] payload = payloads.get(i);
+                try {
+                    apply(write.path, write.mode, offsets[i], payload);
+                    // Counted twice: once in the commit log and once in the data file.
+                    write.action.addBytes(2L * payload.length);
+                } catch (IOException e) {
+                    System.err.println("ERROR: Could not apply committed write to " + write.path +
+                            ", it will be applied again at the next checkpoint: " + e.getMessage());
+                    applyFailed = true;
+                    continue;
+                }
+                if (write.afterApply != null) {
+                    WriteMetrics.countAgainst(write.action, write.afterApply);
+                }
+            }
+
+            groupsSinceCheckpoint++;
+            if (groupsSinceCheckpoint >= CHECKPOINT_GROUPS) {
+                checkpoint();
+            }
+        } finally {
+            for (UnitOfWork committed : group) {
+                committed.getAction().release();
+            }
+        }
+    }
+
+    // Serializes every write not serialized yet. Returns the unit of the first write that fails, or null.
+    private static UnitOfWork serialize(List<UnitOfWork> units, List<UnitOfWork.StagedWrite> writes,
+                                        Map<UnitOfWork.StagedWrite, byte[]> payloads) {
+        for (UnitOfWork.StagedWrite write : writes) {
+            if (payloads.containsKey(write)) {
+                continue;
+            }
+            try {
+                payloads.put(write, write.payload.serialize());
+            } catch (IOException e) {
+                System.err.println("FATAL ERROR: Could not serialize " + write.path + ", dropping its unit of work: " +
+                        e.getMessage());
+                e.printStackTrace();
+                for (UnitOfWork unit : units) {
+                    if (unit.getWrites().contains(write)) {
+                        return unit;
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    // A later replacement of the same file makes earlier ones redundant; appends, page writes and deletes are all kept, in order.
+    private static List<UnitOfWork.StagedWrite> collapse(List<UnitOfWork> group) {
+        Map<String, UnitOfWork.StagedWrite> lastReplace = new HashMap<>();
+        for (UnitOfWork unit : group) {
+            for (UnitOfWork.StagedWrite write : unit.getWrites()) {
+                if (write.mode == UnitOfWork.StagedWrite.REPLACE) {
+                    lastReplace.put(write.path, write);
+                }
+            }
+        }
+        List<UnitOfWork.StagedWrite> writes = new ArrayList<>();
+        for (UnitOfWork unit : group) {
+            for (UnitOfWork.StagedWrite write : unit.getWrites()) {
+                if (write.mode != UnitOfWork.StagedWrite.REPLACE || lastReplace.get(write.path) == write) {
+                    writes.add(write);
+                }
+            }
+        }
+        return writes;
+    }
+
+    // Where a write lands, tracking in lengths the length every file will have once the writes logged so far are applied.
+    private static long logOffset(Map<String, Long> lengths, UnitOfWork.StagedWrite write, int length) {
+        switch (write.mode) {
+            case UnitOfWork.StagedWrite.APPEND: {
+                long offset = lengths.computeIfAbsent(write.path, path -> new File(path).length());
+                lengths.put(write.path, offset + length);
+                return offset;
+            }
+            case UnitOfWork.StagedWrite.WRITE_AT: {
+                long end = Math.max(write.offset + length,
+                        lengths.computeIfAbsent(write.path, path -> new File(path).length()));
+                lengths.put(write.path, end);
+                return write.offset;
+            }
+            case UnitOfWork.StagedWrite.DELETE:
+                lengths.put(write.path, 0L);
+                return 0;
+            default:
+                lengths.put(write.path, (long) length);
+                return 0;
+        }
+    }
+
+    private static void appendRecord(List<UnitOfWork.StagedWrite> writes, long[] offsets, List<byte[]> payloads)
+            throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(body);
+
+        // Manifest first, so recovery knows every target before reading any data.
+        out.writeInt(writes.size());
+        for (int i = 0; i < writes.size(); i++) {
+            out.writeByte(writes.get(i).mode);
+            out.writeUTF(writes.get(i).path);
+            out.writeLong(offsets[i]);
+            out.writeInt(payloads.get(i).length);
+        }
+        for (byte[] payload : payloads) {
+            out.write(payload);
+        }
+        out.flush();
+        byte[] bytes = body.toByteArray();
+
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+
+        ByteArrayOutputStream record = new ByteArrayOutputStream(bytes.length + 16);
+        DataOutputStream header = new DataOutputStream(record);
+        header.writeInt(RECORD_MAGIC);
+        header.writeInt(bytes.length);
+        header.writeLong(crc.getValue());
+        header.write(bytes);
+        header.flush();
+
+        FileOutputStream log = openLog();
+        long start = log.getChannel().size();
+        try {
+            log.write(record.toByteArray());
+            log.flush();
+            log.getChannel().force(false);
+        } catch (IOException e) {
+            // Cut off a partly written record, so later groups do not end up behind a torn one that recovery stops at.
+            try {
+                log.getChannel().truncate(start);
+            } catch (IOException truncateFailed) {
+                closeLog();
+            }
+            throw e;
+        }
+    }
+
+    // Appends are written at their logged offset, so applying one again rewrites the same bytes.
+    private static void apply(String path, byte mode, long offset, byte[] payload) throws IOException {
+        File file = new File(path);
+        file.getParentFile().mkdirs();
+        if (mode == UnitOfWork.StagedWrite.DELETE) {
+            Files.deleteIfExists(file.toPath());
+        } else if (mode == UnitOfWork.StagedWrite.APPEND || mode == UnitOfWork.StagedWrite.WRITE_AT) {
+            try (RandomAccessFile out = new RandomAccessFile(file, "rw")) {
+                out.seek(offset);
+                out.write(payload);
+            }
+        } else {
+            File tempFile = new File(path + ".tmp");
+            Files.write(tempFile.toPath(), payload);
+            Files.move(tempFile.toPath(), file.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        unsyncedPaths.add(path);
+    }
+
+    // ──────────────────────────────────────────────────────
+    //                      Checkpoint
+    // ──────────────────────────────────────────────────────
+
+    /**
+     * Forces every file applied since the last checkpoint and truncates the log.
+     * If a write failed to apply, every group in the log is applied again first, in order, as on a restart;
+     * if that fails too the log is kept and the next checkpoint tries again.
+     * Runs on the persistence thread, and on flush so a clean shutdown leaves no log behind.
+     */
+    static void checkpoint() {
+        if (groupsSinceCheckpoint == 0) {
+            return;
+        }
+        if (applyFailed) {
+            try {
+                applyLog(new File(LOG_PATH), unsyncedPaths);
+            } catch (IOException e) {
+                System.err.println("ERROR: Could not apply the commit log again, keeping it: " + e.getMessage());
+                return;
+            }
+            applyFailed = false;
+        }
+        try {
+            forceAll(unsyncedPaths);
+        } catch (IOException e) {
+            // The log is kept, so the groups are applied again on the next start.
+            System.err.println("ERROR: Could not checkpoint commit log: " + e.getMessage());
+            return;
+        }
+        unsyncedPaths.clear();
+        loggedLengths.clear();
+        groupsSinceCheckpoint = 0;
+        closeLog();
+        File log = new File(LOG_PATH);
+        if (log.exists() && !log.delete()) {
+            System.err.println("ERROR: Could not truncate commit log at " + LOG_PATH);
+        }
+    }
+
+    private static void forceAll(Set<String> paths) throws IOException {
+        for (String path : paths) {
+            File file = new File(path);
+            // A file deleted in the meantime has nothing left to force.
+            if (!file.exists()) {
+                continue;
+            }
+            try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE)) {
+                channel.force(true);
+            }
+        }
+    }
+
+    private static FileOutputStream openLog() throws IOException {
+        if (logStream == null) {
+            File file = new File(LOG_PATH);
+            file.getParentFile().mkdirs();
+            logStream = new FileOutputStream(file, true);
+        }
+        return logStream;
+    }
+
+    private static void closeLog() {
+        if (logStream != null) {
+            try {
+                logStream.close();
+            } catch (IOException e) {
+                System.err.println("ERROR: Could not close commit log: " + e.getMessage());
+            }
+            logStream = null;
+        }
+    }
+
+    // ──────────────────────────────────────────────────────
+    //                      Recovery
+    // ──────────────────────────────────────────────────────
+
+    /**
+     * Applies every complete group left in the log by a crash, then forces the files and removes the log.
+     * Called before any data file is read; only the first call does any work.
+     */
+    static synchronized void recover() {
+        if (recovered) {
+            return;
+        }
+        recovered = true;
+        replay();
+    }
+
+    /**
+     * Applies every complete group in the log and starts over with an empty one, as a restart would.
+     * Must not run while the persistence thread is writing; tests call it to restart after a simulated crash.
+     */
+    static synchronized void replay() {
+        closeLog();
+        groupsSinceCheckpoint = 0;
+        applyFailed = false;
+        loggedLengths.clear();
+        unsyncedPaths.clear();
+
+        File log = new File(LOG_PATH);
+        if (!log.exists()) {
+            return;
+        }
+
+        int groups;
+        Set<String> applied = new LinkedHashSet<>();
+        try {
+            groups = applyLog(log, applied);
+            forceAll(applied);
+            unsyncedPaths.clear();
+        } catch (IOException e) {
+            System.err.println("FATAL ERROR: Could not recover commit log: " + e.getMessage());
+            e.printStackTrace();
+            return;
+        }
+
+        if (!log.delete()) {
+            System.err.println("ERROR: Could not remove recovered commit log at " + LOG_PATH);
+        }
+        if (groups > 0) {
+            System.out.println("Recovered " + groups + " committed groups from " + LOG_PATH);
+        }
+    }
+
+    // Applies every complete group in the log, in order, adding the paths written to applied. Returns the number of groups.
+    private static int applyLog(File log, Set<String> applied) throws IOException {
+        int groups = 0;
+        try (DataInputStream in = new DataInputStream(new FileInputStream(log))) {
+            byte[] body;
+            while ((body = readRecord(in)) != null) {
+                applyRecord(body, applied);
+                groups++;
+            }
+        }
+        return groups;
+    }
+
+    // Returns the body of the next intact record, or null at the end of the log or at a torn record.
+    private static byte[] readRecord(DataInputStream in) throws IOException {
+        try {
+            if (in.readInt() != RECORD_MAGIC) {
+                return null;
+            }
+            int length = in.readInt();
+            long expectedCrc = in.readLong();
+            if (length < 0) {
+                return null;
+            }
+            byte[] body = new byte[length];
+            in.readFully(body);
+
+            CRC32 crc = new CRC32();
+            crc.update(body);
+            return crc.getValue() == expectedCrc ? body : null;
+        } catch (EOFException e) {
+            return null;
+        }
+    }
+
+    private static void applyRecord(byte[] body, Set<String> applied) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(body));
+        int count = in.readInt();
+        byte[] modes = new byte[count];
+        String[] paths = new String[count];
+        long[] offsets = new long[count];
+        int[] lengths = new int[count];
+        for (int i = 0; i < count; i++) {
+            modes[i] = in.readByte();
+            paths[i] = in.readUTF();
+            offsets[i] = in.readLong();
+            lengths[i] = in.readInt();
+        }
+        for (int i = 0; i < count; i++) {
+            byte[] payload = new byte[lengths[i]];
+            in.readFully(payload);
+            // Everything before a logged append was forced at a checkpoint or is replayed before it.
+            // A shorter file was changed outside the log, and writing there would leave a gap.
+            if (modes[i] == UnitOfWork.StagedWrite.APPEND && new File(paths[i]).length() < offsets[i]) {
+                System.err.println("WARNING: Skipping logged append to " + paths[i] + ", the file is shorter than its offset.");
+                continue;
+            }
+            apply(paths[i], modes[i], offsets[i], payload);
+            applied.add(paths[i]);
+        }
+    }
+}
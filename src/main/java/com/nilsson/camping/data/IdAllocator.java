@@ -0,0 +1,140 @@
+package com.nilsson.camping.data;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hands out ids for members, items and rentals, counting up from a per-sequence high-water mark.
+ * Ids are reserved in blocks: before the first id of a block is handed out, the end of the block is committed to
+ * ids.json, so an id is never handed out twice, not even after a crash or after its record was deleted.
+ * Between reservations, nextId and allocateBlock are a single atomic add, so concurrent callers never wait on
+ * each other. A crash skips the rest of the reserved block.
+ */
+public class IdAllocator {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static final String IDS_PATH =
+            System.getProperty("user.dir") + "/src/main/resources/data/json/ids.json";
+
+    // Ids reserved per write of ids.json.
+    private static final int BLOCK_SIZE = 64;
+
+    // Reserved ceilings of every sequence, as last committed. Guarded by the class.
+    private static final Map<String, Integer> CEILINGS = new TreeMap<>();
+
+    static {
+        GroupCommitLog.recover();
+        loadCeilings();
+    }
+
+    public static final IdAllocator MEMBERS = new IdAllocator("members", 1000);
+    public static final IdAllocator ITEMS = new IdAllocator("items", 10000);
+    public static final IdAllocator RENTALS = new IdAllocator("rentals", 1);
+
+    private final String name;
+    private final AtomicInteger next;
+
+    // Ids below the ceiling are reserved and can be handed out without further writes.
+    private volatile int ceiling;
+
+    private IdAllocator(String name, int firstId) {
+        this.name = name;
+        synchronized (IdAllocator.class) {
+            Integer committed = CEILINGS.get(name);
+            this.ceiling = committed != null ? committed : firstId;
+        }
+        // Everything below the committed ceiling may already have been handed out before a crash.
+        this.next = new AtomicInteger(ceiling);
+    }
+
+    // The next free id.
+    public int nextId() {
+        return allocateBlock(1);
+    }
+
+    /**
+     * Reserves count consecutive ids for a bulk import.
+     * @return The first id; the block runs up to first + count - 1.
+     */
+    public int allocateBlock(int count) {
+        if (count <= 0) {
+            throw new IllegalArgumentException("Cannot allocate " + count + " ids.");
+        }
+        int first = next.getAndAdd(count);
+        if (first < 0 || first + count < 0) {
+            throw new IllegalStateException("The " + name + " id space is exhausted.");
+        }
+        if (first + count > ceiling) {
+            reserveUpTo(first + count);
+        }
+        return first;
+    }
+
+    /**
+     * Makes sure ids at or below an id that already exists in the data are never handed out.
+     * Called by the registries for every record they load.
+     */
+    public void observe(int existingId) {
+        int current;
+        while ((current = next.get()) <= existingId) {
+            if (next.compareAndSet(current, existingId + 1)) {
+                return;
+            }
+        }
+    }
+
+    // Moves the ceiling past the given id and commits it before the ids are handed out.
+    private void reserveUpTo(int end) {
+        synchronized (IdAllocator.class) {
+            if (end <= ceiling) {
+                return;
+            }
+            // Round up to whole blocks beyond the highest id handed out so far.
+            int newCeiling = Math.max(end, next.get());
+            newCeiling = (int) Math.min(Integer.MAX_VALUE, ((long) newCeiling / BLOCK_SIZE + 1) * BLOCK_SIZE);
+            CEILINGS.put(name, newCeiling);
+            commitCeilings();
+            ceiling = newCeiling;
+        }
+    }
+
+    // ──────────────────────────────────────────────────────
+    //                      ids.json
+    // ──────────────────────────────────────────────────────
+
+    private static void loadCeilings() {
+        File file = new File(IDS_PATH);
+        if (!file.exists() || file.length() == 0) {
+            return;
+        }
+        try {
+            CEILINGS.putAll(MAPPER.readValue(file, new TypeReference<Map<String, Integer>>() { }));
+        } catch (IOException e) {
+            // The registries still observe every loaded id, so only ids of deleted records could be handed out again.
+            System.err.println("ERROR: Could not read id high-water marks: " + e.getMessage());
+        }
+    }
+
+    // Commits the ceilings as their own unit of work, ahead of any record that uses the new ids.
+    private static void commitCeilings() {
+        if (Storage.isInMemory()) {
+            return;
+        }
+        final byte[] bytes;
+        try {
+            bytes = MAPPER.writeValueAsBytes(CEILINGS);
+        } catch (IOException e) {
+            System.err.println("FATAL ERROR: Could not serialize id high-water marks: " + e.getMessage());
+            return;
+        }
+        UnitOfWork unitOfWork = UnitOfWork.begin();
+        unitOfWork.stageReplace(IDS_PATH, () -> bytes, null);
+        unitOfWork.commit();
+    }
+}
@@ -0,0 +1,55 @@
+package com.nilsson.camping.data;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.ToIntFunction;
+
+/**
+ * Keeps records in a map and never touches the disk after it has been seeded.
+ * Meant for benchmarks and experiments, where storage cost should not hide the cost of the code above it.
+ * On first load it is seeded from another repository, normally the JSON files.
+ */
+class InMemoryRepository<T> implements Repository<T> {
+
+    private final Repository<T> seed;
+    private final ToIntFunction<T> idOf;
+    private final Map<Integer, T> records = new LinkedHashMap<>();
+    private boolean seeded = false;
+
+    InMemoryRepository(Repository<T> seed, ToIntFunction<T> idOf) {
+        this.seed = seed;
+        this.idOf = idOf;
+    }
+
+    @Override
+    public synchronized void loadAll(Consumer<T> sink) {
+        seed();
+        records.values().forEach(sink);
+    }
+
+    @Override
+    public synchronized T findById(int id) {
+        seed();
+        return records.get(id);
+    }
+
+    // Reads the seed repository once. Seeding only reads, so nothing is written to disk.
+    private void seed() {
+        if (!seeded) {
+            seed.loadAll(record -> records.put(idOf.applyAsInt(record), record));
+            seeded = true;
+        }
+    }
+
+    @Override
+    public synchronized void save(Collection<T> all, Collection<T> changed, Collection<Integer> removedIds, UnitOfWork unitOfWork) {
+        for (int id : removedIds) {
+            records.remove(id);
+        }
+        for (T record : changed) {
+            records.put(idOf.applyAsInt(record), record);
+        }
+    }
+}
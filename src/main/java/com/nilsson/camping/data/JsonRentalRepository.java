@@ -0,0 +1,56 @@
+package com.nilsson.camping.data;
+
+import com.nilsson.camping.model.Rental;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * JSON storage for rentals: the rentals.json snapshot plus the append-only RentalJournal.
+ * Each saved change becomes one journal line; the journal is folded into the snapshot once it is due.
+ * Reading never writes: a replayed journal is folded in by a later save or registry checkpoint.
+ */
+class JsonRentalRepository implements Repository<Rental> {
+
+    // Loads the rentals.json snapshot and replays any journaled mutations on top of it, in memory only.
+    @Override
+    public void loadAll(Consumer<Rental> sink) {
+        List<Rental> rentals = new ArrayList<>();
+        DataHandler.loadRentals(rentals::add);
+        RentalJournal.replay(rentals);
+        rentals.forEach(sink);
+    }
+
+    // The snapshot and journal would have to be read whole; RentalRegistry looks rentals up in memory instead.
+    @Override
+    public Rental findById(int id) {
+        throw new UnsupportedOperationException("Rentals stored as JSON cannot be looked up by id; use RentalRegistry.");
+    }
+
+    @Override
+    public void save(Collection<Rental> all, Collection<Rental> changed, Collection<Integer> removedIds, UnitOfWork unitOfWork) {
+        for (int rentalId : removedIds) {
+            RentalJournal.appendRemoved(rentalId, unitOfWork);
+        }
+        for (Rental rental : changed) {
+            RentalJournal.appendAdded(rental, unitOfWork);
+        }
+        // Runs right after the commit. The registry locks its rentals while changing them, so lock them while copying.
+        unitOfWork.afterCommit(() -> {
+            if (RentalJournal.isCompactionDue()) {
+                synchronized (all) {
+                    RentalJournal.compact(all);
+                }
+            }
+        });
+    }
+
+    // Writes a full snapshot of all rentals and folds the journal into it.
+    @Override
+    public void checkpoint(Collection<Rental> all) {
+        synchronized (all) {
+            RentalJournal.compact(all);
+        }
+    }
+}
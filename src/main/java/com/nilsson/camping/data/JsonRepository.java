@@ -0,0 +1,37 @@
+package com.nilsson.camping.data;
+
+import java.util.Collection;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * The original storage: one JSON file per collection, rewritten as a whole on every save.
+ * Loading and saving are delegated to DataHandler and ProfitsHandler.
+ * Point lookups are not supported, since they would have to read the whole file; the registries look records
+ * up in memory instead.
+ */
+class JsonRepository<T> implements Repository<T> {
+
+    private final Consumer<Consumer<T>> loader;
+    private final BiConsumer<Collection<T>, UnitOfWork> saver;
+
+    JsonRepository(Consumer<Consumer<T>> loader, BiConsumer<Collection<T>, UnitOfWork> saver) {
+        this.loader = loader;
+        this.saver = saver;
+    }
+
+    @Override
+    public void loadAll(Consumer<T> sink) {
+        loader.accept(sink);
+    }
+
+    @Override
+    public T findById(int id) {
+        throw new UnsupportedOperationException("Records stored as JSON cannot be looked up by id; use the registry.");
+    }
+
+    @Override
+    public void save(Collection<T> all, Collection<T> changed, Collection<Integer> removedIds, UnitOfWork unitOfWork) {
+        saver.accept(all, unitOfWork);
+    }
+}
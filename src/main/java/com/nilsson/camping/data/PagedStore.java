@@ -0,0 +1,361 @@
+package com.nilsson.camping.data;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.ToIntFunction;
+
+/**
+ * Embedded storage engine that keeps one collection in a file of fixed-size pages.
+ * Page 0 is a header; every other page holds a few records, each stored as its id, its length and its JSON bytes.
+ * An id-to-page index, rebuilt on open, lets a lookup read a single page and a save rewrite only the pages
+ * whose records changed, so neither depends on the size of the file. Page writes are staged into the
+ * UnitOfWork and reach the file through the group commit, like every other write.
+ * When the file does not exist yet it is created from the seed repository, normally the JSON files.
+ */
+class PagedStore<T> implements Repository<T> {
+
+    static final int PAGE_SIZE = 4096;
+
+    // "WGPS", written at the start of the header page.
+    private static final int MAGIC = 0x57475053;
+    private static final short VERSION = 1;
+
+    // A page starts with its record count and the number of bytes in use; a record with its id and length.
+    private static final int PAGE_HEADER = 4;
+    private static final int RECORD_HEADER = 6;
+    private static final int MAX_RECORD_SIZE = PAGE_SIZE - PAGE_HEADER - RECORD_HEADER;
+
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .registerModule(new JavaTimeModule());
+
+    private final String path;
+    private final String label;
+    private final ObjectReader reader;
+    private final ObjectWriter writer;
+    private final ToIntFunction<T> idOf;
+    private final Repository<T> seed;
+
+    // Primary index: record id to page number.
+    private final Map<Integer, Integer> pageOf = new HashMap<>();
+    // Bytes in use per page, by page number. Page 0 is the header.
+    private int[] usedBytes = new int[16];
+    private int pageCount = 1;
+    private boolean opened = false;
+
+    // Pages staged in a unit of work but not yet applied to the file. Reads check these first.
+    private final ConcurrentHashMap<Integer, byte[]> unappliedPages = new ConcurrentHashMap<>();
+
+    PagedStore(String path, String label, Class<T> type, ToIntFunction<T> idOf, Repository<T> seed) {
+        this.path = path;
+        this.label = label;
+        this.reader = MAPPER.readerFor(type);
+        this.writer = MAPPER.writerFor(type);
+        this.idOf = idOf;
+        this.seed = seed;
+    }
+
+    // ──────────────────────────────────────────────────────
+    //                      Reading
+    // ──────────────────────────────────────────────────────
+
+    @Override
+    public synchronized void loadAll(Consumer<T> sink) {
+        try {
+            createIfMissing();
+            int count = scan(sink);
+            System.out.println("Successfully loaded " + count + " " + label + " from " + path);
+        } catch (IOException e) {
+            System.err.println("FATAL ERROR: Could not load " + label + " from paged store: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    @Override
+    public synchronized T findById(int id) {
+        try {
+            ensureOpen();
+            Integer page = pageOf.get(id);
+            if (page == null) {
+                return null;
+            }
+            byte[] record = decodePage(readPage(page)).get(id);
+            return record == null ? null : reader.readValue(record);
+        } catch (IOException e) {
+            System.err.println("ERROR: Could not read " + label + " record " + id + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private void ensureOpen() throws IOException {
+        if (!opened) {
+            createIfMissing();
+            scan(null);
+        }
+    }
+
+    // Reads every page once, rebuilding the index and free-space table. Records go to the sink if there is one.
+    private int scan(Consumer<T> sink) throws IOException {
+        pageOf.clear();
+        File file = new File(path);
+        int pagesOnDisk = (int) (file.length() / PAGE_SIZE);
+        pageCount = Math.max(1, Math.max(pagesOnDisk, highestUnappliedPage() + 1));
+        usedBytes = new int[Math.max(16, pageCount)];
+
+        int count = 0;
+        try (RandomAccessFile in = new RandomAccessFile(file, "r")) {
+            checkHeader(in);
+            for (int page = 1; page < pageCount; page++) {
+                Map<Integer, byte[]> records = decodePage(readPage(in, page));
+                usedBytes[page] = sizeOf(records);
+                for (Map.Entry<Integer, byte[]> entry : records.entrySet()) {
+                    pageOf.put(entry.getKey(), page);
+                    if (sink != null) {
+                        sink.accept(reader.readValue(entry.getValue()));
+                    }
+                    count++;
+                }
+            }
+        }
+        opened = true;
+        return count;
+    }
+
+    private void checkHeader(RandomAccessFile in) throws IOException {
+        in.seek(0);
+        if (in.length() < PAGE_SIZE || in.readInt() != MAGIC) {
+            throw new IOException("Not a paged store: " + path);
+        }
+        short version = in.readShort();
+        if (version != VERSION) {
+            throw new IOException("Unsupported paged store version " + version + " in " + path);
+        }
+        if (in.readInt() != PAGE_SIZE) {
+            throw new IOException("Unexpected page size in " + path);
+        }
+    }
+
+    private byte[] readPage(int page) throws IOException {
+        try (RandomAccessFile in = new RandomAccessFile(path, "r")) {
+            return readPage(in, page);
+        }
+    }
+
+    private byte[] readPage(RandomAccessFile in, int page) throws IOException {
+        byte[] unapplied = unappliedPages.get(page);
+        if (unapplied != null) {
+            return unapplied;
+        }
+        byte[] image = new byte[PAGE_SIZE];
+        long offset = (long) page * PAGE_SIZE;
+        // A page allocated in memory but not yet written reads as empty.
+        if (offset + PAGE_SIZE <= in.length()) {
+            in.seek(offset);
+            in.readFully(image);
+        }
+        return image;
+    }
+
+    private int highestUnappliedPage() {
+        int highest = 0;
+        for (int page : unappliedPages.keySet()) {
+            highest = Math.max(highest, page);
+        }
+        return highest;
+    }
+
+    // ──────────────────────────────────────────────────────
+    //                      Writing
+    // ──────────────────────────────────────────────────────
+
+    @Override
+    public synchronized void save(Collection<T> all, Collection<T> changed, Collection<Integer> removedIds, UnitOfWork unitOfWork) {
+        try {
+            ensureOpen();
+        } catch (IOException e) {
+            System.err.println("FATAL ERROR: Could not open paged store " + path + ": " + e.getMessage());
+            return;
+        }
+
+        // Pages touched by this save, decoded once and written back once.
+        Map<Integer, Map<Integer, byte[]>> touched = new TreeMap<>();
+        try {
+            for (int id : removedIds) {
+                Integer page = pageOf.remove(id);
+                if (page != null) {
+                    touchedPage(touched, page).remove(id);
+                }
+            }
+            for (T record : changed) {
+                byte[] bytes = writer.writeValueAsBytes(record);
+                if (bytes.length > MAX_RECORD_SIZE) {
+                    System.err.println("ERROR: " + label + " record " + idOf.applyAsInt(record) +
+                            " is too large for a page and was not saved.");
+                    continue;
+                }
+                place(touched, idOf.applyAsInt(record), bytes);
+            }
+        } catch (IOException e) {
+            System.err.println("FATAL ERROR: Could not update paged store " + path + ": " + e.getMessage());
+            e.printStackTrace();
+            return;
+        }
+
+        for (Map.Entry<Integer, Map<Integer, byte[]>> entry : touched.entrySet()) {
+            int page = entry.getKey();
+            byte[] image = encodePage(entry.getValue());
+            usedBytes[page] = sizeOf(entry.getValue());
+            unappliedPages.put(page, image);
+            unitOfWork.stageWriteAt(path, (long) page * PAGE_SIZE, image, () -> unappliedPages.remove(page, image));
+        }
+    }
+
+    // Updates a record in its own page if it still fits there, otherwise moves it to the last page or a new one.
+    private void place(Map<Integer, Map<Integer, byte[]>> touched, int id, byte[] bytes) throws IOException {
+        Integer current = pageOf.get(id);
+        if (current != null) {
+            Map<Integer, byte[]> records = touchedPage(touched, current);
+            records.put(id, bytes);
+            if (sizeOf(records) <= PAGE_SIZE) {
+                return;
+            }
+            records.remove(id);
+            pageOf.remove(id);
+        }
+
+        int target = pageCount - 1;
+        int needed = RECORD_HEADER + bytes.length;
+        if (target == 0 || currentSize(touched, target) + needed > PAGE_SIZE) {
+            target = allocatePage();
+        }
+        touchedPage(touched, target).put(id, bytes);
+        pageOf.put(id, target);
+    }
+
+    private int currentSize(Map<Integer, Map<Integer, byte[]>> touched, int page) {
+        Map<Integer, byte[]> records = touched.get(page);
+        return records != null ? sizeOf(records) : usedBytes[page];
+    }
+
+    private int allocatePage() {
+        int page = pageCount++;
+        if (page >= usedBytes.length) {
+            int[] grown = new int[usedBytes.length * 2];
+            System.arraycopy(usedBytes, 0, grown, 0, usedBytes.length);
+            usedBytes = grown;
+        }
+        usedBytes[page] = PAGE_HEADER;
+        return page;
+    }
+
+    private Map<Integer, byte[]> touchedPage(Map<Integer, Map<Integer, byte[]>> touched, int page) throws IOException {
+        Map<Integer, byte[]> records = touched.get(page);
+        if (records == null) {
+            records = decodePage(readPage(page));
+            touched.put(page, records);
+        }
+        return records;
+    }
+
+    // Writes a new store holding every record of the seed repository. Written to a temporary file and moved into place.
+    private void createIfMissing() throws IOException {
+        File file = new File(path);
+        if (file.exists()) {
+            return;
+        }
+        List<Map<Integer, byte[]>> pages = new ArrayList<>();
+        Map<Integer, byte[]> current = new LinkedHashMap<>();
+        pages.add(current);
+        List<T> records = new ArrayList<>();
+        seed.loadAll(records::add);
+        for (T record : records) {
+            byte[] bytes = writer.writeValueAsBytes(record);
+            if (bytes.length > MAX_RECORD_SIZE) {
+                throw new IOException(label + " record " + idOf.applyAsInt(record) + " is too large for a page.");
+            }
+            if (sizeOf(current) + RECORD_HEADER + bytes.length > PAGE_SIZE) {
+                current = new LinkedHashMap<>();
+                pages.add(current);
+            }
+            current.put(idOf.applyAsInt(record), bytes);
+        }
+
+        file.getParentFile().mkdirs();
+        File tempFile = new File(path + ".tmp");
+        try (RandomAccessFile out = new RandomAccessFile(tempFile, "rw")) {
+            out.setLength(0);
+            byte[] header = new byte[PAGE_SIZE];
+            ByteBuffer.wrap(header).putInt(MAGIC).putShort(VERSION).putInt(PAGE_SIZE);
+            out.write(header);
+            for (Map<Integer, byte[]> page : pages) {
+                out.write(encodePage(page));
+            }
+            out.getFD().sync();
+        }
+        Files.move(tempFile.toPath(), file.toPath(),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        System.out.println("Created paged store with " + records.size() + " " + label + " at " + path);
+    }
+
+    // ──────────────────────────────────────────────────────
+    //                      Page Format
+    // ──────────────────────────────────────────────────────
+
+    private static Map<Integer, byte[]> decodePage(byte[] image) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(image);
+        int count = buffer.getShort() & 0xFFFF;
+        buffer.getShort();
+        Map<Integer, byte[]> records = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++) {
+            if (buffer.remaining() < RECORD_HEADER) {
+                throw new IOException("Corrupt page: record header runs past the page end.");
+            }
+            int id = buffer.getInt();
+            int length = buffer.getShort() & 0xFFFF;
+            if (length > buffer.remaining()) {
+                throw new IOException("Corrupt page: record runs past the page end.");
+            }
+            byte[] bytes = new byte[length];
+            buffer.get(bytes);
+            records.put(id, bytes);
+        }
+        return records;
+    }
+
+    private static byte[] encodePage(Map<Integer, byte[]> records) {
+        byte[] image = new byte[PAGE_SIZE];
+        ByteBuffer buffer = ByteBuffer.wrap(image);
+        buffer.putShort((short) records.size());
+        buffer.putShort((short) sizeOf(records));
+        for (Map.Entry<Integer, byte[]> entry : records.entrySet()) {
+            buffer.putInt(entry.getKey());
+            buffer.putShort((short) entry.getValue().length);
+            buffer.put(entry.getValue());
+        }
+        return image;
+    }
+
+    private static int sizeOf(Map<Integer, byte[]> records) {
+        int size = PAGE_HEADER;
+        for (byte[] bytes : records.values()) {
+            size += RECORD_HEADER + bytes.length;
+        }
+        return size;
+    }
+}
@@ -0,0 +1,64 @@
+package com.nilsson.camping.data;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Write-behind queue that moves all disk I/O off the JavaFX Application Thread.
+ * Writes run one at a time, in submission order, on a single background thread.
+ * Saves reach it as committed units of work; GroupCommitLog merges repeated saves of the same file into one write.
+ */
+public class PersistenceQueue {
+
+    private static final long FLUSH_TIMEOUT_SECONDS = 30;
+
+    private static final ExecutorService WRITER = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "PersistenceWriter");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private PersistenceQueue() {
+
+    }
+
+    // Queues a write, counted against the current user action.
+    public static void execute(Runnable write) {
+        WriteMetrics.Action action = WriteMetrics.currentAction();
+        action.retain();
+        WRITER.execute(() -> WriteMetrics.runAs(action, () -> runSafely(write)));
+    }
+
+    /**
+     * Blocks until every write submitted before this call has reached the disk.
+     * Called on shutdown so no queued save is lost when the JVM exits.
+     */
+    public static void flush() {
+        // Checkpointing on the way out leaves no commit log behind after a clean shutdown.
+        Future<?> marker = WRITER.submit(GroupCommitLog::checkpoint);
+        try {
+            marker.get(FLUSH_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            System.out.println("Persistence queue flushed.");
+            WriteMetrics.printSummary();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.err.println("ERROR: Interrupted while flushing persistence queue.");
+        } catch (ExecutionException | TimeoutException e) {
+            System.err.println("FATAL ERROR: Could not flush persistence queue: " + e.getMessage());
+        }
+    }
+
+    // A failing write must not kill the writer thread and block every later save.
+    private static void runSafely(Runnable write) {
+        try {
+            write.run();
+        } catch (RuntimeException e) {
+            System.err.println("FATAL ERROR: Background write failed: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+}
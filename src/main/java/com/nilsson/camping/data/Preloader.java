@@ -0,0 +1,61 @@
+package com.nilsson.camping.data;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+
+/**
+ * Reads repositories ahead of time on a background pool.
+ * A registry that later loads the same repository through loadAll gets the preloaded records,
+ * waiting only for whatever part of the read is still running.
+ */
+public class Preloader {
+
+    private static final Map<Repository<?>, CompletableFuture<? extends List<?>>> PRELOADS = new ConcurrentHashMap<>();
+
+    private Preloader() {
+
+    }
+
+    /**
+     * Starts reading every record of a repository on the given pool and logs how long it took.
+     * @return A future holding the records once they are read.
+     */
+    public static <T> CompletableFuture<List<T>> start(String label, Repository<T> repository, Executor pool) {
+        CompletableFuture<List<T>> preload = CompletableFuture.supplyAsync(() -> {
+            long started = System.nanoTime();
+            List<T> records = new ArrayList<>();
+            repository.loadAll(records::add);
+            System.out.println("Preloaded " + records.size() + " " + label + " in " + millisSince(started) + " ms.");
+            return records;
+        }, pool);
+        PRELOADS.put(repository, preload);
+        return preload;
+    }
+
+    /**
+     * Feeds every record of the repository into the sink. Uses the preloaded records if a preload was started,
+     * otherwise reads the repository directly. A preload is handed out once; later calls read the repository again.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> void loadAll(Repository<T> repository, Consumer<T> sink) {
+        CompletableFuture<List<T>> preload = (CompletableFuture<List<T>>) PRELOADS.remove(repository);
+        if (preload != null) {
+            try {
+                preload.join().forEach(sink);
+                return;
+            } catch (RuntimeException e) {
+                System.err.println("ERROR: Preload failed, reading again: " + e.getMessage());
+            }
+        }
+        repository.loadAll(sink);
+    }
+
+    private static long millisSince(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
+}
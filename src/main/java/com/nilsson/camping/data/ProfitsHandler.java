@@ -8,6 +8,7 @@ import com.nilsson.camping.model.DailyProfit;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 public class ProfitsHandler {
@@ -19,10 +20,21 @@ public class ProfitsHandler {
     private static final String PROFITS_PERSISTENCE_PATH = System.getProperty("user.dir") +
             "/src/main/resources/data/json/profits.json";
 
+    // Re-apply any committed group a crash left behind before profits.json is read.
+    static {
+        GroupCommitLog.recover();
+    }
+
     public static List<DailyProfit> loadProfits() {
-        File file = new File(PROFITS_PERSISTENCE_PATH);
+        List<DailyProfit> snapshotProfits = new ArrayList<>();
+        if (BinarySnapshot.tryLoad(PROFITS_PERSISTENCE_PATH, "profit records",
+                snapshot -> BinarySnapshot.readProfits(snapshot, snapshotProfits::add))) {
+            return snapshotProfits;
+        }
+
         List<DailyProfit> profits = new ArrayList<>();
 
+        File file = new File(PROFITS_PERSISTENCE_PATH);
         if (!file.exists() || file.length() == 0) {
             System.out.println("INFO: Profits file not found or empty. Starting with empty list.");
             return profits;
@@ -37,14 +49,16 @@ public class ProfitsHandler {
         return profits;
     }
 
-    public static void saveProfits(List<DailyProfit> profits) {
-        try {
-            File file = new File(PROFITS_PERSISTENCE_PATH);
-            file.getParentFile().mkdirs();
-            MAPPER.writeValue(file, profits);
-            System.out.println("Successfully saved " + profits.size() + " profit records.");
-        } catch (IOException e) {
-            System.out.println("FATAL ERROR: Could not save profits data from JSON: " + e.getMessage());
-        }
+    // Stages a save of all profits into a unit of work, to be written together with the rest of it.
+    public static void saveProfits(Collection<DailyProfit> profits, UnitOfWork unitOfWork) {
+        List<DailyProfit> snapshot = new ArrayList<>(profits);
+        unitOfWork.stageReplace(PROFITS_PERSISTENCE_PATH, () -> MAPPER.writeValueAsBytes(snapshot),
+                () -> savedProfits(snapshot));
+    }
+
+    // Refreshes the binary snapshot once profits.json holds the new state.
+    private static void savedProfits(List<DailyProfit> profits) {
+        BinarySnapshot.tryWrite(PROFITS_PERSISTENCE_PATH, "profits", snapshot -> BinarySnapshot.writeProfits(snapshot, profits));
+        System.out.println("Successfully saved " + profits.size() + " profit records.");
     }
-}
\ No newline at end of file
+}
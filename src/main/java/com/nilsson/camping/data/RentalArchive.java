@@ -0,0 +1,204 @@
+package com.nilsson.camping.data;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.nilsson.camping.model.CompletedRental;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Cold tier of the rental ledger: one gzip-compressed segment per year under data/json/archive, plus index.json
+ * holding the entry count, last charged day and revenue of every segment.
+ * Segments are written once by RentalLedger.archiveOldYears and never changed. They are only opened when a
+ * range read reaches their year, and the last few opened are kept in memory.
+ */
+class RentalArchive {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .registerModule(new JavaTimeModule());
+
+    private static final ObjectReader ENTRY_READER = MAPPER.readerFor(CompletedRental.class);
+
+    private static final String ARCHIVE_DIRECTORY =
+            System.getProperty("user.dir") + "/src/main/resources/data/json/archive/";
+
+    private static final String INDEX_PATH = ARCHIVE_DIRECTORY + "index.json";
+    private static final String SEGMENT_PREFIX = "rentals-";
+    private static final String SEGMENT_SUFFIX = ".jsonl.gz";
+
+    // Opened segments kept in memory, up to this many.
+    private static final int CACHED_SEGMENTS = 2;
+
+    // Loaded on first use.
+    private static TreeMap<Integer, RentalLedger.PartitionInfo> index;
+
+    private static final Map<Integer, List<CompletedRental>> cache =
+            new LinkedHashMap<Integer, List<CompletedRental>>(4, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Integer, List<CompletedRental>> eldest) {
+                    return size() > CACHED_SEGMENTS;
+                }
+            };
+
+    private RentalArchive() {
+
+    }
+
+    // ──────────────────────────────────────────────────────
+    //                      Writing
+    // ──────────────────────────────────────────────────────
+
+    /**
+     * Stages a new segment for the year and the updated archive index into the unit of work.
+     * The segment is compressed on the persistence thread.
+     */
+    static synchronized void stageSegment(int year, List<CompletedRental> entries, UnitOfWork unitOfWork) throws IOException {
+        loadIndex();
+        RentalLedger.PartitionInfo info = new RentalLedger.PartitionInfo();
+        for (CompletedRental entry : entries) {
+            info.add(entry);
+        }
+        index.put(year, info);
+        final byte[] indexBytes = MAPPER.writeValueAsBytes(index);
+
+        final List<CompletedRental> segment = new ArrayList<>(entries);
+        unitOfWork.stageReplace(segmentPath(year), () -> compress(segment), null);
+        unitOfWork.stageReplace(INDEX_PATH, () -> indexBytes, null);
+        cache.put(year, segment);
+    }
+
+    private static byte[] compress(List<CompletedRental> entries) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (Writer out = new OutputStreamWriter(new GZIPOutputStream(bytes), StandardCharsets.UTF_8)) {
+            for (CompletedRental entry : entries) {
+                out.write(MAPPER.writeValueAsString(entry));
+                out.write('\n');
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    // ──────────────────────────────────────────────────────
+    //                      Reading
+    // ──────────────────────────────────────────────────────
+
+    static synchronized boolean hasSegment(int year) {
+        loadIndex();
+        return index.containsKey(year);
+    }
+
+    // Same contract as RentalLedger.forEachInRange. Segments outside the range are not opened.
+    static synchronized void forEachInRange(LocalDate from, LocalDate to, Consumer<CompletedRental> sink) {
+        loadIndex();
+        for (Map.Entry<Integer, RentalLedger.PartitionInfo> year : index.headMap(to.getYear(), true).entrySet()) {
+            if (year.getValue().getLastDay().isBefore(from)) {
+                continue;
+            }
+            for (CompletedRental entry : segment(year.getKey())) {
+                if (!entry.getStartDate().isAfter(to) && !entry.getEndDate().isBefore(from)) {
+                    sink.accept(entry);
+                }
+            }
+        }
+    }
+
+    static synchronized long totalRevenue() {
+        loadIndex();
+        long total = 0;
+        for (RentalLedger.PartitionInfo info : index.values()) {
+            total += info.getRevenueOre();
+        }
+        return total;
+    }
+
+    static synchronized int size() {
+        loadIndex();
+        int entries = 0;
+        for (RentalLedger.PartitionInfo info : index.values()) {
+            entries += info.getEntries();
+        }
+        return entries;
+    }
+
+    // Forgets the index and the segments read so far, so the next read starts from the files.
+    static synchronized void reload() {
+        index = null;
+        cache.clear();
+    }
+
+    private static List<CompletedRental> segment(int year) {
+        List<CompletedRental> segment = cache.get(year);
+        if (segment == null) {
+            segment = readSegment(year);
+            cache.put(year, segment);
+        }
+        return segment;
+    }
+
+    private static List<CompletedRental> readSegment(int year) {
+        long started = System.nanoTime();
+        List<CompletedRental> entries = new ArrayList<>();
+        File file = new File(segmentPath(year));
+        if (!file.exists()) {
+            System.err.println("ERROR: Archive segment for " + year + " is missing at " + file.getPath());
+            return entries;
+        }
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(new FileInputStream(file)), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.trim().isEmpty()) {
+                    entries.add(ENTRY_READER.readValue(line));
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("FATAL ERROR: Could not read archive segment for " + year + ": " + e.getMessage());
+            e.printStackTrace();
+        }
+        System.out.println("Opened archive segment " + year + " with " + entries.size() + " rentals in " +
+                (System.nanoTime() - started) / 1_000_000 + " ms.");
+        return entries;
+    }
+
+    private static String segmentPath(int year) {
+        return ARCHIVE_DIRECTORY + SEGMENT_PREFIX + year + SEGMENT_SUFFIX;
+    }
+
+    private static void loadIndex() {
+        if (index != null) {
+            return;
+        }
+        index = new TreeMap<>();
+        File file = new File(INDEX_PATH);
+        if (!file.exists() || file.length() == 0) {
+            return;
+        }
+        try {
+            Map<Integer, RentalLedger.PartitionInfo> byYear =
+                    MAPPER.readValue(file, new TypeReference<Map<Integer, RentalLedger.PartitionInfo>>() { });
+            index.putAll(byYear);
+        } catch (IOException e) {
+            System.err.println("FATAL ERROR: Could not read rental archive index: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+}
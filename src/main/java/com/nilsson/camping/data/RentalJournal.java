@@ -0,0 +1,225 @@
+package com.nilsson.camping.data;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.nilsson.camping.model.Rental;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Append-only journal of rental mutations.
+ * Every booking or return appends one line to rentals.journal instead of rewriting rentals.json.
+ * On startup the journal is replayed on top of the rentals.json snapshot, and once enough entries
+ * (or enough time) have accumulated the journal is compacted into a new snapshot in the background.
+ * Appends and compactions are staged into units of work and reach the disk through the group commit,
+ * in the order they were made.
+ */
+public class RentalJournal {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .registerModule(new JavaTimeModule());
+
+    private static final String JOURNAL_PATH =
+            System.getProperty("user.dir") + "/src/main/resources/data/json/rentals.journal";
+
+    // Compact after this many appended entries, or when the oldest entry is older than the interval.
+    private static final int COMPACTION_THRESHOLD = 500;
+    private static final long COMPACTION_INTERVAL_MILLIS = 10 * 60 * 1000L;
+
+    private static final String OP_ADD = "ADD";
+    private static final String OP_REMOVE = "REMOVE";
+
+    private static final Object LOCK = new Object();
+    private static int entriesSinceCompaction = 0;
+    private static long firstEntryMillis = 0;
+
+    private RentalJournal() {
+
+    }
+
+    // ──────────────────────────────────────────────────────
+    //                      Appending
+    // ──────────────────────────────────────────────────────
+
+    // Stages a newly created rental into the unit of work.
+    public static void appendAdded(Rental rental, UnitOfWork unitOfWork) {
+        JournalEntry entry = new JournalEntry();
+        entry.setOp(OP_ADD);
+        entry.setRentalId(rental.getRentalId());
+        entry.setRental(rental);
+        append(entry, unitOfWork);
+    }
+
+    // Stages a returned or deleted rental into the unit of work.
+    public static void appendRemoved(int rentalId, UnitOfWork unitOfWork) {
+        JournalEntry entry = new JournalEntry();
+        entry.setOp(OP_REMOVE);
+        entry.setRentalId(rentalId);
+        append(entry, unitOfWork);
+    }
+
+    // Serializes on the caller thread, so later changes to the rental cannot leak into the entry.
+    // The line reaches the journal when the unit of work is group-committed, which also makes it durable.
+    private static void append(JournalEntry entry, UnitOfWork unitOfWork) {
+        final byte[] line;
+        try {
+            line = (MAPPER.writeValueAsString(entry) + "\n").getBytes(StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            System.err.println("FATAL ERROR: Could not serialize rental journal entry: " + e.getMessage());
+            return;
+        }
+
+        synchronized (LOCK) {
+            if (entriesSinceCompaction == 0) {
+                firstEntryMillis = System.currentTimeMillis();
+            }
+            entriesSinceCompaction++;
+        }
+
+        unitOfWork.stageAppend(JOURNAL_PATH, line);
+    }
+
+    // ──────────────────────────────────────────────────────
+    //                      Replay
+    // ──────────────────────────────────────────────────────
+
+    /**
+     * Applies all journaled mutations to the given snapshot list.
+     * Replay is idempotent (adds replace by rentalId, removes ignore missing ids),
+     * so entries that were already folded into the snapshot before a crash can safely be replayed again.
+     * @param rentals The rentals loaded from rentals.json, modified in place.
+     * @return The number of journal entries applied.
+     */
+    public static int replay(List<Rental> rentals) {
+        synchronized (LOCK) {
+            File journal = new File(JOURNAL_PATH);
+            if (journal.length() == 0) {
+                return 0;
+            }
+
+            // Index by id so each entry applies in constant time, keeping snapshot order for existing rentals.
+            Map<Integer, Rental> byId = new LinkedHashMap<>();
+            for (Rental rental : rentals) {
+                byId.put(rental.getRentalId(), rental);
+            }
+
+            int applied = replayFile(journal, byId);
+
+            rentals.clear();
+            rentals.addAll(byId.values());
+
+            entriesSinceCompaction = applied;
+            firstEntryMillis = applied > 0 ? System.currentTimeMillis() : 0;
+            if (applied > 0) {
+                System.out.println("Replayed " + applied + " rental journal entries.");
+            }
+            return applied;
+        }
+    }
+
+    private static int replayFile(File file, Map<Integer, Rental> byId) {
+        if (!file.exists() || file.length() == 0) {
+            return 0;
+        }
+
+        int applied = 0;
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.trim().isEmpty()) {
+                    continue;
+                }
+                JournalEntry entry;
+                try {
+                    entry = MAPPER.readValue(line, JournalEntry.class);
+                } catch (IOException e) {
+                    // A torn last line from a crash mid-append is expected; the entry was never acknowledged.
+                    System.err.println("WARNING: Skipping unreadable rental journal entry in " + file.getName());
+                    continue;
+                }
+                if (OP_ADD.equals(entry.getOp()) && entry.getRental() != null) {
+                    byId.put(entry.getRentalId(), entry.getRental());
+                } else {
+                    byId.remove(entry.getRentalId());
+                }
+                applied++;
+            }
+        } catch (IOException e) {
+            System.err.println("FATAL ERROR: Could not replay rental journal: " + e.getMessage());
+            e.printStackTrace();
+        }
+        return applied;
+    }
+
+    // ──────────────────────────────────────────────────────
+    //                      Compaction
+    // ──────────────────────────────────────────────────────
+
+    // True when the journal has grown past the threshold or its oldest entry is older than the interval.
+    public static boolean isCompactionDue() {
+        synchronized (LOCK) {
+            if (entriesSinceCompaction == 0) {
+                return false;
+            }
+            return entriesSinceCompaction >= COMPACTION_THRESHOLD
+                    || System.currentTimeMillis() - firstEntryMillis >= COMPACTION_INTERVAL_MILLIS;
+        }
+    }
+
+    /**
+     * Folds the journal into a new rentals.json snapshot.
+     * Must be called on the thread that mutates the rentals list, after the unit of work holding the
+     * latest entries was committed, so the copy taken here matches every entry appended so far.
+     * The snapshot and the removal of the journal are committed as one unit of work, so the journal is only
+     * gone once the snapshot holding its entries is, and a replayed commit log never appends into a journal
+     * that was truncated behind its back.
+     * @param rentals The current in-memory rentals.
+     */
+    public static void compact(Collection<Rental> rentals) {
+        synchronized (LOCK) {
+            entriesSinceCompaction = 0;
+            firstEntryMillis = 0;
+        }
+
+        UnitOfWork unitOfWork = UnitOfWork.begin();
+        DataHandler.saveRentals(rentals, unitOfWork);
+        unitOfWork.stageDelete(JOURNAL_PATH);
+        unitOfWork.commit();
+    }
+
+    // ──────────────────────────────────────────────────────
+    //                      Journal Entry
+    // ──────────────────────────────────────────────────────
+
+    // One journaled mutation. Rental is only present for ADD entries.
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class JournalEntry {
+
+        private String op;
+        private int rentalId;
+        private Rental rental;
+
+        public JournalEntry() {
+
+        }
+
+        public String getOp() { return op; }
+        public void setOp(String op) { this.op = op; }
+
+        public int getRentalId() { return rentalId; }
+        public void setRentalId(int rentalId) { this.rentalId = rentalId; }
+
+        public Rental getRental() { return rental; }
+        public void setRental(Rental rental) { this.rental = rental; }
+    }
+}
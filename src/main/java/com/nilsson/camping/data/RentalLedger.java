@@ -0,0 +1,385 @@
+package com.nilsson.camping.data;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.nilsson.camping.model.CompletedRental;
+import com.nilsson.camping.model.Money;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+/**
+ * Append-only ledger of completed rentals, kept as one file per month under data/json/ledger.
+ * Whole years older than the archive horizon are moved into compressed segments, see RentalArchive.
+ * A rental is filed under the month it started in. index.json records for every month how many entries it holds,
+ * the last day any of them was charged for and their total revenue, so range reads open only the months that
+ * can overlap the range and totals need no month file at all.
+ * Entries are never changed. They are staged into the unit of work of the return that completed them.
+ * Month files are only ever appended to or deleted through the commit log, which keeps replaying it idempotent.
+ */
+public class RentalLedger {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .registerModule(new JavaTimeModule());
+
+    private static final ObjectReader ENTRY_READER = MAPPER.readerFor(CompletedRental.class);
+
+    private static final String LEDGER_DIRECTORY =
+            System.getProperty("user.dir") + "/src/main/resources/data/json/ledger/";
+
+    private static final String INDEX_PATH = LEDGER_DIRECTORY + "index.json";
+    private static final String PARTITION_SUFFIX = ".jsonl";
+
+    // Whole years whose last month is more than this many months ago are moved to the archive.
+    private static final int ARCHIVE_HORIZON_MONTHS = Integer.getInteger("camping.archiveHorizonMonths", 24);
+
+    // Months read by range queries are cached, up to this many.
+    private static final int CACHED_PARTITIONS = 12;
+
+    private static final Object LOCK = new Object();
+
+    // Loaded on first use.
+    private static TreeMap<YearMonth, PartitionInfo> index;
+
+    // Months appended to since startup. Always kept in memory, since their newest lines may not have reached the disk yet.
+    private static final Map<YearMonth, List<CompletedRental>> written = new HashMap<>();
+
+    private static final Map<YearMonth, List<CompletedRental>> cache =
+            new LinkedHashMap<YearMonth, List<CompletedRental>>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<YearMonth, List<CompletedRental>> eldest) {
+                    return size() > CACHED_PARTITIONS;
+                }
+            };
+
+    // Re-apply any committed group a crash left behind before the first month is read.
+    static {
+        GroupCommitLog.recover();
+    }
+
+    private RentalLedger() {
+
+    }
+
+    // ──────────────────────────────────────────────────────
+    //                      Appending
+    // ──────────────────────────────────────────────────────
+
+    /**
+     * Adds a completed rental to the ledger. The line and the updated index are staged into the unit of work,
+     * so they reach the disk together with the return that completed the rental.
+     * Reads see the entry at once.
+     */
+    public static void record(CompletedRental entry, UnitOfWork unitOfWork) {
+        final byte[] line;
+        try {
+            line = (MAPPER.writeValueAsString(entry) + "\n").getBytes(StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            System.err.println("FATAL ERROR: Could not serialize ledger entry for rental " + entry.getRentalId() + ": " + e.getMessage());
+            return;
+        }
+
+        YearMonth month = YearMonth.from(entry.getStartDate());
+        final byte[] indexBytes;
+        synchronized (LOCK) {
+            loadIndex();
+            List<CompletedRental> partition = written.get(month);
+            if (partition == null) {
+                partition = cache.remove(month);
+                if (partition == null) {
+                    // A month of an archived year starts over; its old file is deleted by the archiving.
+                    boolean archived = !index.containsKey(month) && RentalArchive.hasSegment(month.getYear());
+                    partition = archived ? new ArrayList<>() : readPartition(month);
+                }
+                written.put(month, partition);
+            }
+            partition.add(entry);
+            index.computeIfAbsent(month, m -> new PartitionInfo()).add(entry);
+
+            // Serialized here, so later entries cannot leak into this unit's copy of the index.
+            try {
+                indexBytes = MAPPER.writeValueAsBytes(indexByName());
+            } catch (IOException e) {
+                System.err.println("FATAL ERROR: Could not serialize rental ledger index: " + e.getMessage());
+                return;
+            }
+        }
+
+        if (Storage.isInMemory()) {
+            return;
+        }
+        unitOfWork.stageAppend(partitionPath(month), line);
+        unitOfWork.stageReplace(INDEX_PATH, () -> indexBytes, null);
+    }
+
+    // ──────────────────────────────────────────────────────
+    //                      Reading
+    // ──────────────────────────────────────────────────────
+
+    /**
+     * Feeds every completed rental charged for at least one day between from and to (inclusive) into the sink.
+     * Months and archived years that started after the range, or whose last charged day is before it, are not opened.
+     */
+    public static void forEachInRange(LocalDate from, LocalDate to, Consumer<CompletedRental> sink) {
+        synchronized (LOCK) {
+            loadIndex();
+            RentalArchive.forEachInRange(from, to, sink);
+            for (Map.Entry<YearMonth, PartitionInfo> month : index.headMap(YearMonth.from(to), true).entrySet()) {
+                if (month.getValue().getLastDay().isBefore(from)) {
+                    continue;
+                }
+                for (CompletedRental entry : partition(month.getKey())) {
+                    if (!entry.getStartDate().isAfter(to) && !entry.getEndDate().isBefore(from)) {
+                        sink.accept(entry);
+                    }
+                }
+            }
+        }
+    }
+
+    // Revenue of every completed rental in öre, taken from the indexes.
+    public static long totalRevenue() {
+        synchronized (LOCK) {
+            loadIndex();
+            long total = RentalArchive.totalRevenue();
+            for (PartitionInfo info : index.values()) {
+                total += info.getRevenueOre();
+            }
+            return total;
+        }
+    }
+
+    // Number of completed rentals, taken from the indexes.
+    public static int size() {
+        synchronized (LOCK) {
+            loadIndex();
+            int entries = RentalArchive.size();
+            for (PartitionInfo info : index.values()) {
+                entries += info.getEntries();
+            }
+            return entries;
+        }
+    }
+
+    // Forgets every month and index read so far, so the next read starts from the files, as after a restart.
+    static void reload() {
+        synchronized (LOCK) {
+            index = null;
+            written.clear();
+            cache.clear();
+            RentalArchive.reload();
+        }
+    }
+
+    private static List<CompletedRental> partition(YearMonth month) {
+        List<CompletedRental> partition = written.get(month);
+        if (partition == null) {
+            partition = cache.get(month);
+        }
+        if (partition == null) {
+            partition = readPartition(month);
+            cache.put(month, partition);
+        }
+        return partition;
+    }
+
+    private static List<CompletedRental> readPartition(YearMonth month) {
+        List<CompletedRental> entries = new ArrayList<>();
+        File file = new File(partitionPath(month));
+        if (!file.exists() || file.length() == 0) {
+            return entries;
+        }
+
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.trim().isEmpty()) {
+                    continue;
+                }
+                try {
+                    entries.add(ENTRY_READER.readValue(line));
+                } catch (IOException e) {
+                    System.err.println("WARNING: Skipping unreadable ledger entry in " + file.getName());
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("FATAL ERROR: Could not read rental ledger for " + month + ": " + e.getMessage());
+            e.printStackTrace();
+        }
+        return entries;
+    }
+
+    private static String partitionPath(YearMonth month) {
+        return LEDGER_DIRECTORY + month + PARTITION_SUFFIX;
+    }
+
+    // ──────────────────────────────────────────────────────
+    //                      Archiving
+    // ──────────────────────────────────────────────────────
+
+    /**
+     * Moves every whole year of months older than the archive horizon (-Dcamping.archiveHorizonMonths, default 24)
+     * into a compressed archive segment. The segments, both indexes and the removal of the month files commit as one
+     * unit of work. Entries that arrive later for an archived year stay in the ledger, so segments never change.
+     * @return The number of completed rentals moved.
+     */
+    public static int archiveOldYears() {
+        if (Storage.isInMemory()) {
+            return 0;
+        }
+        YearMonth cutoff = YearMonth.now().minusMonths(ARCHIVE_HORIZON_MONTHS);
+        UnitOfWork unitOfWork = UnitOfWork.begin();
+        final List<YearMonth> archivedMonths = new ArrayList<>();
+        final byte[] indexBytes;
+        int moved = 0;
+
+        synchronized (LOCK) {
+            loadIndex();
+            Map<Integer, List<CompletedRental>> byYear = new TreeMap<>();
+            for (YearMonth month : index.keySet()) {
+                if (!YearMonth.of(month.getYear(), 12).isBefore(cutoff)) {
+                    break;
+                }
+                if (RentalArchive.hasSegment(month.getYear())) {
+                    continue;
+                }
+                byYear.computeIfAbsent(month.getYear(), year -> new ArrayList<>()).addAll(partition(month));
+                archivedMonths.add(month);
+            }
+            if (archivedMonths.isEmpty()) {
+                return 0;
+            }
+
+            try {
+                for (Map.Entry<Integer, List<CompletedRental>> year : byYear.entrySet()) {
+                    RentalArchive.stageSegment(year.getKey(), year.getValue(), unitOfWork);
+                    moved += year.getValue().size();
+                }
+                for (YearMonth month : archivedMonths) {
+                    index.remove(month);
+                    written.remove(month);
+                    cache.remove(month);
+                }
+                indexBytes = MAPPER.writeValueAsBytes(indexByName());
+            } catch (IOException e) {
+                System.err.println("FATAL ERROR: Could not archive rental ledger: " + e.getMessage());
+                return 0;
+            }
+        }
+
+        unitOfWork.stageReplace(INDEX_PATH, () -> indexBytes, null);
+        // Deleted through the commit log, so a replayed append into an archived month is deleted again after it.
+        for (YearMonth month : archivedMonths) {
+            unitOfWork.stageDelete(partitionPath(month));
+        }
+        unitOfWork.commit();
+        System.out.println("Archived " + moved + " completed rentals from " + archivedMonths.size() + " months.");
+        return moved;
+    }
+
+    // ──────────────────────────────────────────────────────
+    //                      Index
+    // ──────────────────────────────────────────────────────
+
+    // Reads index.json, or rebuilds it from the month files if it is missing.
+    private static void loadIndex() {
+        if (index != null) {
+            return;
+        }
+        index = new TreeMap<>();
+
+        File file = new File(INDEX_PATH);
+        if (file.exists() && file.length() > 0) {
+            try {
+                Map<String, PartitionInfo> byName = MAPPER.readValue(file, new TypeReference<Map<String, PartitionInfo>>() { });
+                for (Map.Entry<String, PartitionInfo> month : byName.entrySet()) {
+                    index.put(YearMonth.parse(month.getKey()), month.getValue());
+                }
+                return;
+            } catch (IOException e) {
+                System.err.println("ERROR: Could not read rental ledger index, rebuilding it: " + e.getMessage());
+                index.clear();
+            }
+        }
+
+        File[] partitions = new File(LEDGER_DIRECTORY).listFiles((dir, name) -> name.endsWith(PARTITION_SUFFIX));
+        if (partitions == null || partitions.length == 0) {
+            return;
+        }
+        for (File partition : partitions) {
+            YearMonth month = monthOf(partition);
+            PartitionInfo info = new PartitionInfo();
+            for (CompletedRental entry : readPartition(month)) {
+                info.add(entry);
+            }
+            index.put(month, info);
+        }
+        System.out.println("INFO: Rebuilt rental ledger index from " + partitions.length + " months.");
+    }
+
+    private static YearMonth monthOf(File partition) {
+        String name = partition.getName();
+        return YearMonth.parse(name.substring(0, name.length() - PARTITION_SUFFIX.length()));
+    }
+
+    private static Map<String, PartitionInfo> indexByName() {
+        Map<String, PartitionInfo> byName = new TreeMap<>();
+        for (Map.Entry<YearMonth, PartitionInfo> month : index.entrySet()) {
+            byName.put(month.getKey().toString(), month.getValue());
+        }
+        return byName;
+    }
+
+    // ──────────────────────────────────────────────────────
+    //                      Partition Info
+    // ──────────────────────────────────────────────────────
+
+    // Summary of one month file, or of one archived year.
+    public static class PartitionInfo {
+
+        private int entries;
+        private LocalDate lastDay = LocalDate.MIN;
+        private long revenueOre;
+
+        public PartitionInfo() {
+
+        }
+
+        void add(CompletedRental entry) {
+            entries++;
+            revenueOre += entry.getRevenueOre();
+            if (entry.getEndDate().isAfter(lastDay)) {
+                lastDay = entry.getEndDate();
+            }
+        }
+
+        public int getEntries() { return entries; }
+        public void setEntries(int entries) { this.entries = entries; }
+
+        public LocalDate getLastDay() { return lastDay; }
+        public void setLastDay(LocalDate lastDay) { this.lastDay = lastDay; }
+
+        public long getRevenueOre() { return revenueOre; }
+        public void setRevenueOre(long revenueOre) { this.revenueOre = revenueOre; }
+
+        // Reads indexes written before revenue was kept in öre.
+        @JsonProperty("revenue")
+        void setRevenue(double revenue) { this.revenueOre = Money.ofKronor(revenue); }
+    }
+}
@@ -0,0 +1,37 @@
+package com.nilsson.camping.data;
+
+import java.util.Collection;
+import java.util.function.Consumer;
+
+/**
+ * Storage for one collection of records, keyed by an int id.
+ * The registries talk to this interface instead of a concrete file format; Storage picks the backend.
+ * @param <T> The record type, e.g. Member or Rental.
+ */
+public interface Repository<T> {
+
+    // Streams every stored record into the sink, one at a time.
+    void loadAll(Consumer<T> sink);
+
+    /**
+     * Looks up a single record by id, or returns null if it is not stored.
+     * Only record-level backends support it; the whole-file JSON backends throw UnsupportedOperationException.
+     */
+    T findById(int id);
+
+    /**
+     * Stages the changes to the collection into a unit of work.
+     * Backends that store whole files rewrite the full collection; record-level backends only touch
+     * the records that changed.
+     * @param all        The complete current collection.
+     * @param changed    Records that were added or modified since the last save.
+     * @param removedIds Ids of records that were removed since the last save.
+     * @param unitOfWork The unit of work the writes are staged into.
+     */
+    void save(Collection<T> all, Collection<T> changed, Collection<Integer> removedIds, UnitOfWork unitOfWork);
+
+    // Folds any incremental log into the main file. Backends without one ignore it.
+    default void checkpoint(Collection<T> all) {
+
+    }
+}
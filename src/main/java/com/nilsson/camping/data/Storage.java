@@ -0,0 +1,92 @@
+package com.nilsson.camping.data;
+
+import com.nilsson.camping.model.DailyProfit;
+import com.nilsson.camping.model.Member;
+import com.nilsson.camping.model.Rental;
+import com.nilsson.camping.model.items.Gear;
+import com.nilsson.camping.model.items.RecreationalVehicle;
+import java.util.function.ToIntFunction;
+
+/**
+ * Picks the storage backend for every collection and hands out one repository per collection.
+ * Select the backend with -Dcamping.storage:
+ *   json   - one JSON file per collection, rewritten on save (default)
+ *   paged  - the embedded PagedStore, created from the JSON files on first use
+ *   memory - seeded from the JSON files, then kept in memory only, never writing to disk; for benchmarks
+ */
+public class Storage {
+
+    private static final String BACKEND = System.getProperty("camping.storage", "json");
+
+    private static final String DATA_DIRECTORY =
+            System.getProperty("user.dir") + "/src/main/resources/data/json/";
+
+    // Re-apply any committed group a crash left behind before any backend reads its files.
+    static {
+        GroupCommitLog.recover();
+    }
+
+    private static final Repository<Member> MEMBERS = create("members", Member.class, Member::getId,
+            new JsonRepository<>(DataHandler::loadMembers, DataHandler::saveMembers));
+
+    private static final Repository<RecreationalVehicle> VEHICLES = create("vehicles", RecreationalVehicle.class,
+            RecreationalVehicle::getItemId,
+            new JsonRepository<>(DataHandler::loadRecreationalVehicles, DataHandler::saveRecreationalVehicle));
+
+    private static final Repository<Gear> GEAR = create("gear", Gear.class, Gear::getItemId,
+            new JsonRepository<>(DataHandler::loadGear, DataHandler::saveGear));
+
+    private static final Repository<Rental> RENTALS = create("rentals", Rental.class, Rental::getRentalId,
+            new JsonRentalRepository());
+
+    private static final Repository<DailyProfit> PROFITS = create("profits", DailyProfit.class, Storage::profitId,
+            new JsonRepository<>(sink -> ProfitsHandler.loadProfits().forEach(sink), ProfitsHandler::saveProfits));
+
+    private Storage() {
+
+    }
+
+    public static Repository<Member> members() {
+        return MEMBERS;
+    }
+
+    public static Repository<RecreationalVehicle> vehicles() {
+        return VEHICLES;
+    }
+
+    public static Repository<Gear> gear() {
+        return GEAR;
+    }
+
+    public static Repository<Rental> rentals() {
+        return RENTALS;
+    }
+
+    public static Repository<DailyProfit> profits() {
+        return PROFITS;
+    }
+
+    // True for the memory backend, where nothing may be written to disk.
+    static boolean isInMemory() {
+        return "memory".equals(BACKEND);
+    }
+
+    // Profits are keyed by their date, one record per day.
+    public static int profitId(DailyProfit profit) {
+        return (int) profit.getDate().toEpochDay();
+    }
+
+    private static <T> Repository<T> create(String name, Class<T> type, ToIntFunction<T> idOf, Repository<T> json) {
+        switch (BACKEND) {
+            case "json":
+                return json;
+            case "paged":
+                return new PagedStore<>(DATA_DIRECTORY + name + ".pages", name, type, idOf, json);
+            case "memory":
+                return new InMemoryRepository<>(json, idOf);
+            default:
+                System.err.println("WARNING: Unknown storage backend '" + BACKEND + "', using json.");
+                return json;
+        }
+    }
+}
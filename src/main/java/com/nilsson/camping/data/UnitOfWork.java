@@ -0,0 +1,126 @@
+package com.nilsson.camping.data;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Collects the file changes of one user action so they reach the disk together.
+ * The service layer begins a unit of work, lets each registry stage its changes into it and then commits it.
+ * Committed units are written as one group to the commit log, with one fsync for the whole group,
+ * and only then applied to the data files. See GroupCommitLog.
+ */
+public class UnitOfWork {
+
+    private final List<StagedWrite> writes = new ArrayList<>();
+    private final List<Runnable> afterCommit = new ArrayList<>();
+    private final WriteMetrics.Action action = WriteMetrics.currentAction();
+    private boolean committed = false;
+
+    private UnitOfWork() {
+
+    }
+
+    public static UnitOfWork begin() {
+        return new UnitOfWork();
+    }
+
+    // Stages a whole-file replacement. The payload is serialized on the persistence thread.
+    void stageReplace(String path, Payload payload, Runnable afterApply) {
+        stage(new StagedWrite(path, StagedWrite.REPLACE, 0, payload, afterApply, action));
+    }
+
+    /**
+     * Stages bytes appended to the end of a file, such as a journal line.
+     * The commit log records where the bytes land, so replaying it after a crash never appends them twice.
+     * That only holds while every change to the file is staged: truncate or delete it with stageDelete.
+     */
+    void stageAppend(String path, byte[] bytes) {
+        stage(new StagedWrite(path, StagedWrite.APPEND, 0, () -> bytes, null, action));
+    }
+
+    // Stages the removal of a file, such as a journal folded into its snapshot.
+    void stageDelete(String path) {
+        stage(new StagedWrite(path, StagedWrite.DELETE, 0, () -> new byte[0], null, action));
+    }
+
+    // Stages bytes written over a region of an existing file, such as one page of a paged store.
+    void stageWriteAt(String path, long offset, byte[] bytes, Runnable afterApply) {
+        stage(new StagedWrite(path, StagedWrite.WRITE_AT, offset, () -> bytes, afterApply, action));
+    }
+
+    // Runs on the caller thread right after the unit has been committed, e.g. to schedule a compaction.
+    public void afterCommit(Runnable callback) {
+        afterCommit.add(callback);
+    }
+
+    public boolean isEmpty() {
+        return writes.isEmpty();
+    }
+
+    /**
+     * Hands every staged write to the commit log as one unit. Either all of them are recovered after a crash, or none.
+     * A unit of work can only be committed once.
+     */
+    public void commit() {
+        if (committed) {
+            throw new IllegalStateException("Unit of work has already been committed.");
+        }
+        committed = true;
+        if (!writes.isEmpty()) {
+            GroupCommitLog.enqueue(this);
+        }
+        for (Runnable callback : afterCommit) {
+            callback.run();
+        }
+    }
+
+    private void stage(StagedWrite write) {
+        if (committed) {
+            throw new IllegalStateException("Cannot stage changes into a committed unit of work.");
+        }
+        writes.add(write);
+    }
+
+    List<StagedWrite> getWrites() {
+        return writes;
+    }
+
+    WriteMetrics.Action getAction() {
+        return action;
+    }
+
+    // Produces the bytes of a staged write.
+    interface Payload {
+        byte[] serialize() throws IOException;
+    }
+
+    // ──────────────────────────────────────────────────────
+    //                      Staged Write
+    // ──────────────────────────────────────────────────────
+
+    // One file change inside a unit of work.
+    static class StagedWrite {
+
+        static final byte REPLACE = 1;
+        static final byte APPEND = 2;
+        static final byte WRITE_AT = 3;
+        static final byte DELETE = 4;
+
+        final String path;
+        final byte mode;
+        final long offset;
+        final Payload payload;
+        final Runnable afterApply;
+        final WriteMetrics.Action action;
+
+        StagedWrite(String path, byte mode, long offset, Payload payload, Runnable afterApply, WriteMetrics.Action action) {
+            this.path = path;
+            this.mode = mode;
+            this.offset = offset;
+            this.payload = payload;
+            this.afterApply = afterApply;
+            this.action = action;
+        }
+    }
+}
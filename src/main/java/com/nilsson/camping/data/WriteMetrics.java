@@ -0,0 +1,128 @@
+package com.nilsson.camping.data;
+
+import java.io.File;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts how many bytes each user action wrote to disk.
+ * Services call beginAction before changing data; every write queued afterwards is attributed to that action,
+ * and once the last of its writes has finished the total is logged.
+ */
+public class WriteMetrics {
+
+    private static final Object LOCK = new Object();
+
+    // Running totals per action name, for the summary printed on shutdown.
+    private static final Map<String, long[]> TOTALS = new TreeMap<>();
+
+    // Writes queued while no user action is running, such as compaction at startup.
+    private static volatile Action currentAction = new Action("Background");
+
+    // The action whose write is running right now. Only touched on the persistence thread.
+    private static Action runningAction;
+
+    private WriteMetrics() {
+
+    }
+
+    // Starts a new user action. Called on the JavaFX Application Thread before the data is changed.
+    public static void beginAction(String name) {
+        currentAction = new Action(name);
+    }
+
+    // The action that writes queued now belong to.
+    static Action currentAction() {
+        return currentAction;
+    }
+
+    // Adds the size of a file that was just written to the action whose write is running.
+    static void recordFile(File file) {
+        if (file.exists()) {
+            recordBytes(file.length());
+        }
+    }
+
+    static void recordBytes(long bytes) {
+        Action action = runningAction;
+        if (action != null) {
+            action.bytes.addAndGet(bytes);
+        }
+    }
+
+    // Runs part of a shared write, such as one file of a group commit, on behalf of a single action.
+    static void countAgainst(Action action, Runnable work) {
+        Action previous = runningAction;
+        runningAction = action;
+        try {
+            work.run();
+        } finally {
+            runningAction = previous;
+        }
+    }
+
+    // Runs a queued write on behalf of the action that queued it.
+    static void runAs(Action action, Runnable write) {
+        runningAction = action;
+        try {
+            write.run();
+        } finally {
+            runningAction = null;
+            action.release();
+        }
+    }
+
+    // Prints total bytes written per action since startup.
+    public static void printSummary() {
+        synchronized (LOCK) {
+            if (TOTALS.isEmpty()) {
+                return;
+            }
+            System.out.println("Bytes written per action:");
+            for (Map.Entry<String, long[]> entry : TOTALS.entrySet()) {
+                long[] total = entry.getValue();
+                System.out.println("  " + entry.getKey() + ": " + total[1] + " bytes over " + total[0] + " action(s)");
+            }
+        }
+    }
+
+    // ──────────────────────────────────────────────────────
+    //                      Action
+    // ──────────────────────────────────────────────────────
+
+    // One user action and the writes it queued. The count of outstanding writes decides when it is finished.
+    static class Action {
+
+        private final String name;
+        private final AtomicLong bytes = new AtomicLong();
+        private final AtomicInteger pendingWrites = new AtomicInteger();
+
+        private Action(String name) {
+            this.name = name;
+        }
+
+        // Called when a write is queued for this action.
+        void retain() {
+            pendingWrites.incrementAndGet();
+        }
+
+        void addBytes(long written) {
+            bytes.addAndGet(written);
+        }
+
+        // Called when a queued write has run, or was merged into a later one and will never run.
+        void release() {
+            if (pendingWrites.decrementAndGet() == 0) {
+                long written = bytes.getAndSet(0);
+                System.out.println("Action '" + name + "' wrote " + written + " bytes.");
+                synchronized (LOCK) {
+                    long[] total = TOTALS.computeIfAbsent(name, key -> new long[2]);
+                    total[0]++;
+                    total[1] += written;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.nilsson.camping.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.time.LocalDate;
+
+// A returned rental as it was when it was completed. Ledger entries are never changed afterwards.
+public class CompletedRental {
+
+    private int rentalId;
+    private int memberId;
+    private int itemId;
+    private LocalDate startDate;
+    private int rentalDays;
+    private long dailyPriceOre;
+    private long revenueOre;
+    private LocalDate returnDate;
+
+    public CompletedRental() { }
+
+    public CompletedRental(Rental rental, long dailyPriceOre, long revenueOre, LocalDate returnDate) {
+        this.rentalId = rental.getRentalId();
+        this.memberId = rental.getMemberId();
+        this.itemId = rental.getItemId();
+        this.startDate = rental.getStartDate();
+        this.rentalDays = rental.getRentalDays();
+        this.dailyPriceOre = dailyPriceOre;
+        this.revenueOre = revenueOre;
+        this.returnDate = returnDate;
+    }
+
+    // Last day the rental was charged for.
+    @JsonIgnore
+    public LocalDate getEndDate() {
+        return startDate.plusDays(rentalDays - 1);
+    }
+
+    public int getRentalId() { return rentalId; }
+    public void setRentalId(int rentalId) { this.rentalId = rentalId; }
+
+    public int getMemberId() { return memberId; }
+    public void setMemberId(int memberId) { this.memberId = memberId; }
+
+    public int getItemId() { return itemId; }
+    public void setItemId(int itemId) { this.itemId = itemId; }
+
+    public LocalDate getStartDate() { return startDate; }
+    public void setStartDate(LocalDate startDate) { this.startDate = startDate; }
+
+    public int getRentalDays() { return rentalDays; }
+    public void setRentalDays(int rentalDays) { this.rentalDays = rentalDays; }
+
+    public long getDailyPriceOre() { return dailyPriceOre; }
+    public void setDailyPriceOre(long dailyPriceOre) { this.dailyPriceOre = dailyPriceOre; }
+
+    public long getRevenueOre() { return revenueOre; }
+    public void setRevenueOre(long revenueOre) { this.revenueOre = revenueOre; }
+
+    // Read ledger entries written before amounts were kept in öre.
+    @JsonProperty("dailyPrice")
+    void setDailyPrice(double dailyPrice) { this.dailyPriceOre = Money.ofKronor(dailyPrice); }
+
+    @JsonProperty("revenue")
+    void setRevenue(double revenue) { this.revenueOre = Money.ofKronor(revenue); }
+
+    public LocalDate getReturnDate() { return returnDate; }
+    public void setReturnDate(LocalDate returnDate) { this.returnDate = returnDate; }
+}
@@ -1,19 +1,21 @@
 package com.nilsson.camping.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import java.time.LocalDate;
 
 public class DailyProfit {
 
     private LocalDate date;
-    private double income;
+    private long incomeOre;
 
     public DailyProfit() {
 
     }
 
-    public DailyProfit(LocalDate date, double income) {
+    public DailyProfit(LocalDate date, long incomeOre) {
         this.date = date;
-        this.income = income;
+        this.incomeOre = incomeOre;
     }
 
     public LocalDate getDate() {
@@ -24,11 +26,23 @@ public class DailyProfit {
         this.date = date;
     }
 
+    public long getIncomeOre() {
+        return incomeOre;
+    }
+
+    public void setIncomeOre(long incomeOre) {
+        this.incomeOre = incomeOre;
+    }
+
+    // Income in kronor, for charts and tables.
+    @JsonIgnore
     public double getIncome() {
-        return income;
+        return Money.toKronor(incomeOre);
     }
 
+    // Reads profits.json files written before income was kept in öre.
+    @JsonProperty("income")
     public void setIncome(double income) {
-        this.income = income;
+        this.incomeOre = Money.ofKronor(income);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,62 @@
+package com.nilsson.camping.model;
+
+import java.text.DecimalFormatSymbols;
+
+/**
+ * Amounts of money as a long number of öre (1/100 SEK). Prices, revenue and profits are kept and summed in öre,
+ * so sums are exact and need no boxing; kronor as a double only appear at the edges, for input and JSON files.
+ */
+public final class Money {
+
+    public static final long ORE_PER_KRONA = 100;
+
+    private Money() {
+
+    }
+
+    // Rounds an amount in kronor to the nearest öre.
+    public static long ofKronor(double kronor) {
+        return Math.round(kronor * ORE_PER_KRONA);
+    }
+
+    public static double toKronor(long ore) {
+        return (double) ore / ORE_PER_KRONA;
+    }
+
+    // An amount times a factor, such as a discount, rounded to the nearest öre.
+    public static long times(long ore, double factor) {
+        return Math.round(ore * factor);
+    }
+
+    // The amount with two decimals, like "%.2f" but without going through String.format.
+    public static String format(long ore) {
+        return format(ore, false);
+    }
+
+    // The amount with two decimals and thousands separators, like "%,.2f".
+    public static String formatGrouped(long ore) {
+        return format(ore, true);
+    }
+
+    private static String format(long ore, boolean grouped) {
+        DecimalFormatSymbols symbols = DecimalFormatSymbols.getInstance();
+        // Dividing before taking the absolute value keeps Long.MIN_VALUE in range.
+        long kronor = Math.abs(ore / ORE_PER_KRONA);
+        int fraction = (int) Math.abs(ore % ORE_PER_KRONA);
+
+        String digits = Long.toString(kronor);
+        StringBuilder text = new StringBuilder(digits.length() + 8);
+        if (ore < 0) {
+            text.append(symbols.getMinusSign());
+        }
+        for (int i = 0; i < digits.length(); i++) {
+            if (grouped && i > 0 && (digits.length() - i) % 3 == 0) {
+                text.append(symbols.getGroupingSeparator());
+            }
+            text.append(digits.charAt(i));
+        }
+        text.append(symbols.getDecimalSeparator());
+        text.append((char) ('0' + fraction / 10)).append((char) ('0' + fraction % 10));
+        return text.toString();
+    }
+}
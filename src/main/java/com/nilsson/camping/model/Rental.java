@@ -10,6 +10,8 @@ public class Rental {
     private int itemId;
     private LocalDate startDate;
     private int rentalDays;
+    // The item's daily price in öre when it was booked. 0 for rentals booked before it was recorded.
+    private long dailyPriceOre;
 
     public Rental() { }
 
@@ -26,6 +28,7 @@ public class Rental {
         this.itemId = item.getItemId();
         this.startDate = startDate;
         this.rentalDays = rentalDays;
+        this.dailyPriceOre = item.getDailyPriceOre();
     }
 
     public int getRentalId() { return rentalId; }
@@ -42,4 +45,7 @@ public class Rental {
 
     public int getRentalDays() { return rentalDays; }
     public void setRentalDays(int rentalDays) { this.rentalDays = rentalDays; }
+
+    public long getDailyPriceOre() { return dailyPriceOre; }
+    public void setDailyPriceOre(long dailyPriceOre) { this.dailyPriceOre = dailyPriceOre; }
 }
\ No newline at end of file
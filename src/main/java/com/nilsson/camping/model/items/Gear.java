@@ -1,7 +1,9 @@
 package com.nilsson.camping.model.items;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.nilsson.camping.app.LanguageManager;
+import com.nilsson.camping.model.Money;
 
 @JsonIgnoreProperties(ignoreUnknown = true)
 public class Gear extends Item implements IRentable {
@@ -24,6 +26,11 @@ public class Gear extends Item implements IRentable {
 
     public String getCapacity() { return capacity; }
     public void setCapacity(String capacity) { this.capacity = capacity; }
+
+    // The capacity as a number (people, or litres for backpacks), or -1 if the capacity is not given as one.
+    @JsonIgnore
+    public int getCapacityCount() { return parseLeadingNumber(capacity); }
+
     public String getModel() { return model; }
     public void setModel(String model) { this.model = model; }
     public String getType() { return type; }
@@ -36,10 +43,10 @@ public class Gear extends Item implements IRentable {
         String status = this.isRented() ? " " +
                 LanguageManager.getInstance().getString("status.rented") : " " +
                 LanguageManager.getInstance().getString("status.available");
-        return String.format("%s (%s) - Daily Price: %.2f SEK%s",
+        return String.format("%s (%s) - Daily Price: %s SEK%s",
                 this.getModel(),
                 this.getType(),
-                this.getDailyPrice(),
+                Money.format(this.getDailyPriceOre()),
                 status);
     }
 
@@ -3,6 +3,7 @@ package com.nilsson.camping.model.items;
 public interface IRentable {
 
     double getDailyPrice();
+    long getDailyPriceOre();
 
     boolean isRented();
     void setRented(boolean rented);
@@ -1,7 +1,9 @@
 package com.nilsson.camping.model.items;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonSubTypes;
 import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.nilsson.camping.model.Money;
 
 @JsonTypeInfo(
         use = JsonTypeInfo.Id.NAME,
@@ -27,7 +29,8 @@ import com.fasterxml.jackson.annotation.JsonTypeInfo;
 public abstract class Item {
 
     private int itemId;
-    private double dailyPrice;
+    // Kept in öre; the JSON files and the dialogs use kronor.
+    private long dailyPriceOre;
 
     public Item() {
 
@@ -35,7 +38,7 @@ public abstract class Item {
 
     public Item(int itemId, double dailyPrice) {
         this.itemId = itemId;
-        this.dailyPrice = dailyPrice;
+        this.dailyPriceOre = Money.ofKronor(dailyPrice);
     }
 
     public int getItemId() {
@@ -47,10 +50,28 @@ public abstract class Item {
     }
 
     public double getDailyPrice() {
-        return dailyPrice;
+        return Money.toKronor(dailyPriceOre);
     }
 
     public void setDailyPrice(double dailyPrice) {
-        this.dailyPrice = dailyPrice;
+        this.dailyPriceOre = Money.ofKronor(dailyPrice);
+    }
+
+    @JsonIgnore
+    public long getDailyPriceOre() {
+        return dailyPriceOre;
+    }
+
+    // The leading whole number of a free-text attribute, such as 4 for "4 people" or 2019 for "2019", or -1 if there is none.
+    static int parseLeadingNumber(String value) {
+        if (value == null) {
+            return -1;
+        }
+        String trimmed = value.trim();
+        int end = 0;
+        while (end < trimmed.length() && end < 9 && Character.isDigit(trimmed.charAt(end))) {
+            end++;
+        }
+        return end == 0 ? -1 : Integer.parseInt(trimmed.substring(0, end));
     }
 }
\ No newline at end of file
@@ -1,7 +1,9 @@
 package com.nilsson.camping.model.items;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.nilsson.camping.app.LanguageManager;
+import com.nilsson.camping.model.Money;
 
 @JsonIgnoreProperties(ignoreUnknown = true)
 public class RecreationalVehicle extends Vehicle implements IRentable {
@@ -20,6 +22,11 @@ public class RecreationalVehicle extends Vehicle implements IRentable {
 
     public String getCapacity() { return capacity; }
     public void setCapacity(String capacity) { this.capacity = capacity; }
+
+    // The number of people the vehicle sleeps, e.g. 4 for "4 people", or -1 if the capacity is not given as a number.
+    @JsonIgnore
+    public int getCapacityCount() { return parseLeadingNumber(capacity); }
+
     public String getType() { return type; }
     public void setType(String type) { this.type = type; }
     public boolean isRented() { return rented; }
@@ -30,12 +37,12 @@ public class RecreationalVehicle extends Vehicle implements IRentable {
         String status = this.isRented() ? " " +
                 LanguageManager.getInstance().getString("status.rented") : " " +
                 LanguageManager.getInstance().getString("status.available");
-        return String.format("%s %s (%s, %s) - Daily Price: %.2f SEK%s",
+        return String.format("%s %s (%s, %s) - Daily Price: %s SEK%s",
                 this.getMake(),
                 this.getModel(),
                 this.getType(),
                 this.getYear(),
-                this.getDailyPrice(),
+                Money.format(this.getDailyPriceOre()),
                 status);
     }
 
@@ -1,5 +1,7 @@
 package com.nilsson.camping.model.items;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 public class Vehicle extends Item {
 
     private String make;
@@ -40,4 +42,10 @@ public class Vehicle extends Item {
     public void setYear(String year) {
         this.year = year;
     }
+
+    // The model year as a number, or -1 if the year field does not start with one.
+    @JsonIgnore
+    public int getModelYear() {
+        return parseLeadingNumber(year);
+    }
 }
\ No newline at end of file
@@ -1,7 +1,19 @@
 package com.nilsson.camping.model.policies;
 
+// Stateless, so one instance per membership tier and item type is shared by every rental. Amounts are in öre.
 public interface IPricePolicy {
 
-    double calculatePrice(int days);
+    long calculatePrice(long dailyRate, int days);
 
-}
\ No newline at end of file
+    // Price of a rental starting on the given day (LocalDate.toEpochDay). Policies without calendar rules ignore the start.
+    default long calculatePrice(long dailyRate, int startEpochDay, int days) {
+        return calculatePrice(dailyRate, days);
+    }
+
+    // Prices many rentals at once: out[i] is the price of days[i] days from startEpochDays[i] at dailyRates[i].
+    default void calculatePrices(long[] dailyRates, int[] days, int[] startEpochDays, long[] out) {
+        for (int i = 0; i < days.length; i++) {
+            out[i] = calculatePrice(dailyRates[i], startEpochDays[i], days[i]);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.nilsson.camping.model.policies;
+
+import com.nilsson.camping.model.Money;
+
+// The standard price times the tier's multiplier, e.g. 0.8 for a 20% discount, rounded to the nearest öre.
+public class MultiplierPricePolicy implements IPricePolicy {
+
+    private final double multiplier;
+
+    public MultiplierPricePolicy(double multiplier) {
+        this.multiplier = multiplier;
+    }
+
+    public double getMultiplier() {
+        return multiplier;
+    }
+
+    @Override
+    public long calculatePrice(long dailyRate, int days) {
+        return Money.times(days * dailyRate, multiplier);
+    }
+}
@@ -0,0 +1,125 @@
+package com.nilsson.camping.model.policies;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.Month;
+import java.time.MonthDay;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The season and weekend multiplier of every day, compiled into running sums, so the sum of the multipliers of
+ * any run of days is two lookups. The Gregorian calendar repeats every 400 years, weekdays included (146097 days
+ * is a whole number of weeks), so one 400-year table covers every date.
+ * The table takes about 1.2 MB, so item types with the same seasons and weekend multiplier share one calendar.
+ */
+class PricingCalendar {
+
+    private static final int CYCLE_DAYS = 146097;
+    private static final long CYCLE_START = LocalDate.of(2000, 1, 1).toEpochDay();
+
+    // Compiled calendars by their day multipliers, so equal rules are compiled once.
+    private static final Map<CalendarKey, PricingCalendar> COMPILED = new ConcurrentHashMap<>();
+
+    // runningSums[k] is the sum of the multipliers of the first k days of the cycle.
+    private final double[] runningSums = new double[CYCLE_DAYS + 1];
+    private final double cycleSum;
+
+    private PricingCalendar(double[] seasonByMonthDay, double weekendMultiplier) {
+        LocalDate date = LocalDate.ofEpochDay(CYCLE_START);
+        for (int day = 0; day < CYCLE_DAYS; day++) {
+            DayOfWeek weekday = date.getDayOfWeek();
+            double weekend = weekday == DayOfWeek.SATURDAY || weekday == DayOfWeek.SUNDAY ? weekendMultiplier : 1.0;
+            runningSums[day + 1] = runningSums[day] + seasonByMonthDay[monthDayKey(date.getMonthValue(), date.getDayOfMonth())] * weekend;
+            date = date.plusDays(1);
+        }
+        cycleSum = runningSums[CYCLE_DAYS];
+    }
+
+    /**
+     * Compiles seasons and a weekend multiplier. Where seasons overlap, the first one listed applies.
+     * Rules that give every day the same multipliers as rules compiled before share their calendar.
+     * @return The calendar, or null if every day has the multiplier 1.
+     */
+    static PricingCalendar compile(List<PricingRuleSet.Season> seasons, double weekendMultiplier) {
+        double[] seasonByMonthDay = new double[monthDayKey(12, 31) + 1];
+        Arrays.fill(seasonByMonthDay, 1.0);
+        MonthDay[] froms = new MonthDay[seasons.size()];
+        MonthDay[] tos = new MonthDay[seasons.size()];
+        for (int i = 0; i < seasons.size(); i++) {
+            froms[i] = MonthDay.parse("--" + seasons.get(i).getFrom());
+            tos[i] = MonthDay.parse("--" + seasons.get(i).getTo());
+        }
+        boolean flat = weekendMultiplier == 1.0;
+        for (Month month : Month.values()) {
+            for (int day = 1; day <= month.maxLength(); day++) {
+                MonthDay monthDay = MonthDay.of(month, day);
+                for (int i = 0; i < seasons.size(); i++) {
+                    if (contains(froms[i], tos[i], monthDay)) {
+                        seasonByMonthDay[monthDayKey(month.getValue(), day)] = seasons.get(i).getMultiplier();
+                        flat &= seasons.get(i).getMultiplier() == 1.0;
+                        break;
+                    }
+                }
+            }
+        }
+        if (flat) {
+            return null;
+        }
+        return COMPILED.computeIfAbsent(new CalendarKey(seasonByMonthDay, weekendMultiplier),
+                key -> new PricingCalendar(key.seasonByMonthDay, key.weekendMultiplier));
+    }
+
+    // Sum of the multipliers of the days from fromEpochDay up to, not including, toEpochDay.
+    double sum(long fromEpochDay, long toEpochDay) {
+        return runningSum(toEpochDay) - runningSum(fromEpochDay);
+    }
+
+    // Sum of the multipliers from 2000-01-01 up to, not including, the given day; negative for earlier days.
+    private double runningSum(long epochDay) {
+        long offset = epochDay - CYCLE_START;
+        long cycles = Math.floorDiv(offset, CYCLE_DAYS);
+        return cycles * cycleSum + runningSums[(int) (offset - cycles * CYCLE_DAYS)];
+    }
+
+    private static boolean contains(MonthDay from, MonthDay to, MonthDay monthDay) {
+        if (!from.isAfter(to)) {
+            return !monthDay.isBefore(from) && !monthDay.isAfter(to);
+        }
+        // Wraps the new year, e.g. 12-20 to 01-06.
+        return !monthDay.isBefore(from) || !monthDay.isAfter(to);
+    }
+
+    private static int monthDayKey(int month, int day) {
+        return month * 32 + day;
+    }
+
+    // The season multiplier of every day of the year and the weekend multiplier, which together decide every day.
+    private static final class CalendarKey {
+
+        private final double[] seasonByMonthDay;
+        private final double weekendMultiplier;
+
+        CalendarKey(double[] seasonByMonthDay, double weekendMultiplier) {
+            this.seasonByMonthDay = seasonByMonthDay;
+            this.weekendMultiplier = weekendMultiplier;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof CalendarKey)) {
+                return false;
+            }
+            CalendarKey other = (CalendarKey) o;
+            return Double.compare(weekendMultiplier, other.weekendMultiplier) == 0
+                    && Arrays.equals(seasonByMonthDay, other.seasonByMonthDay);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * Arrays.hashCode(seasonByMonthDay) + Double.hashCode(weekendMultiplier);
+        }
+    }
+}
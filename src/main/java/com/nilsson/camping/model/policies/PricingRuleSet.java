@@ -0,0 +1,93 @@
+package com.nilsson.camping.model.policies;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Declarative pricing rules, as read from pricing-rules.json:
+ *   seasons           - yearly date ranges ("MM-dd" to "MM-dd", inclusive, may wrap the new year) with a day multiplier
+ *   longStay          - from which day of a rental (1 = first day) a multiplier applies, e.g. day 8 at 0.7
+ *   weekendMultiplier - multiplier for Saturdays and Sundays
+ *   itemTypes         - rule sets per item type; any rule they leave out is taken from the outer set
+ * A day's price is the daily rate times its season, weekend and long-stay multipliers, then times the tier's multiplier.
+ * RulePricePolicy compiles the rules; they are never evaluated in this form.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class PricingRuleSet {
+
+    private List<Season> seasons;
+    private List<LongStay> longStay;
+    private Double weekendMultiplier;
+    private Map<String, PricingRuleSet> itemTypes = new LinkedHashMap<>();
+
+    public PricingRuleSet() { }
+
+    // The rules of an item type: the type's own rules, the rest from this set. Type names ignore case.
+    public PricingRuleSet forItemType(String itemType) {
+        PricingRuleSet override = null;
+        for (Map.Entry<String, PricingRuleSet> entry : itemTypes.entrySet()) {
+            if (entry.getKey().equalsIgnoreCase(itemType)) {
+                override = entry.getValue();
+            }
+        }
+        PricingRuleSet effective = new PricingRuleSet();
+        effective.seasons = override != null && override.seasons != null ? override.seasons : seasons;
+        effective.longStay = override != null && override.longStay != null ? override.longStay : longStay;
+        effective.weekendMultiplier = override != null && override.weekendMultiplier != null
+                ? override.weekendMultiplier : weekendMultiplier;
+        return effective;
+    }
+
+    public List<Season> getSeasons() { return seasons != null ? seasons : new ArrayList<>(); }
+    public void setSeasons(List<Season> seasons) { this.seasons = seasons; }
+
+    public List<LongStay> getLongStay() { return longStay != null ? longStay : new ArrayList<>(); }
+    public void setLongStay(List<LongStay> longStay) { this.longStay = longStay; }
+
+    public double getWeekendMultiplier() { return weekendMultiplier != null ? weekendMultiplier : 1.0; }
+    public void setWeekendMultiplier(Double weekendMultiplier) { this.weekendMultiplier = weekendMultiplier; }
+
+    public Map<String, PricingRuleSet> getItemTypes() { return itemTypes; }
+    public void setItemTypes(Map<String, PricingRuleSet> itemTypes) {
+        this.itemTypes = itemTypes != null ? itemTypes : new LinkedHashMap<>();
+    }
+
+    // A yearly date range, e.g. from "06-15" to "08-31".
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class Season {
+
+        private String from;
+        private String to;
+        private double multiplier = 1.0;
+
+        public Season() { }
+
+        public String getFrom() { return from; }
+        public void setFrom(String from) { this.from = from; }
+
+        public String getTo() { return to; }
+        public void setTo(String to) { this.to = to; }
+
+        public double getMultiplier() { return multiplier; }
+        public void setMultiplier(double multiplier) { this.multiplier = multiplier; }
+    }
+
+    // Days fromDay and later of a rental, up to the next long-stay rule, cost the multiplier.
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class LongStay {
+
+        private int fromDay;
+        private double multiplier = 1.0;
+
+        public LongStay() { }
+
+        public int getFromDay() { return fromDay; }
+        public void setFromDay(int fromDay) { this.fromDay = fromDay; }
+
+        public double getMultiplier() { return multiplier; }
+        public void setMultiplier(double multiplier) { this.multiplier = multiplier; }
+    }
+}
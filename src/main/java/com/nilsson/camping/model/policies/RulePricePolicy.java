@@ -0,0 +1,113 @@
+package com.nilsson.camping.model.policies;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * A PricingRuleSet compiled for one membership tier and item type.
+ * Long-stay rules become a few runs of rental days, each with one multiplier; seasons and weekends become a
+ * PricingCalendar of running sums. A price is then one multiply-add per run, whatever the length of the rental,
+ * rounded to the nearest öre once at the end.
+ */
+public class RulePricePolicy implements IPricePolicy {
+
+    private final double tierMultiplier;
+    // Run i covers the rental's days runStarts[i] to runStarts[i + 1] - 1, counted from 0.
+    private final int[] runStarts;
+    private final double[] runMultipliers;
+    // Null when every calendar day costs the same.
+    private final PricingCalendar calendar;
+
+    private RulePricePolicy(double tierMultiplier, int[] runStarts, double[] runMultipliers, PricingCalendar calendar) {
+        this.tierMultiplier = tierMultiplier;
+        this.runStarts = runStarts;
+        this.runMultipliers = runMultipliers;
+        this.calendar = calendar;
+    }
+
+    // Compiles the rules with a tier multiplier of 1. The seasons are compiled once here and shared by withTierMultiplier.
+    public static RulePricePolicy compile(PricingRuleSet rules) {
+        List<PricingRuleSet.LongStay> longStay = new ArrayList<>(rules.getLongStay());
+        longStay.sort(Comparator.comparingInt(PricingRuleSet.LongStay::getFromDay));
+
+        List<Integer> starts = new ArrayList<>();
+        List<Double> multipliers = new ArrayList<>();
+        starts.add(0);
+        multipliers.add(1.0);
+        for (PricingRuleSet.LongStay rule : longStay) {
+            int start = Math.max(0, rule.getFromDay() - 1);
+            if (start == starts.get(starts.size() - 1)) {
+                multipliers.set(multipliers.size() - 1, rule.getMultiplier());
+            } else {
+                starts.add(start);
+                multipliers.add(rule.getMultiplier());
+            }
+        }
+
+        int[] runStarts = new int[starts.size() + 1];
+        double[] runMultipliers = new double[multipliers.size()];
+        for (int i = 0; i < multipliers.size(); i++) {
+            runStarts[i] = starts.get(i);
+            runMultipliers[i] = multipliers.get(i);
+        }
+        runStarts[multipliers.size()] = Integer.MAX_VALUE;
+
+        return new RulePricePolicy(1.0, runStarts, runMultipliers,
+                PricingCalendar.compile(rules.getSeasons(), rules.getWeekendMultiplier()));
+    }
+
+    // The same rules for another membership tier.
+    public RulePricePolicy withTierMultiplier(double multiplier) {
+        return new RulePricePolicy(multiplier, runStarts, runMultipliers, calendar);
+    }
+
+    // True if the price depends on nothing but the number of days.
+    public boolean isFlat() {
+        return calendar == null && runMultipliers.length == 1 && runMultipliers[0] == 1.0;
+    }
+
+    // Without a start date the seasons and weekends cannot apply; only the long-stay rules do.
+    @Override
+    public long calculatePrice(long dailyRate, int days) {
+        double dayUnits = 0;
+        for (int run = 0; run < runMultipliers.length; run++) {
+            dayUnits += runMultipliers[run] * (Math.min(runStarts[run + 1], days) - Math.min(runStarts[run], days));
+        }
+        return Math.round(dayUnits * dailyRate * tierMultiplier);
+    }
+
+    @Override
+    public long calculatePrice(long dailyRate, int startEpochDay, int days) {
+        if (calendar == null) {
+            return calculatePrice(dailyRate, days);
+        }
+        double dayUnits = 0;
+        for (int run = 0; run < runMultipliers.length; run++) {
+            long from = (long) startEpochDay + Math.min(runStarts[run], days);
+            long to = (long) startEpochDay + Math.min(runStarts[run + 1], days);
+            dayUnits += runMultipliers[run] * calendar.sum(from, to);
+        }
+        return Math.round(dayUnits * dailyRate * tierMultiplier);
+    }
+
+    // One tight loop over all rentals, with the tier multiplier, the runs and the calendar read once.
+    @Override
+    public void calculatePrices(long[] dailyRates, int[] days, int[] startEpochDays, long[] out) {
+        double tier = tierMultiplier;
+        int[] starts = runStarts;
+        double[] multipliers = runMultipliers;
+        PricingCalendar dayCalendar = calendar;
+        for (int i = 0; i < days.length; i++) {
+            int length = days[i];
+            long start = startEpochDays[i];
+            double dayUnits = 0;
+            for (int run = 0; run < multipliers.length; run++) {
+                int from = Math.min(starts[run], length);
+                int to = Math.min(starts[run + 1], length);
+                dayUnits += multipliers[run] * (dayCalendar != null ? dayCalendar.sum(start + from, start + to) : to - from);
+            }
+            out[i] = Math.round(dayUnits * dailyRates[i] * tier);
+        }
+    }
+}
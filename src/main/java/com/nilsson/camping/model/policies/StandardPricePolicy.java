@@ -2,14 +2,8 @@ package com.nilsson.camping.model.policies;
 
 public class StandardPricePolicy implements IPricePolicy {
 
-    private double dailyRate;
-
-    public StandardPricePolicy(double dailyRate) {
-        this.dailyRate = dailyRate;
-    }
-
     @Override
-    public double calculatePrice(int days) {
+    public long calculatePrice(long dailyRate, int days) {
         return days * dailyRate;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,183 @@
+package com.nilsson.camping.model.registries;
+
+import com.nilsson.camping.model.items.IRentable;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Tracks which items of one type are available to rent.
+ * Every item gets a dense slot, in the order it was added, and one bit per slot says whether it is available,
+ * so a rent or return flips a single bit and the available count is kept as a plain counter.
+ * Removed items leave an empty slot behind until enough have piled up to compact the slots.
+ */
+class AvailabilitySet<T extends IRentable> {
+
+    private Object[] slots = new Object[16];
+    private long[] available = new long[1];
+    private final IntObjectMap<Integer> slotById = new IntObjectMap<>();
+    private int slotCount;
+    private int availableCount;
+
+    private final List<T> availableView = new AvailableView();
+
+    void add(T item) {
+        if (slotCount == slots.length) {
+            slots = Arrays.copyOf(slots, slotCount * 2);
+            available = Arrays.copyOf(available, wordsFor(slots.length));
+        }
+        int slot = slotCount++;
+        slots[slot] = item;
+        slotById.put(item.getItemId(), slot);
+        if (!item.isRented()) {
+            setBit(slot);
+            availableCount++;
+        }
+    }
+
+    void remove(T item) {
+        Integer slot = slotById.remove(item.getItemId());
+        if (slot == null) {
+            return;
+        }
+        if (isSet(slot)) {
+            clearBit(slot);
+            availableCount--;
+        }
+        slots[slot] = null;
+        if (slotById.size() < slotCount / 2) {
+            compact();
+        }
+    }
+
+    // Flips the item's bit to match its rented flag. Does nothing if the bit already matches.
+    void update(T item) {
+        Integer slot = slotById.get(item.getItemId());
+        if (slot == null || isSet(slot) == !item.isRented()) {
+            return;
+        }
+        if (item.isRented()) {
+            clearBit(slot);
+            availableCount--;
+        } else {
+            setBit(slot);
+            availableCount++;
+        }
+    }
+
+    int availableCount() {
+        return availableCount;
+    }
+
+    // Live, read-only list of the available items, in the order they were added.
+    List<T> availableView() {
+        return availableView;
+    }
+
+    // Moves the remaining items to the front, keeping their order, and renumbers their slots.
+    private void compact() {
+        Object[] oldSlots = slots;
+        long[] oldAvailable = available;
+        int oldCount = slotCount;
+
+        slots = new Object[oldSlots.length];
+        available = new long[oldAvailable.length];
+        slotCount = 0;
+        for (int i = 0; i < oldCount; i++) {
+            if (oldSlots[i] == null) {
+                continue;
+            }
+            int slot = slotCount++;
+            slots[slot] = oldSlots[i];
+            slotById.put(((IRentable) oldSlots[i]).getItemId(), slot);
+            if ((oldAvailable[i >>> 6] & (1L << i)) != 0) {
+                setBit(slot);
+            }
+        }
+    }
+
+    private static int wordsFor(int slotCapacity) {
+        return (slotCapacity + 63) >>> 6;
+    }
+
+    private boolean isSet(int slot) {
+        return (available[slot >>> 6] & (1L << slot)) != 0;
+    }
+
+    private void setBit(int slot) {
+        available[slot >>> 6] |= 1L << slot;
+    }
+
+    private void clearBit(int slot) {
+        available[slot >>> 6] &= ~(1L << slot);
+    }
+
+    private int nextAvailable(int fromSlot) {
+        int word = fromSlot >>> 6;
+        if (word >= available.length) {
+            return -1;
+        }
+        long bits = available[word] & (-1L << fromSlot);
+        while (true) {
+            if (bits != 0) {
+                int slot = (word << 6) + Long.numberOfTrailingZeros(bits);
+                return slot < slotCount ? slot : -1;
+            }
+            if (++word == available.length) {
+                return -1;
+            }
+            bits = available[word];
+        }
+    }
+
+    // ──────────────────────────────────────────────────────
+    //                      Available View
+    // ──────────────────────────────────────────────────────
+
+    // Iterating walks the set bits, so copying the view costs one pass over the bitset. Indexed access is slower.
+    private class AvailableView extends AbstractList<T> {
+
+        @Override
+        public int size() {
+            return availableCount;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public T get(int index) {
+            if (index < 0 || index >= availableCount) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + availableCount);
+            }
+            int slot = nextAvailable(0);
+            for (int i = 0; i < index; i++) {
+                slot = nextAvailable(slot + 1);
+            }
+            return (T) slots[slot];
+        }
+
+        @Override
+        public Iterator<T> iterator() {
+            return new Iterator<T>() {
+                private int next = nextAvailable(0);
+
+                @Override
+                public boolean hasNext() {
+                    return next >= 0;
+                }
+
+                @Override
+                @SuppressWarnings("unchecked")
+                public T next() {
+                    if (next < 0) {
+                        throw new NoSuchElementException();
+                    }
+                    T item = (T) slots[next];
+                    next = nextAvailable(next + 1);
+                    return item;
+                }
+            };
+        }
+    }
+}
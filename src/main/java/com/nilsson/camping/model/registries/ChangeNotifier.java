@@ -0,0 +1,49 @@
+package com.nilsson.camping.model.registries;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * The listeners of one registry. Registries fire only after releasing their lock, so a listener can
+ * query the registry again without deadlocking. A listener that throws is reported and skipped; the
+ * change itself has already been made.
+ */
+class ChangeNotifier<T> {
+
+    private final List<RegistryListener<T>> listeners = new CopyOnWriteArrayList<>();
+
+    void addListener(RegistryListener<T> listener) {
+        listeners.add(listener);
+    }
+
+    void removeListener(RegistryListener<T> listener) {
+        listeners.remove(listener);
+    }
+
+    void added(T entity) {
+        fire(new RegistryChange<>(RegistryChange.Kind.ADDED, entity));
+    }
+
+    void removed(T entity) {
+        fire(new RegistryChange<>(RegistryChange.Kind.REMOVED, entity));
+    }
+
+    void updated(T entity) {
+        fire(new RegistryChange<>(RegistryChange.Kind.UPDATED, entity));
+    }
+
+    void fire(RegistryChange<T> change) {
+        for (RegistryListener<T> listener : listeners) {
+            if (listener instanceof WeakRegistryListener && ((WeakRegistryListener<T>) listener).wasGarbageCollected()) {
+                listeners.remove(listener);
+                continue;
+            }
+            try {
+                listener.onChange(change);
+            } catch (RuntimeException e) {
+                System.err.println("ERROR: Registry listener failed on " + change + ": " + e.getMessage());
+                e.printStackTrace();
+            }
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.nilsson.camping.model.registries;
+
+import com.nilsson.camping.data.Repository;
+import com.nilsson.camping.data.UnitOfWork;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+// Records which entries of one registry collection changed since it was last saved.
+class ChangeSet<T> {
+
+    private final Map<Integer, T> changed = new LinkedHashMap<>();
+    private final Set<Integer> removed = new LinkedHashSet<>();
+
+    // An added or edited record.
+    void changed(int id, T record) {
+        removed.remove(id);
+        changed.put(id, record);
+    }
+
+    // A removed record. A record added and removed before the next save still has to be removed from storage.
+    void removed(int id) {
+        changed.remove(id);
+        removed.add(id);
+    }
+
+    boolean isEmpty() {
+        return changed.isEmpty() && removed.isEmpty();
+    }
+
+    // Stages the recorded changes into the unit of work and starts over. Does nothing if nothing changed.
+    void saveTo(Repository<T> repository, Collection<T> all, UnitOfWork unitOfWork) {
+        if (isEmpty()) {
+            return;
+        }
+        repository.save(all, new ArrayList<>(changed.values()), new ArrayList<>(removed), unitOfWork);
+        changed.clear();
+        removed.clear();
+    }
+}
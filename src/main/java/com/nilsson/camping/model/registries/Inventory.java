@@ -1,21 +1,57 @@
 package com.nilsson.camping.model.registries;
 
-import com.nilsson.camping.data.DataHandler;
+import com.nilsson.camping.data.IdAllocator;
+import com.nilsson.camping.data.Preloader;
+import com.nilsson.camping.data.Repository;
+import com.nilsson.camping.data.Storage;
+import com.nilsson.camping.data.UnitOfWork;
 import com.nilsson.camping.model.items.Gear;
+import com.nilsson.camping.model.items.IRentable;
 import com.nilsson.camping.model.items.RecreationalVehicle;
 import com.nilsson.camping.model.items.Item;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
 
+/**
+ * All rentable items. Safe for concurrent use: changes are made under one lock, and the list getters
+ * return immutable snapshots, so a background thread can walk them while the FX thread keeps renting.
+ */
 public class Inventory {
 
-    private List<RecreationalVehicle> recreationalVehicleList = new ArrayList<>();
-    private List<Gear> gearList = new ArrayList<>();
+    private final Object lock = new Object();
+
+    // Every item by its id, so lookups take constant time. The per-type lists keep the items in file order.
+    private final IntObjectMap<Item> itemsById = new IntObjectMap<>();
+    private final List<RecreationalVehicle> recreationalVehicleList = new ArrayList<>();
+    private final List<Gear> gearList = new ArrayList<>();
+
+    // Which items are available to rent, one set per type, updated in place as items are rented and returned.
+    private final AvailabilitySet<RecreationalVehicle> vehicleAvailability = new AvailabilitySet<>();
+    private final AvailabilitySet<Gear> gearAvailability = new AvailabilitySet<>();
+
+    // Type, price, capacity and year facets, one index per type, for combined queries.
+    private final ItemFacetIndex<RecreationalVehicle> vehicleFacets =
+            new ItemFacetIndex<>(RecreationalVehicle::getCapacityCount, RecreationalVehicle::getModelYear);
+    private final ItemFacetIndex<Gear> gearFacets = new ItemFacetIndex<>(Gear::getCapacityCount, gear -> -1);
+
+    // Snapshots handed out to callers, copied once per change; items are added and removed through the registry only.
+    private final Snapshot<RecreationalVehicle> vehicleSnapshot = new Snapshot<>(lock, recreationalVehicleList);
+    private final Snapshot<Gear> gearSnapshot = new Snapshot<>(lock, gearList);
+    private final Snapshot<RecreationalVehicle> availableVehicleSnapshot = new Snapshot<>(lock, vehicleAvailability.availableView());
+    private final Snapshot<Gear> availableGearSnapshot = new Snapshot<>(lock, gearAvailability.availableView());
+
+    private final Repository<RecreationalVehicle> vehicleRepository = Storage.vehicles();
+    private final Repository<Gear> gearRepository = Storage.gear();
+
+    // Items changed since their collection was last saved, so only changed collections (or records) are written.
+    private final ChangeSet<RecreationalVehicle> vehicleChanges = new ChangeSet<>();
+    private final ChangeSet<Gear> gearChanges = new ChangeSet<>();
+
+    private final ChangeNotifier<Item> notifier = new ChangeNotifier<>();
 
     private Inventory() {
-        loadGearFromDataHandler();
-        loadRecreationalVehiclesFromDataHandler();
+        loadGearFromRepository();
+        loadRecreationalVehiclesFromRepository();
     }
 
     public static Inventory getInstance() {
@@ -26,72 +62,230 @@ public class Inventory {
         private static final Inventory INSTANCE = new Inventory();
     }
 
+    // Called with every vehicle or gear added, removed, edited, rented or returned, after the change is made.
+    public void addListener(RegistryListener<Item> listener) {
+        notifier.addListener(listener);
+    }
+
+    public void removeListener(RegistryListener<Item> listener) {
+        notifier.removeListener(listener);
+    }
+
+    // Vehicles not rented out, as of the last change.
     public List<RecreationalVehicle> getAvailableRecreationalVehicleList() {
-        return recreationalVehicleList.stream().filter(rv -> !rv.isRented())
-                .collect(Collectors.toList());
+        return availableVehicleSnapshot.get();
+    }
+
+    public int getAvailableRecreationalVehicleCount() {
+        synchronized (lock) {
+            return vehicleAvailability.availableCount();
+        }
     }
 
     public List<RecreationalVehicle> getRecreationalVehicleList() {
-        return recreationalVehicleList;
+        return vehicleSnapshot.get();
     }
 
     public List<Gear> getGearList() {
-        return gearList;
+        return gearSnapshot.get();
     }
 
+    // Gear not rented out, as of the last change.
     public List<Gear> getAvailableGearList() {
-        return gearList.stream().filter(g -> !g.isRented())
-                .collect(Collectors.toList());
+        return availableGearSnapshot.get();
+    }
+
+    public int getAvailableGearCount() {
+        synchronized (lock) {
+            return gearAvailability.availableCount();
+        }
+    }
+
+    /**
+     * Marks an item as rented or returned, updates its availability and marks its collection as changed.
+     * @return false if the item already had that state.
+     */
+    public boolean setRented(IRentable item, boolean rented) {
+        synchronized (lock) {
+            if (item.isRented() == rented) {
+                return false;
+            }
+            item.setRented(rented);
+            if (item instanceof RecreationalVehicle) {
+                vehicleAvailability.update((RecreationalVehicle) item);
+                availableVehicleSnapshot.invalidate();
+            } else if (item instanceof Gear) {
+                gearAvailability.update((Gear) item);
+                availableGearSnapshot.invalidate();
+            }
+            markChangedLocked(item);
+        }
+        notifier.updated((Item) item);
+        return true;
     }
 
     public void addRecreationalVehicle(RecreationalVehicle rv) {
-        this.recreationalVehicleList.add(rv);
-        DataHandler.saveRecreationalVehicle(this.recreationalVehicleList);
+        synchronized (lock) {
+            this.recreationalVehicleList.add(rv);
+            itemsById.put(rv.getItemId(), rv);
+            vehicleAvailability.add(rv);
+            vehicleFacets.add(rv);
+            vehicleSnapshot.invalidate();
+            availableVehicleSnapshot.invalidate();
+            markChangedLocked(rv);
+        }
+        saveChanges();
+        notifier.added(rv);
     }
 
     public void addGear(Gear gear) {
-        this.gearList.add(gear);
-        DataHandler.saveGear(this.gearList);
+        synchronized (lock) {
+            this.gearList.add(gear);
+            itemsById.put(gear.getItemId(), gear);
+            gearAvailability.add(gear);
+            gearFacets.add(gear);
+            gearSnapshot.invalidate();
+            availableGearSnapshot.invalidate();
+            markChangedLocked(gear);
+        }
+        saveChanges();
+        notifier.added(gear);
+    }
+
+    // ──────────────────────────────────────────────────────
+    //                  Dirty Tracking
+    // ──────────────────────────────────────────────────────
+
+    // Marks an added or edited item, and with it the collection it belongs to, as changed, and re-indexes its facets.
+    public void markChanged(IRentable item) {
+        synchronized (lock) {
+            markChangedLocked(item);
+        }
+        if (findItemById(item.getItemId()) == item) {
+            notifier.updated((Item) item);
+        }
+    }
+
+    private void markChangedLocked(IRentable item) {
+        if (item instanceof RecreationalVehicle) {
+            vehicleFacets.update((RecreationalVehicle) item);
+            vehicleChanges.changed(item.getItemId(), (RecreationalVehicle) item);
+        } else if (item instanceof Gear) {
+            gearFacets.update((Gear) item);
+            gearChanges.changed(item.getItemId(), (Gear) item);
+        }
+    }
+
+    public boolean hasUnsavedChanges() {
+        synchronized (lock) {
+            return !vehicleChanges.isEmpty() || !gearChanges.isEmpty();
+        }
+    }
+
+    // Saves only the collections that changed since they were last saved.
+    public void saveChanges() {
+        UnitOfWork unitOfWork = UnitOfWork.begin();
+        saveChanges(unitOfWork);
+        unitOfWork.commit();
+    }
+
+    // Stages the collections that changed into a unit of work, so they commit together with other registries.
+    public void saveChanges(UnitOfWork unitOfWork) {
+        synchronized (lock) {
+            vehicleChanges.saveTo(vehicleRepository, this.recreationalVehicleList, unitOfWork);
+            gearChanges.saveTo(gearRepository, this.gearList, unitOfWork);
+        }
     }
 
     public List<Item> getAllItems() {
         List<Item> result = new ArrayList<>();
-        result.addAll(recreationalVehicleList);
-        result.addAll(gearList);
+        result.addAll(getRecreationalVehicleList());
+        result.addAll(getGearList());
         return result;
     }
 
+    // Allocates an item ID no vehicle or gear has had before.
+    public int getNextItemId() {
+        return IdAllocator.ITEMS.nextId();
+    }
+
+    // Vehicles matching every facet of the query, such as caravans for 4 or more from 2018 or later.
+    public List<RecreationalVehicle> findRecreationalVehicles(ItemQuery query) {
+        synchronized (lock) {
+            return vehicleFacets.find(query);
+        }
+    }
+
+    // Gear matching every facet of the query. Gear has no year, so a year bound matches nothing.
+    public List<Gear> findGear(ItemQuery query) {
+        synchronized (lock) {
+            return gearFacets.find(query);
+        }
+    }
+
     // Find by ID
     public Item findItemById(int id) {
-        for (RecreationalVehicle rv : recreationalVehicleList) {
-            if (rv.getItemId() == id) return rv;
+        synchronized (lock) {
+            return itemsById.get(id);
         }
-        for (Gear g : gearList) {
-            if (g.getItemId() == id) return g;
-        }
-        return null;
     }
 
-    private void loadRecreationalVehiclesFromDataHandler() {
-        this.recreationalVehicleList = DataHandler.loadRecreationalVehicles();
+    private void loadRecreationalVehiclesFromRepository() {
+        Preloader.loadAll(vehicleRepository, rv -> {
+            recreationalVehicleList.add(rv);
+            itemsById.put(rv.getItemId(), rv);
+            IdAllocator.ITEMS.observe(rv.getItemId());
+            vehicleAvailability.add(rv);
+            vehicleFacets.add(rv);
+        });
     }
 
-    private void loadGearFromDataHandler() {
-        this.gearList = DataHandler.loadGear();
+    private void loadGearFromRepository() {
+        Preloader.loadAll(gearRepository, gear -> {
+            gearList.add(gear);
+            itemsById.put(gear.getItemId(), gear);
+            IdAllocator.ITEMS.observe(gear.getItemId());
+            gearAvailability.add(gear);
+            gearFacets.add(gear);
+        });
     }
 
     public boolean removeRecreationalVehicle(RecreationalVehicle rv) {
-        boolean wasRemoved = this.recreationalVehicleList.remove(rv);
+        boolean wasRemoved;
+        synchronized (lock) {
+            wasRemoved = this.recreationalVehicleList.remove(rv);
+            if (wasRemoved) {
+                itemsById.remove(rv.getItemId());
+                vehicleAvailability.remove(rv);
+                vehicleFacets.remove(rv);
+                vehicleSnapshot.invalidate();
+                availableVehicleSnapshot.invalidate();
+                vehicleChanges.removed(rv.getItemId());
+            }
+        }
         if (wasRemoved) {
-            DataHandler.saveRecreationalVehicle(this.recreationalVehicleList);
+            saveChanges();
+            notifier.removed(rv);
         }
         return wasRemoved;
     }
 
     public boolean removeGear(Gear gear) {
-        boolean wasRemoved = this.gearList.remove(gear);
+        boolean wasRemoved;
+        synchronized (lock) {
+            wasRemoved = this.gearList.remove(gear);
+            if (wasRemoved) {
+                itemsById.remove(gear.getItemId());
+                gearAvailability.remove(gear);
+                gearFacets.remove(gear);
+                gearSnapshot.invalidate();
+                availableGearSnapshot.invalidate();
+                gearChanges.removed(gear.getItemId());
+            }
+        }
         if (wasRemoved) {
-            DataHandler.saveGear(this.gearList);
+            saveChanges();
+            notifier.removed(gear);
         }
         return wasRemoved;
     }
@@ -0,0 +1,308 @@
+package com.nilsson.camping.model.registries;
+
+import com.nilsson.camping.model.items.IRentable;
+import com.nilsson.camping.model.items.Item;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.ToIntFunction;
+
+/**
+ * Facet indexes over the items of one kind: type, daily price, capacity and model year.
+ * Every item gets a dense slot, like in AvailabilitySet. Each type has a bitset of its slots, and each numeric
+ * facet keeps its (value, slot) pairs sorted, so a range is two binary searches and becomes a bitset of the
+ * matching slots. A query ANDs the bitsets of its facets instead of testing every item against every condition.
+ * The sorted facets are rebuilt on the first query after an item is added or edited; rents and returns only
+ * flip the item's availability bit.
+ */
+class ItemFacetIndex<T extends Item & IRentable> {
+
+    // What the items report for a capacity or year that is not a number.
+    private static final int NO_VALUE = -1;
+
+    private final ToIntFunction<T> capacityOf;
+    private final ToIntFunction<T> yearOf;
+
+    private Object[] slots = new Object[16];
+    private String[] types = new String[16];
+    private int[] prices = new int[16];
+    private int[] capacities = new int[16];
+    private int[] years = new int[16];
+    private long[] live = new long[1];
+    private long[] available = new long[1];
+    private final Map<String, long[]> slotsByType = new HashMap<>();
+    private final IntObjectMap<Integer> slotById = new IntObjectMap<>();
+    private int slotCount;
+
+    // Sorted (value, slot) pairs per numeric facet; null until the next query after a change.
+    private long[] sortedPrices;
+    private long[] sortedCapacities;
+    private long[] sortedYears;
+
+    ItemFacetIndex(ToIntFunction<T> capacityOf, ToIntFunction<T> yearOf) {
+        this.capacityOf = capacityOf;
+        this.yearOf = yearOf;
+    }
+
+    void add(T item) {
+        if (slotCount == slots.length) {
+            grow(slotCount * 2);
+        }
+        int slot = slotCount++;
+        slots[slot] = item;
+        slotById.put(item.getItemId(), slot);
+        setBit(live, slot);
+        index(slot, item);
+        sortedPrices = null;
+        sortedCapacities = null;
+        sortedYears = null;
+    }
+
+    void remove(T item) {
+        Integer slot = slotById.remove(item.getItemId());
+        if (slot == null) {
+            return;
+        }
+        clearBit(live, slot);
+        clearBit(available, slot);
+        clearBit(slotsByType.get(types[slot]), slot);
+        slots[slot] = null;
+        types[slot] = null;
+        if (slotById.size() < slotCount / 2) {
+            compact();
+        }
+    }
+
+    // Re-reads the item's facets after an edit, a rent or a return.
+    void update(T item) {
+        Integer slot = slotById.get(item.getItemId());
+        if (slot == null) {
+            return;
+        }
+        clearBit(slotsByType.get(types[slot]), slot);
+        index(slot, item);
+    }
+
+    /**
+     * The items matching every facet set on the query.
+     * @return The matching items, in the order they were added.
+     */
+    @SuppressWarnings("unchecked")
+    List<T> find(ItemQuery query) {
+        long[] result = Arrays.copyOf(query.isAvailableOnly() ? available : live, live.length);
+
+        String type = normalize(query.getType());
+        if (!type.isEmpty()) {
+            long[] ofType = slotsByType.get(type);
+            if (ofType == null) {
+                return new ArrayList<>();
+            }
+            and(result, ofType);
+        }
+
+        if (query.getMinPrice() != null || query.getMaxPrice() != null) {
+            int low = query.getMinPrice() == null ? Integer.MIN_VALUE : priceKeyAtLeast(query.getMinPrice());
+            int high = query.getMaxPrice() == null ? Integer.MAX_VALUE : priceKeyAtMost(query.getMaxPrice());
+            if (sortedPrices == null) {
+                sortedPrices = sortFacet(prices);
+            }
+            restrict(result, sortedPrices, low, high);
+        }
+        if (query.getMinCapacity() != null || query.getMaxCapacity() != null) {
+            if (sortedCapacities == null) {
+                sortedCapacities = sortFacet(capacities);
+            }
+            restrict(result, sortedCapacities, lowBound(query.getMinCapacity()), highBound(query.getMaxCapacity()));
+        }
+        if (query.getMinYear() != null || query.getMaxYear() != null) {
+            if (sortedYears == null) {
+                sortedYears = sortFacet(years);
+            }
+            restrict(result, sortedYears, lowBound(query.getMinYear()), highBound(query.getMaxYear()));
+        }
+
+        List<T> matches = new ArrayList<>();
+        for (int word = 0; word < result.length; word++) {
+            long bits = result[word];
+            while (bits != 0) {
+                matches.add((T) slots[(word << 6) + Long.numberOfTrailingZeros(bits)]);
+                bits &= bits - 1;
+            }
+        }
+        return matches;
+    }
+
+    // Stores the item's facet values in its slot and sets its type and availability bits.
+    private void index(int slot, T item) {
+        String type = normalize(item.getItemType());
+        long[] ofType = slotsByType.get(type);
+        if (ofType == null || ofType.length < live.length) {
+            ofType = ofType == null ? new long[live.length] : Arrays.copyOf(ofType, live.length);
+            slotsByType.put(type, ofType);
+        }
+        setBit(ofType, slot);
+        types[slot] = type;
+
+        if (item.isRented()) {
+            clearBit(available, slot);
+        } else {
+            setBit(available, slot);
+        }
+
+        int price = priceKey(item.getDailyPriceOre());
+        int capacity = capacityOf.applyAsInt(item);
+        int year = yearOf.applyAsInt(item);
+        if (price != prices[slot]) {
+            sortedPrices = null;
+        }
+        if (capacity != capacities[slot]) {
+            sortedCapacities = null;
+        }
+        if (year != years[slot]) {
+            sortedYears = null;
+        }
+        prices[slot] = price;
+        capacities[slot] = capacity;
+        years[slot] = year;
+    }
+
+    // ──────────────────────────────────────────────────────
+    //                  Sorted Facets
+    // ──────────────────────────────────────────────────────
+
+    // Packs each live slot's value into the high and the slot into the low half of a long, so one primitive sort orders them.
+    private long[] sortFacet(int[] values) {
+        long[] entries = new long[slotById.size()];
+        int count = 0;
+        for (int slot = 0; slot < slotCount; slot++) {
+            if (slots[slot] != null) {
+                entries[count++] = ((long) values[slot] << 32) | slot;
+            }
+        }
+        Arrays.sort(entries);
+        return entries;
+    }
+
+    // Clears the result bits of every slot whose value falls outside [low, high].
+    private void restrict(long[] result, long[] sorted, int low, int high) {
+        int from = firstAtLeast(sorted, (long) low << 32);
+        int to = high == Integer.MAX_VALUE ? sorted.length : firstAtLeast(sorted, (long) (high + 1) << 32);
+        if (to - from <= sorted.length / 2) {
+            // Few matches: build their bitset and intersect.
+            long[] inRange = new long[result.length];
+            for (int i = from; i < to; i++) {
+                setBit(inRange, (int) sorted[i]);
+            }
+            and(result, inRange);
+        } else {
+            // Many matches: clearing the few outside the range is cheaper.
+            for (int i = 0; i < from; i++) {
+                clearBit(result, (int) sorted[i]);
+            }
+            for (int i = to; i < sorted.length; i++) {
+                clearBit(result, (int) sorted[i]);
+            }
+        }
+    }
+
+    private static int firstAtLeast(long[] sorted, long key) {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sorted[mid] < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // An open lower bound still has to leave out the items without a number.
+    private static int lowBound(Integer min) {
+        return min == null ? NO_VALUE + 1 : Math.max(NO_VALUE + 1, min);
+    }
+
+    private static int highBound(Integer max) {
+        return max == null ? Integer.MAX_VALUE : max;
+    }
+
+    // Prices are indexed in whole öre, so they sort as ints.
+    private static int priceKey(long priceOre) {
+        return (int) Math.max(Integer.MIN_VALUE + 1, Math.min(Integer.MAX_VALUE - 1, priceOre));
+    }
+
+    private static int priceKeyAtLeast(double price) {
+        return (int) Math.max(Integer.MIN_VALUE + 1, Math.min(Integer.MAX_VALUE - 1, Math.ceil(price * 100 - 1e-6)));
+    }
+
+    private static int priceKeyAtMost(double price) {
+        return (int) Math.max(Integer.MIN_VALUE + 1, Math.min(Integer.MAX_VALUE - 1, Math.floor(price * 100 + 1e-6)));
+    }
+
+    // ──────────────────────────────────────────────────────
+    //                  Slots and Bitsets
+    // ──────────────────────────────────────────────────────
+
+    private void grow(int capacity) {
+        slots = Arrays.copyOf(slots, capacity);
+        types = Arrays.copyOf(types, capacity);
+        prices = Arrays.copyOf(prices, capacity);
+        capacities = Arrays.copyOf(capacities, capacity);
+        years = Arrays.copyOf(years, capacity);
+        int words = (capacity + 63) >>> 6;
+        live = Arrays.copyOf(live, words);
+        available = Arrays.copyOf(available, words);
+        for (Map.Entry<String, long[]> entry : slotsByType.entrySet()) {
+            entry.setValue(Arrays.copyOf(entry.getValue(), words));
+        }
+    }
+
+    // Moves the remaining items to the front, keeping their order, and indexes them again.
+    @SuppressWarnings("unchecked")
+    private void compact() {
+        Object[] oldSlots = slots;
+        int oldCount = slotCount;
+
+        slots = new Object[oldSlots.length];
+        types = new String[oldSlots.length];
+        prices = new int[oldSlots.length];
+        capacities = new int[oldSlots.length];
+        years = new int[oldSlots.length];
+        live = new long[live.length];
+        available = new long[available.length];
+        slotsByType.clear();
+        slotById.clear();
+        slotCount = 0;
+        for (int i = 0; i < oldCount; i++) {
+            if (oldSlots[i] != null) {
+                add((T) oldSlots[i]);
+            }
+        }
+        sortedPrices = null;
+        sortedCapacities = null;
+        sortedYears = null;
+    }
+
+    private static void and(long[] result, long[] other) {
+        for (int i = 0; i < result.length; i++) {
+            result[i] &= i < other.length ? other[i] : 0L;
+        }
+    }
+
+    private static void setBit(long[] bits, int slot) {
+        bits[slot >>> 6] |= 1L << slot;
+    }
+
+    private static void clearBit(long[] bits, int slot) {
+        bits[slot >>> 6] &= ~(1L << slot);
+    }
+
+    private static String normalize(String value) {
+        return value == null ? "" : value.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,69 @@
+package com.nilsson.camping.model.registries;
+
+/**
+ * A combined facet query over vehicles or gear, such as "Caravans, capacity 4 or more, at most 900 SEK a day,
+ * from 2018 or later". Every bound is optional and inclusive; unset facets match every item.
+ * Items whose capacity or year is not a number never match a bound on that facet.
+ */
+public class ItemQuery {
+
+    private String type;
+    private Integer minCapacity;
+    private Integer maxCapacity;
+    private Double minPrice;
+    private Double maxPrice;
+    private Integer minYear;
+    private Integer maxYear;
+    private boolean availableOnly;
+
+    // Matches the item type, ignoring case. Null or empty matches every type.
+    public ItemQuery type(String type) {
+        this.type = type;
+        return this;
+    }
+
+    public ItemQuery minCapacity(Integer minCapacity) {
+        this.minCapacity = minCapacity;
+        return this;
+    }
+
+    public ItemQuery maxCapacity(Integer maxCapacity) {
+        this.maxCapacity = maxCapacity;
+        return this;
+    }
+
+    public ItemQuery minPrice(Double minPrice) {
+        this.minPrice = minPrice;
+        return this;
+    }
+
+    public ItemQuery maxPrice(Double maxPrice) {
+        this.maxPrice = maxPrice;
+        return this;
+    }
+
+    public ItemQuery minYear(Integer minYear) {
+        this.minYear = minYear;
+        return this;
+    }
+
+    public ItemQuery maxYear(Integer maxYear) {
+        this.maxYear = maxYear;
+        return this;
+    }
+
+    // Leaves out items that are rented out.
+    public ItemQuery availableOnly(boolean availableOnly) {
+        this.availableOnly = availableOnly;
+        return this;
+    }
+
+    String getType() { return type; }
+    Integer getMinCapacity() { return minCapacity; }
+    Integer getMaxCapacity() { return maxCapacity; }
+    Double getMinPrice() { return minPrice; }
+    Double getMaxPrice() { return maxPrice; }
+    Integer getMinYear() { return minYear; }
+    Integer getMaxYear() { return maxYear; }
+    boolean isAvailableOnly() { return availableOnly; }
+}
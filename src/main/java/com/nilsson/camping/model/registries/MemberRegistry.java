@@ -1,19 +1,41 @@
 package com.nilsson.camping.model.registries;
 
-import com.nilsson.camping.data.DataHandler;
+import com.nilsson.camping.data.IdAllocator;
+import com.nilsson.camping.data.Preloader;
+import com.nilsson.camping.data.Repository;
+import com.nilsson.camping.data.Storage;
+import com.nilsson.camping.data.UnitOfWork;
 import com.nilsson.camping.model.Member;
-import java.util.*;
+import java.util.ArrayList;
+import java.util.List;
 
+/**
+ * All members. Safe for concurrent use: changes are made under one lock, and getMembers returns an
+ * immutable snapshot that background threads can read without locking.
+ */
 public class MemberRegistry {
 
+    private final Object lock = new Object();
+
     private List<Member> membersList = new ArrayList<>();
+    private final Snapshot<Member> snapshot = new Snapshot<>(lock, membersList);
+
+    // Members by id, so lookups take constant time however many members there are.
+    private final IntObjectMap<Member> membersById = new IntObjectMap<>();
+
+    // N-gram index behind the member search, kept up to date on add, edit and remove.
+    private final MemberSearchIndex searchIndex = new MemberSearchIndex();
+
+    private final Repository<Member> repository = Storage.members();
+
+    // Members changed since the last save, so unchanged members are never rewritten.
+    private final ChangeSet<Member> changes = new ChangeSet<>();
 
-    // Tracks all used IDs for unique ID generation
-    private Set<Integer> usedIDs = new HashSet<>();
+    private final ChangeNotifier<Member> notifier = new ChangeNotifier<>();
 
     private MemberRegistry() {
-        // Load members from JSON file via DataHandler
-        loadMembersFromDataHandler();
+        // Load members from the configured storage backend
+        loadMembersFromRepository();
     }
 
     public static MemberRegistry getInstance() {
@@ -24,67 +46,136 @@ public class MemberRegistry {
         private static final MemberRegistry INSTANCE = new MemberRegistry();
     }
 
-    // Generates a unique 4-digit ID between 1000 and 9999.
+    // Allocates an ID no member has had before. Existing members keep their 4-digit IDs; new ones count up from there.
     public int getUniqueID() {
-        Random random = new Random();
-
-        while (true) {
-            int id = 1000 + random.nextInt(9000);
-            if (usedIDs.add(id)) {
-                return id;
-            }
-        }
+        return IdAllocator.MEMBERS.nextId();
     }
 
+    // All members as of the last change.
     public List<Member> getMembers() {
-        return membersList;
+        return snapshot.get();
     }
 
-    // Adds a new member to the registry and updates the used ID set.
+    // Called with every member added, removed or edited, after the change is made.
+    public void addListener(RegistryListener<Member> listener) {
+        notifier.addListener(listener);
+    }
+
+    public void removeListener(RegistryListener<Member> listener) {
+        notifier.removeListener(listener);
+    }
+
+    // Adds a new member to the registry.
     public void addMember(Member member) {
-        membersList.add(member);
-        // Ensure the ID of the new member is registered as used
-        usedIDs.add(member.getId());
-        DataHandler.saveMembers(this.membersList);
+        synchronized (lock) {
+            membersList.add(member);
+            membersById.put(member.getId(), member);
+            searchIndex.add(member);
+            snapshot.invalidate();
+            // Members added with an ID of their own must not collide with allocated ones
+            IdAllocator.MEMBERS.observe(member.getId());
+            changes.changed(member.getId(), member);
+        }
+        saveChanges();
+        notifier.added(member);
     }
 
-    // Removes a specified Member object from the in-memory list and updates the used IDs set.
+    // Removes a specified Member object from the in-memory list. Its ID is never handed out again.
     public boolean removeMember(Member member) {
         if (member == null) {
             return false;
         }
 
-        // Remove the member from the in-memory List
-        boolean wasRemoved = this.membersList.remove(member);
+        boolean wasRemoved;
+        synchronized (lock) {
+            // Remove the member from the in-memory List
+            wasRemoved = this.membersList.remove(member);
+
+            if (wasRemoved) {
+                // Remove the ID from the index
+                membersById.remove(member.getId());
+                searchIndex.remove(member.getId());
+                snapshot.invalidate();
+                changes.removed(member.getId());
+            }
+        }
 
         if (wasRemoved) {
-            // Remove the ID from the usedIDs set
-            usedIDs.remove(member.getId());
-
             // Save Changes
-            DataHandler.saveMembers(this.membersList);
+            saveChanges();
+            notifier.removed(member);
         }
 
         return wasRemoved;
     }
 
-    // Loads members using the DataHandler and populates the registry and usedIDs set.
-    private void loadMembersFromDataHandler() {
-        this.membersList = DataHandler.loadMembers();
+    // Marks a member as changed, e.g. after it was edited in place, and re-indexes it for search.
+    public void markChanged(Member member) {
+        boolean registered;
+        synchronized (lock) {
+            registered = membersById.get(member.getId()) == member;
+            if (registered) {
+                searchIndex.update(member);
+            }
+            changes.changed(member.getId(), member);
+        }
+        if (registered) {
+            notifier.updated(member);
+        }
+    }
+
+    public boolean hasUnsavedChanges() {
+        synchronized (lock) {
+            return !changes.isEmpty();
+        }
+    }
+
+    // Saves the member list only if it changed since it was last saved.
+    public void saveChanges() {
+        UnitOfWork unitOfWork = UnitOfWork.begin();
+        saveChanges(unitOfWork);
+        unitOfWork.commit();
+    }
 
-        // Populate the usedIDs set from the loaded members to ensure uniqueness for new members
-        for (Member member : membersList) {
-            usedIDs.add(member.getId());
+    // Stages the member list into a unit of work if it changed, so it commits together with other registries.
+    public void saveChanges(UnitOfWork unitOfWork) {
+        synchronized (lock) {
+            changes.saveTo(repository, this.membersList, unitOfWork);
+        }
+    }
+
+    // Streams members from the repository into the registry and its index in a single pass.
+    private void loadMembersFromRepository() {
+        Preloader.loadAll(repository, member -> {
+            membersList.add(member);
+            membersById.put(member.getId(), member);
+            searchIndex.add(member);
+            // Register the ID to ensure uniqueness for new members
+            IdAllocator.MEMBERS.observe(member.getId());
+        });
+    }
+
+    /**
+     * IDs of the members whose first name, last name, membership level or ID contains the query, ignoring case.
+     * @return The matching IDs, sorted ascending. An empty query matches every member.
+     */
+    public int[] searchMemberIds(String query) {
+        synchronized (lock) {
+            return searchIndex.search(query, false);
+        }
+    }
+
+    // Like searchMemberIds, but a field has to start with the query.
+    public int[] searchMemberIdsByPrefix(String query) {
+        synchronized (lock) {
+            return searchIndex.search(query, true);
         }
     }
 
     // Find a Member object by their unique ID.
     public Member findMemberById(int id) {
-        for (Member member : membersList) {
-            if (member.getId() == id) {
-                return member;
-            }
+        synchronized (lock) {
+            return membersById.get(id);
         }
-        return null;
     }
 }
\ No newline at end of file
@@ -0,0 +1,198 @@
+package com.nilsson.camping.model.registries;
+
+import com.nilsson.camping.model.Member;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Search index over member first name, last name, membership level and id.
+ * Every field is lowercased once, when the member is indexed, and split into all its 1- to 3-character n-grams.
+ * Each n-gram maps to a posting list of the documents containing it. A query looks up the rarest of its n-grams
+ * and only checks the members on that list, instead of lowercasing every member on every keystroke.
+ * Each indexed version of a member is one document. An edit or removal marks the old document deleted, and
+ * the index is rebuilt once more than half of its documents are deleted.
+ */
+class MemberSearchIndex {
+
+    private static final int MAX_GRAM = 3;
+
+    // Separates the fields of a document, so a match can never span two fields.
+    private static final char FIELD_SEPARATOR = '\u0001';
+
+    private static final int MIN_DELETED_FOR_REBUILD = 1024;
+
+    private Map<String, Postings> postings = new HashMap<>();
+    private int[] docMemberIds = new int[16];
+    private String[] docTexts = new String[16];
+    private BitSet deleted = new BitSet();
+    private final IntObjectMap<Integer> docByMemberId = new IntObjectMap<>();
+    private int docCount;
+    private int deletedCount;
+
+    void add(Member member) {
+        String text = normalize(member.getFirstName()) + FIELD_SEPARATOR + normalize(member.getLastName()) +
+                FIELD_SEPARATOR + normalize(member.getMembershipLevel()) + FIELD_SEPARATOR + member.getId();
+        addDocument(member.getId(), text);
+    }
+
+    void remove(int memberId) {
+        Integer doc = docByMemberId.remove(memberId);
+        if (doc == null) {
+            return;
+        }
+        deleted.set(doc);
+        docTexts[doc] = null;
+        deletedCount++;
+        if (deletedCount >= MIN_DELETED_FOR_REBUILD && deletedCount * 2 > docCount) {
+            rebuild();
+        }
+    }
+
+    // Re-indexes a member after an edit.
+    void update(Member member) {
+        remove(member.getId());
+        add(member);
+    }
+
+    /**
+     * Ids of the members with a field containing the query, or starting with it if prefixOnly is set.
+     * Matching ignores case. An empty query matches every member.
+     * @return The matching member ids, sorted ascending.
+     */
+    int[] search(String query, boolean prefixOnly) {
+        String needle = normalize(query);
+        if (needle.isEmpty()) {
+            return liveMemberIds();
+        }
+
+        Postings candidates = rarestPostings(needle);
+        if (candidates == null) {
+            return new int[0];
+        }
+
+        // A query that is itself an n-gram needs no checking: its posting list is exactly the matching documents.
+        boolean exact = !prefixOnly && needle.length() <= MAX_GRAM;
+        String fieldStart = FIELD_SEPARATOR + needle;
+        int[] matches = new int[candidates.size];
+        int count = 0;
+        for (int i = 0; i < candidates.size; i++) {
+            int doc = candidates.docs[i];
+            if (deleted.get(doc)) {
+                continue;
+            }
+            String text = docTexts[doc];
+            boolean match = exact || (prefixOnly
+                    ? text.startsWith(needle) || text.contains(fieldStart)
+                    : text.contains(needle));
+            if (match) {
+                matches[count++] = docMemberIds[doc];
+            }
+        }
+        int[] result = Arrays.copyOf(matches, count);
+        Arrays.sort(result);
+        return result;
+    }
+
+    // The posting list of the query itself if it is short enough, otherwise of its rarest 3-gram.
+    private Postings rarestPostings(String needle) {
+        if (needle.length() <= MAX_GRAM) {
+            return postings.get(needle);
+        }
+        Postings rarest = null;
+        for (int i = 0; i + MAX_GRAM <= needle.length(); i++) {
+            Postings list = postings.get(needle.substring(i, i + MAX_GRAM));
+            if (list == null) {
+                return null;
+            }
+            if (rarest == null || list.size < rarest.size) {
+                rarest = list;
+            }
+        }
+        return rarest;
+    }
+
+    private int[] liveMemberIds() {
+        int[] ids = new int[docCount - deletedCount];
+        int count = 0;
+        for (int doc = deleted.nextClearBit(0); doc < docCount; doc = deleted.nextClearBit(doc + 1)) {
+            ids[count++] = docMemberIds[doc];
+        }
+        Arrays.sort(ids);
+        return ids;
+    }
+
+    private void addDocument(int memberId, String text) {
+        if (docCount == docTexts.length) {
+            docTexts = Arrays.copyOf(docTexts, docCount * 2);
+            docMemberIds = Arrays.copyOf(docMemberIds, docCount * 2);
+        }
+        int doc = docCount++;
+        docMemberIds[doc] = memberId;
+        docTexts[doc] = text;
+        docByMemberId.put(memberId, doc);
+
+        Set<String> grams = new HashSet<>();
+        int fieldStart = 0;
+        while (fieldStart <= text.length()) {
+            int fieldEnd = text.indexOf(FIELD_SEPARATOR, fieldStart);
+            if (fieldEnd < 0) {
+                fieldEnd = text.length();
+            }
+            for (int n = 1; n <= MAX_GRAM; n++) {
+                for (int i = fieldStart; i + n <= fieldEnd; i++) {
+                    grams.add(text.substring(i, i + n));
+                }
+            }
+            fieldStart = fieldEnd + 1;
+        }
+        for (String gram : grams) {
+            postings.computeIfAbsent(gram, key -> new Postings()).add(doc);
+        }
+    }
+
+    // Renumbers the live documents from zero and drops the deleted ones.
+    private void rebuild() {
+        int[] oldMemberIds = docMemberIds;
+        String[] oldTexts = docTexts;
+        int oldCount = docCount;
+
+        postings = new HashMap<>();
+        docMemberIds = new int[Math.max(16, oldCount - deletedCount)];
+        docTexts = new String[docMemberIds.length];
+        deleted = new BitSet();
+        docCount = 0;
+        deletedCount = 0;
+        for (int doc = 0; doc < oldCount; doc++) {
+            if (oldTexts[doc] != null) {
+                addDocument(oldMemberIds[doc], oldTexts[doc]);
+            }
+        }
+    }
+
+    private static String normalize(String value) {
+        return value == null ? "" : value.toLowerCase(Locale.ROOT);
+    }
+
+    // ──────────────────────────────────────────────────────
+    //                      Postings
+    // ──────────────────────────────────────────────────────
+
+    // Sorted document numbers containing one n-gram.
+    private static class Postings {
+
+        private int[] docs = new int[4];
+        private int size;
+
+        void add(int doc) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+            }
+            docs[size++] = doc;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.nilsson.camping.model.registries;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nilsson.camping.model.policies.IPricePolicy;
+import com.nilsson.camping.model.policies.MultiplierPricePolicy;
+import com.nilsson.camping.model.policies.StandardPricePolicy;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The membership tiers and their price multipliers, loaded once from tiers.json.
+ * Every tier resolves to one shared, stateless price policy, so pricing a rental allocates nothing.
+ * Members whose level is not a known tier pay the standard price.
+ */
+public class MembershipTiers {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static final String TIERS_PATH =
+            System.getProperty("user.dir") + "/src/main/resources/data/json/tiers.json";
+
+    // The tier new members start in.
+    public static final String DEFAULT_TIER = "Standard";
+
+    private static final IPricePolicy STANDARD_POLICY = new StandardPricePolicy();
+
+    private final Map<String, Double> multipliersByTier;
+    private final Map<String, IPricePolicy> policiesByTier = new HashMap<>();
+    private final List<String> tierNames;
+
+    private MembershipTiers() {
+        multipliersByTier = loadMultipliers();
+        for (Map.Entry<String, Double> tier : multipliersByTier.entrySet()) {
+            policiesByTier.put(tier.getKey(), new MultiplierPricePolicy(tier.getValue()));
+        }
+        tierNames = Collections.unmodifiableList(new ArrayList<>(multipliersByTier.keySet()));
+    }
+
+    public static MembershipTiers getInstance() {
+        return SingletonHolder.INSTANCE;
+    }
+
+    private static class SingletonHolder {
+        private static final MembershipTiers INSTANCE = new MembershipTiers();
+    }
+
+    // Tier names in the order of tiers.json.
+    public List<String> getTierNames() {
+        return tierNames;
+    }
+
+    // The shared price policy of a membership level. Unknown levels and null get the standard price.
+    public IPricePolicy policyFor(String level) {
+        IPricePolicy policy = level == null ? null : policiesByTier.get(level);
+        return policy != null ? policy : STANDARD_POLICY;
+    }
+
+    // The price multiplier of a membership level. Unknown levels and null pay the standard price.
+    public double multiplierFor(String level) {
+        Double multiplier = level == null ? null : multipliersByTier.get(level);
+        return multiplier != null ? multiplier : 1.0;
+    }
+
+    private static Map<String, Double> loadMultipliers() {
+        File file = new File(TIERS_PATH);
+        if (file.exists() && file.length() > 0) {
+            try {
+                Map<String, Double> multipliers =
+                        MAPPER.readValue(file, new TypeReference<LinkedHashMap<String, Double>>() { });
+                if (!multipliers.isEmpty()) {
+                    return multipliers;
+                }
+            } catch (IOException e) {
+                System.err.println("ERROR: Could not read membership tiers: " + e.getMessage());
+            }
+        }
+        System.out.println("WARNING: No membership tiers in " + TIERS_PATH + ", using the built-in tiers.");
+        Map<String, Double> defaults = new LinkedHashMap<>();
+        defaults.put(DEFAULT_TIER, 1.0);
+        defaults.put("Premium", 1.2);
+        defaults.put("Student", 0.8);
+        return defaults;
+    }
+}
@@ -0,0 +1,75 @@
+package com.nilsson.camping.model.registries;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nilsson.camping.model.policies.IPricePolicy;
+import com.nilsson.camping.model.policies.PricingRuleSet;
+import com.nilsson.camping.model.policies.RulePricePolicy;
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The pricing rules from pricing-rules.json, compiled on first use into one shared price policy per item type
+ * and membership tier. Item types whose rules change nothing get the tier's plain multiplier policy.
+ */
+public class PricingRules {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static final String RULES_PATH =
+            System.getProperty("user.dir") + "/src/main/resources/data/json/pricing-rules.json";
+
+    private final PricingRuleSet rules;
+    private final MembershipTiers tiers = MembershipTiers.getInstance();
+
+    // Compiled policies per item type, then per membership level. Null types and levels are stored under "".
+    private final Map<String, CompiledType> compiledByType = new ConcurrentHashMap<>();
+
+    private PricingRules() {
+        rules = loadRules();
+    }
+
+    public static PricingRules getInstance() {
+        return SingletonHolder.INSTANCE;
+    }
+
+    private static class SingletonHolder {
+        private static final PricingRules INSTANCE = new PricingRules();
+    }
+
+    // The shared price policy for renting an item of the given type at the given membership level.
+    public IPricePolicy policyFor(String level, String itemType) {
+        CompiledType compiled = compiledByType.computeIfAbsent(itemType == null ? "" : itemType,
+                type -> new CompiledType(RulePricePolicy.compile(rules.forItemType(type))));
+        if (compiled.base.isFlat()) {
+            return tiers.policyFor(level);
+        }
+        return compiled.byLevel.computeIfAbsent(level == null ? "" : level,
+                key -> compiled.base.withTierMultiplier(tiers.multiplierFor(level)));
+    }
+
+    private static PricingRuleSet loadRules() {
+        File file = new File(RULES_PATH);
+        if (!file.exists() || file.length() == 0) {
+            return new PricingRuleSet();
+        }
+        try {
+            return MAPPER.readValue(file, PricingRuleSet.class);
+        } catch (IOException e) {
+            // Without rules every tier pays its plain multiplier, as before the rules existed.
+            System.err.println("ERROR: Could not read pricing rules: " + e.getMessage());
+            return new PricingRuleSet();
+        }
+    }
+
+    private static class CompiledType {
+
+        private final RulePricePolicy base;
+        private final Map<String, IPricePolicy> byLevel = new ConcurrentHashMap<>();
+
+        CompiledType(RulePricePolicy base) {
+            this.base = base;
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.nilsson.camping.model.registries;
+
+import com.nilsson.camping.data.Preloader;
+import com.nilsson.camping.data.Repository;
+import com.nilsson.camping.data.Storage;
+import com.nilsson.camping.data.UnitOfWork;
+import com.nilsson.camping.model.DailyProfit;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Holds the daily profits once for the whole application, so services no longer read them from disk per instance.
+public class ProfitsRegistry {
+
+    private final Repository<DailyProfit> repository = Storage.profits();
+    // In date order, with an index by epoch day for incremental updates.
+    private final List<DailyProfit> dailyProfits = new ArrayList<>();
+    private final IntObjectMap<DailyProfit> profitsByDay = new IntObjectMap<>();
+
+    private final ChangeNotifier<DailyProfit> notifier = new ChangeNotifier<>();
+
+    private ProfitsRegistry() {
+        Preloader.loadAll(repository, dailyProfits::add);
+        dailyProfits.sort(Comparator.comparing(DailyProfit::getDate));
+        for (DailyProfit profit : dailyProfits) {
+            profitsByDay.put(Storage.profitId(profit), profit);
+        }
+    }
+
+    public static ProfitsRegistry getInstance() {
+        return SingletonHolder.INSTANCE;
+    }
+
+    private static class SingletonHolder {
+        private static final ProfitsRegistry INSTANCE = new ProfitsRegistry();
+    }
+
+    // Daily profits in date order.
+    public List<DailyProfit> getDailyProfits() {
+        return dailyProfits;
+    }
+
+    // Called with every day added, removed or changed, after the change is made. Changed days are new DailyProfit objects.
+    public void addListener(RegistryListener<DailyProfit> listener) {
+        notifier.addListener(listener);
+    }
+
+    public void removeListener(RegistryListener<DailyProfit> listener) {
+        notifier.removeListener(listener);
+    }
+
+    /**
+     * Adds a new rental's daily price, in öre, to each of its days and stages only those days,
+     * instead of recalculating every day from all rentals.
+     */
+    public void addIncome(LocalDate startDate, int rentalDays, long dailyPriceOre, UnitOfWork unitOfWork) {
+        ChangeSet<DailyProfit> changes = new ChangeSet<>();
+        List<RegistryChange<DailyProfit>> events = new ArrayList<>();
+        for (int i = 0; i < rentalDays; i++) {
+            LocalDate day = startDate.plusDays(i);
+            int id = (int) day.toEpochDay();
+            DailyProfit old = profitsByDay.get(id);
+            DailyProfit profit = new DailyProfit(day, (old != null ? old.getIncomeOre() : 0) + dailyPriceOre);
+            profitsByDay.put(id, profit);
+            int index = indexOf(day);
+            if (old != null) {
+                dailyProfits.set(index, profit);
+                events.add(new RegistryChange<>(RegistryChange.Kind.UPDATED, profit));
+            } else {
+                dailyProfits.add(-index - 1, profit);
+                events.add(new RegistryChange<>(RegistryChange.Kind.ADDED, profit));
+            }
+            changes.changed(id, profit);
+        }
+        changes.saveTo(repository, dailyProfits, unitOfWork);
+        fireAll(events);
+    }
+
+    // Replaces all profits and stages only the days whose income changed, or that no longer have any.
+    public void replaceAll(List<DailyProfit> newProfits, UnitOfWork unitOfWork) {
+        ChangeSet<DailyProfit> changes = new ChangeSet<>();
+        List<RegistryChange<DailyProfit>> events = new ArrayList<>();
+        Map<Integer, DailyProfit> previous = new HashMap<>();
+        for (DailyProfit profit : dailyProfits) {
+            previous.put(Storage.profitId(profit), profit);
+        }
+        for (DailyProfit profit : newProfits) {
+            int id = Storage.profitId(profit);
+            DailyProfit old = previous.remove(id);
+            if (old == null || old.getIncomeOre() != profit.getIncomeOre()) {
+                changes.changed(id, profit);
+                events.add(new RegistryChange<>(old == null ? RegistryChange.Kind.ADDED : RegistryChange.Kind.UPDATED, profit));
+            }
+        }
+        for (Map.Entry<Integer, DailyProfit> entry : previous.entrySet()) {
+            changes.removed(entry.getKey());
+            events.add(new RegistryChange<>(RegistryChange.Kind.REMOVED, entry.getValue()));
+        }
+
+        dailyProfits.clear();
+        dailyProfits.addAll(newProfits);
+        dailyProfits.sort(Comparator.comparing(DailyProfit::getDate));
+        profitsByDay.clear();
+        for (DailyProfit profit : dailyProfits) {
+            profitsByDay.put(Storage.profitId(profit), profit);
+        }
+        changes.saveTo(repository, dailyProfits, unitOfWork);
+        fireAll(events);
+    }
+
+    // Position of the day in the list, or -(insertion point) - 1 if it has no entry.
+    private int indexOf(LocalDate day) {
+        int low = 0;
+        int high = dailyProfits.size() - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = dailyProfits.get(mid).getDate().compareTo(day);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -low - 1;
+    }
+
+    private void fireAll(List<RegistryChange<DailyProfit>> events) {
+        for (RegistryChange<DailyProfit> event : events) {
+            notifier.fire(event);
+        }
+    }
+}
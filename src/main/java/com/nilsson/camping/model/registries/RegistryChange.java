@@ -0,0 +1,30 @@
+package com.nilsson.camping.model.registries;
+
+/**
+ * One change to a registry: which entity was added, removed or updated.
+ * Delivered to RegistryListeners after the change is made and the registry's lock is released.
+ */
+public class RegistryChange<T> {
+
+    public enum Kind { ADDED, REMOVED, UPDATED }
+
+    private final Kind kind;
+    private final T entity;
+
+    RegistryChange(Kind kind, T entity) {
+        this.kind = kind;
+        this.entity = entity;
+    }
+
+    public Kind getKind() { return kind; }
+    public T getEntity() { return entity; }
+
+    public boolean isAdded() { return kind == Kind.ADDED; }
+    public boolean isRemoved() { return kind == Kind.REMOVED; }
+    public boolean isUpdated() { return kind == Kind.UPDATED; }
+
+    @Override
+    public String toString() {
+        return kind + " " + entity;
+    }
+}
@@ -0,0 +1,11 @@
+package com.nilsson.camping.model.registries;
+
+/**
+ * Receives the changes made to a registry, on the thread that made them.
+ * Listeners that touch the UI have to hand the change over to the FX thread themselves.
+ */
+@FunctionalInterface
+public interface RegistryListener<T> {
+
+    void onChange(RegistryChange<T> change);
+}
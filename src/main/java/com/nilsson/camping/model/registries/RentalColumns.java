@@ -0,0 +1,136 @@
+package com.nilsson.camping.model.registries;
+
+import com.nilsson.camping.model.Rental;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+
+/**
+ * The active rentals as columns: rental id, member id, item id, start epoch day and number of days as ints,
+ * and the daily price in öre they were booked at as a long.
+ * The columns live in direct buffers outside the Java heap, so scanning tens of millions
+ * of rows reads contiguous memory, allocates nothing and does not grow the heap.
+ * Rows are dense: removing a rental moves the last row into its place, so row order is not rental order.
+ * RentalRegistry keeps the columns in step with its rentals and only hands them out under its lock.
+ */
+public class RentalColumns {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private IntBuffer rentalIds;
+    private IntBuffer memberIds;
+    private IntBuffer itemIds;
+    private IntBuffer startDays;
+    private IntBuffer rentalDays;
+    private LongBuffer dailyPrices;
+    private int capacity;
+    private int size;
+
+    // Row of every rental, for removal.
+    private final IntIntMap rowByRentalId = new IntIntMap();
+
+    RentalColumns() {
+        allocate(INITIAL_CAPACITY);
+    }
+
+    // Number of rows.
+    public int size() {
+        return size;
+    }
+
+    public int rentalId(int row) {
+        return rentalIds.get(row);
+    }
+
+    public int memberId(int row) {
+        return memberIds.get(row);
+    }
+
+    public int itemId(int row) {
+        return itemIds.get(row);
+    }
+
+    // First day of the rental, as LocalDate.toEpochDay.
+    public int startDay(int row) {
+        return startDays.get(row);
+    }
+
+    public int rentalDays(int row) {
+        return rentalDays.get(row);
+    }
+
+    // Daily price in öre when the rental was booked, or 0 if it was booked before that was recorded.
+    public long dailyPrice(int row) {
+        return dailyPrices.get(row);
+    }
+
+    // Last day of the rental, inclusive, as an epoch day.
+    public int endDay(int row) {
+        return startDays.get(row) + rentalDays.get(row) - 1;
+    }
+
+    void add(Rental rental) {
+        if (size == capacity) {
+            allocate(capacity * 2);
+        }
+        int row = size++;
+        rentalIds.put(row, rental.getRentalId());
+        memberIds.put(row, rental.getMemberId());
+        itemIds.put(row, rental.getItemId());
+        startDays.put(row, (int) rental.getStartDate().toEpochDay());
+        rentalDays.put(row, rental.getRentalDays());
+        dailyPrices.put(row, rental.getDailyPriceOre());
+        rowByRentalId.put(rental.getRentalId(), row);
+    }
+
+    void remove(Rental rental) {
+        int row = rowByRentalId.remove(rental.getRentalId(), -1);
+        if (row < 0) {
+            return;
+        }
+        int last = --size;
+        if (row != last) {
+            rentalIds.put(row, rentalIds.get(last));
+            memberIds.put(row, memberIds.get(last));
+            itemIds.put(row, itemIds.get(last));
+            startDays.put(row, startDays.get(last));
+            rentalDays.put(row, rentalDays.get(last));
+            dailyPrices.put(row, dailyPrices.get(last));
+            rowByRentalId.put(rentalIds.get(row), row);
+        }
+    }
+
+    // Moves the columns into new buffers of the given capacity. The old buffers are freed with their garbage.
+    private void allocate(int newCapacity) {
+        rentalIds = copyOf(rentalIds, newCapacity);
+        memberIds = copyOf(memberIds, newCapacity);
+        itemIds = copyOf(itemIds, newCapacity);
+        startDays = copyOf(startDays, newCapacity);
+        rentalDays = copyOf(rentalDays, newCapacity);
+        dailyPrices = copyOf(dailyPrices, newCapacity);
+        capacity = newCapacity;
+    }
+
+    private IntBuffer copyOf(IntBuffer column, int newCapacity) {
+        IntBuffer copy = ByteBuffer.allocateDirect(newCapacity * Integer.BYTES).order(ByteOrder.nativeOrder()).asIntBuffer();
+        if (column != null) {
+            IntBuffer rows = column.duplicate();
+            rows.position(0).limit(size);
+            copy.put(rows);
+            copy.clear();
+        }
+        return copy;
+    }
+
+    private LongBuffer copyOf(LongBuffer column, int newCapacity) {
+        LongBuffer copy = ByteBuffer.allocateDirect(newCapacity * Long.BYTES).order(ByteOrder.nativeOrder()).asLongBuffer();
+        if (column != null) {
+            LongBuffer rows = column.duplicate();
+            rows.position(0).limit(size);
+            copy.put(rows);
+            copy.clear();
+        }
+        return copy;
+    }
+}
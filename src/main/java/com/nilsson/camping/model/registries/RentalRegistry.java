@@ -1,27 +1,71 @@
 package com.nilsson.camping.model.registries;
 
-import com.nilsson.camping.data.DataHandler;
+import com.nilsson.camping.data.IdAllocator;
+import com.nilsson.camping.data.Preloader;
+import com.nilsson.camping.data.Repository;
+import com.nilsson.camping.data.Storage;
+import com.nilsson.camping.data.UnitOfWork;
 import com.nilsson.camping.model.Rental;
+import com.nilsson.camping.model.items.IRentable;
+import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
 
+/**
+ * Active rentals. Safe for concurrent use: changes are made under one lock, getRentals returns an immutable
+ * snapshot that background threads can read without locking, and the queries return copies.
+ */
 public class RentalRegistry {
 
-    private List<Rental> rentals = new ArrayList<>();
-    private int lastId = 0;
+    // Active rentals by id, in booking order, so a return removes its rental without scanning.
+    private final Map<Integer, Rental> rentalsById = new LinkedHashMap<>();
+    private final Collection<Rental> rentals = rentalsById.values();
+
+    // The collection itself is the lock, as with Collections.synchronizedCollection, so a repository copying it
+    // later can lock it too.
+    private final Object lock = rentals;
+    private final Snapshot<Rental> snapshot = new Snapshot<>(lock, rentals);
+
+    // Secondary indexes, kept in step with the rentals by addRental and removeRental.
+    private final IntObjectMap<List<Rental>> rentalsByMember = new IntObjectMap<>();
+    private final IntObjectMap<List<Rental>> rentalsByItem = new IntObjectMap<>();
+    private final TreeMap<LocalDate, List<Rental>> rentalsByStartDate = new TreeMap<>();
+
+    // The same rentals as primitive columns, for scans over every rental.
+    private final RentalColumns columns = new RentalColumns();
+
+    // Booked days per item, for overlap checks.
+    private final IntObjectMap<ReservationCalendar> calendarsByItem = new IntObjectMap<>();
+
+    // Longest rental ever indexed. Bounds how far before a range an overlapping rental can start.
+    private int longestRentalDays = 1;
+
+    private final Repository<Rental> repository = Storage.rentals();
+    private final ChangeSet<Rental> changes = new ChangeSet<>();
+
+    private final ChangeNotifier<Rental> notifier = new ChangeNotifier<>();
+
+    // Bumped on every change. Each change is saved right away, so the version only decides
+    // whether an explicit save has anything new to checkpoint.
+    private long version = 0;
+    private long checkpointedVersion = 0;
 
     private RentalRegistry() {
-        loadRentalsFromDataHandler();
+        loadRentalsFromRepository();
         for (Rental r : rentals) {
-            if (r.getRentalId() > lastId) {
-                lastId = r.getRentalId();
-            }
+            IdAllocator.RENTALS.observe(r.getRentalId());
+            index(r);
         }
     }
 
+    // Returned rentals live on in the ledger, so their IDs are never reused either.
     public int getNextId() {
-        lastId++;
-        return lastId;
+        return IdAllocator.RENTALS.nextId();
     }
 
     public static RentalRegistry getInstance() {
@@ -32,29 +76,255 @@ public class RentalRegistry {
         private static final RentalRegistry INSTANCE = new RentalRegistry();
     }
 
+    // All active rentals as of the last change.
     public List<Rental> getRentals() {
-        return rentals;
+        return snapshot.get();
+    }
+
+    // Called with every rental added or removed (returned), after the change is made.
+    public void addListener(RegistryListener<Rental> listener) {
+        notifier.addListener(listener);
+    }
+
+    public void removeListener(RegistryListener<Rental> listener) {
+        notifier.removeListener(listener);
+    }
+
+    // ──────────────────────────────────────────────────────
+    //                      Queries
+    // ──────────────────────────────────────────────────────
+
+    public Rental findRentalById(int rentalId) {
+        synchronized (lock) {
+            return rentalsById.get(rentalId);
+        }
+    }
+
+    // Active rentals of one member, in the order they were added.
+    public List<Rental> rentalsForMember(int memberId) {
+        synchronized (lock) {
+            return copyOf(rentalsByMember.get(memberId));
+        }
+    }
+
+    // Active rentals of one item, in the order they were added.
+    public List<Rental> rentalsForItem(int itemId) {
+        synchronized (lock) {
+            return copyOf(rentalsByItem.get(itemId));
+        }
+    }
+
+    /**
+     * Active rentals charged for at least one day between from and to (inclusive), ordered by start date.
+     * Only rentals starting between from minus the longest rental and to are looked at.
+     */
+    public List<Rental> rentalsOverlapping(LocalDate from, LocalDate to) {
+        List<Rental> result = new ArrayList<>();
+        if (to.isBefore(from)) {
+            return result;
+        }
+        synchronized (lock) {
+            LocalDate earliestStart = from.minusDays(longestRentalDays - 1);
+            for (List<Rental> sameStart : rentalsByStartDate.subMap(earliestStart, true, to, true).values()) {
+                for (Rental rental : sameStart) {
+                    if (!endDate(rental).isBefore(from)) {
+                        result.add(rental);
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    // True if no active rental of the item covers any day from from to to, inclusive.
+    public boolean isItemFree(int itemId, LocalDate from, LocalDate to) {
+        synchronized (lock) {
+            ReservationCalendar calendar = calendarsByItem.get(itemId);
+            return calendar == null || calendar.isFree((int) from.toEpochDay(), (int) to.toEpochDay());
+        }
+    }
+
+    /**
+     * Whether a new rental of the item from from to to can be booked: no active rental covers those days,
+     * and if the booking starts today or earlier, the item is not out right now either (an overdue rental
+     * keeps it out until it is returned).
+     */
+    public boolean canBook(IRentable item, LocalDate from, LocalDate to) {
+        if (item.isRented() && !from.isAfter(LocalDate.now())) {
+            return false;
+        }
+        return isItemFree(item.getItemId(), from, to);
+    }
+
+    // The candidates that can be booked from from to to, in their original order.
+    public <T extends IRentable> List<T> bookableItems(List<T> candidates, LocalDate from, LocalDate to) {
+        List<T> result = new ArrayList<>();
+        synchronized (lock) {
+            for (T item : candidates) {
+                if (canBook(item, from, to)) {
+                    result.add(item);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Runs a scan over the active rentals as columns, under the registry's lock, so no rental is added or
+     * removed halfway through. The columns must not be kept after the reader returns.
+     */
+    public <R> R readColumns(Function<RentalColumns, R> reader) {
+        synchronized (lock) {
+            return reader.apply(columns);
+        }
     }
 
+    // Start date of the earliest active rental, or null if there are none.
+    public LocalDate getEarliestStartDate() {
+        synchronized (lock) {
+            return rentalsByStartDate.isEmpty() ? null : rentalsByStartDate.firstKey();
+        }
+    }
+
+    // Adds a rental and saves it as a single record.
     public void addRental(Rental rental) {
-        rentals.add(rental);
-        DataHandler.saveRentals(rentals);
+        UnitOfWork unitOfWork = UnitOfWork.begin();
+        addRental(rental, unitOfWork);
+        unitOfWork.commit();
+    }
+
+    // Adds a rental and stages it into a unit of work shared with other registries.
+    public void addRental(Rental rental, UnitOfWork unitOfWork) {
+        synchronized (lock) {
+            addLocked(rental, unitOfWork);
+        }
+        notifier.added(rental);
+    }
+
+    /**
+     * Adds a rental unless another active rental of the same item overlaps it. The check and the add happen
+     * under one lock, so two bookings of the same days can never both succeed.
+     * @return false if the rental overlaps an existing booking; nothing is staged then.
+     */
+    public boolean addRentalIfFree(Rental rental, UnitOfWork unitOfWork) {
+        synchronized (lock) {
+            if (!isItemFree(rental.getItemId(), rental.getStartDate(), endDate(rental))) {
+                return false;
+            }
+            addLocked(rental, unitOfWork);
+        }
+        notifier.added(rental);
+        return true;
+    }
+
+    private void addLocked(Rental rental, UnitOfWork unitOfWork) {
+        rentalsById.put(rental.getRentalId(), rental);
+        index(rental);
+        snapshot.invalidate();
+        version++;
+        changes.changed(rental.getRentalId(), rental);
+        changes.saveTo(repository, this.rentals, unitOfWork);
     }
 
+    // Removes a rental and saves the removal as a single record.
     public boolean removeRental(Rental rental) {
-        boolean removed = rentals.remove(rental);
+        UnitOfWork unitOfWork = UnitOfWork.begin();
+        boolean removed = removeRental(rental, unitOfWork);
+        unitOfWork.commit();
+        return removed;
+    }
+
+    // Removes a rental and stages the removal into a unit of work shared with other registries.
+    public boolean removeRental(Rental rental, UnitOfWork unitOfWork) {
+        boolean removed;
+        synchronized (lock) {
+            removed = rentalsById.get(rental.getRentalId()) == rental;
+            if (removed) {
+                rentalsById.remove(rental.getRentalId());
+                unindex(rental);
+                snapshot.invalidate();
+                version++;
+                changes.removed(rental.getRentalId());
+                changes.saveTo(repository, this.rentals, unitOfWork);
+            }
+        }
         if (removed) {
-            DataHandler.saveRentals(rentals);
+            notifier.removed(rental);
         }
         return removed;
     }
 
-    private void loadRentalsFromDataHandler() {
-        this.rentals = DataHandler.loadRentals();
+    private void index(Rental rental) {
+        columns.add(rental);
+        bucket(rentalsByMember, rental.getMemberId()).add(rental);
+        bucket(rentalsByItem, rental.getItemId()).add(rental);
+        rentalsByStartDate.computeIfAbsent(rental.getStartDate(), date -> new ArrayList<>(1)).add(rental);
+        longestRentalDays = Math.max(longestRentalDays, rental.getRentalDays());
+        ReservationCalendar calendar = calendarsByItem.get(rental.getItemId());
+        if (calendar == null) {
+            calendar = new ReservationCalendar();
+            calendarsByItem.put(rental.getItemId(), calendar);
+        }
+        calendar.add(rental.getRentalId(), (int) rental.getStartDate().toEpochDay(), (int) endDate(rental).toEpochDay());
+    }
+
+    private void unindex(Rental rental) {
+        columns.remove(rental);
+        removeFromBucket(rentalsByMember, rental.getMemberId(), rental);
+        removeFromBucket(rentalsByItem, rental.getItemId(), rental);
+        List<Rental> sameStart = rentalsByStartDate.get(rental.getStartDate());
+        if (sameStart != null && sameStart.remove(rental) && sameStart.isEmpty()) {
+            rentalsByStartDate.remove(rental.getStartDate());
+        }
+        ReservationCalendar calendar = calendarsByItem.get(rental.getItemId());
+        if (calendar != null && calendar.remove(rental.getRentalId(), (int) rental.getStartDate().toEpochDay())
+                && calendar.isEmpty()) {
+            calendarsByItem.remove(rental.getItemId());
+        }
+    }
+
+    private static List<Rental> bucket(IntObjectMap<List<Rental>> index, int key) {
+        List<Rental> bucket = index.get(key);
+        if (bucket == null) {
+            bucket = new ArrayList<>(2);
+            index.put(key, bucket);
+        }
+        return bucket;
+    }
+
+    private static void removeFromBucket(IntObjectMap<List<Rental>> index, int key, Rental rental) {
+        List<Rental> bucket = index.get(key);
+        if (bucket != null && bucket.remove(rental) && bucket.isEmpty()) {
+            index.remove(key);
+        }
+    }
+
+    private static List<Rental> copyOf(List<Rental> bucket) {
+        return bucket == null ? new ArrayList<>() : new ArrayList<>(bucket);
+    }
+
+    private static LocalDate endDate(Rental rental) {
+        return rental.getStartDate().plusDays(rental.getRentalDays() - 1);
+    }
+
+    private void loadRentalsFromRepository() {
+        Preloader.loadAll(repository, rental -> rentalsById.put(rental.getRentalId(), rental));
     }
 
-    // Saves the current list of all rentals to .json via the DataHandler.
+    public boolean hasUnsavedChanges() {
+        synchronized (lock) {
+            return version != checkpointedVersion;
+        }
+    }
+
+    // Folds incremental changes into the main rentals file (for JSON, the journal into rentals.json),
+    // if anything changed since the last checkpoint.
     public void saveRentals() {
-        DataHandler.saveRentals(this.rentals);
+        synchronized (lock) {
+            if (version != checkpointedVersion) {
+                repository.checkpoint(this.rentals);
+                checkpointedVersion = version;
+            }
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,86 @@
+package com.nilsson.camping.model.registries;
+
+import java.util.Arrays;
+
+/**
+ * The booked days of one item, as inclusive [first day, last day] intervals in epoch days, sorted by first day.
+ * Next to each interval is the latest last day of it and every interval before it, so "is the item free between
+ * from and to" is one binary search: the item is busy only if an interval starting on or before to ends on or
+ * after from. Bookings made before overlaps were rejected may still overlap; the running maximum covers them.
+ */
+class ReservationCalendar {
+
+    private int[] firstDays = new int[4];
+    private int[] lastDays = new int[4];
+    private int[] maxLastDays = new int[4];
+    private int[] rentalIds = new int[4];
+    private int size;
+
+    void add(int rentalId, int firstDay, int lastDay) {
+        if (size == firstDays.length) {
+            firstDays = Arrays.copyOf(firstDays, size * 2);
+            lastDays = Arrays.copyOf(lastDays, size * 2);
+            maxLastDays = Arrays.copyOf(maxLastDays, size * 2);
+            rentalIds = Arrays.copyOf(rentalIds, size * 2);
+        }
+        // Insert after every interval starting on or before the same day.
+        int at = countStartingOnOrBefore(firstDay);
+        System.arraycopy(firstDays, at, firstDays, at + 1, size - at);
+        System.arraycopy(lastDays, at, lastDays, at + 1, size - at);
+        System.arraycopy(rentalIds, at, rentalIds, at + 1, size - at);
+        firstDays[at] = firstDay;
+        lastDays[at] = lastDay;
+        rentalIds[at] = rentalId;
+        size++;
+        updateMaxLastDays(at);
+    }
+
+    // Returns false if the rental was not booked on this calendar.
+    boolean remove(int rentalId, int firstDay) {
+        // Only intervals starting on the rental's first day can be it.
+        for (int i = countStartingOnOrBefore(firstDay) - 1; i >= 0 && firstDays[i] == firstDay; i--) {
+            if (rentalIds[i] == rentalId) {
+                System.arraycopy(firstDays, i + 1, firstDays, i, size - i - 1);
+                System.arraycopy(lastDays, i + 1, lastDays, i, size - i - 1);
+                System.arraycopy(rentalIds, i + 1, rentalIds, i, size - i - 1);
+                size--;
+                updateMaxLastDays(i);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // True if no booking covers any day from firstDay to lastDay, inclusive.
+    boolean isFree(int firstDay, int lastDay) {
+        int candidates = countStartingOnOrBefore(lastDay);
+        return candidates == 0 || maxLastDays[candidates - 1] < firstDay;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    // Number of intervals whose first day is on or before the given day.
+    private int countStartingOnOrBefore(int day) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (firstDays[mid] <= day) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private void updateMaxLastDays(int from) {
+        int max = from == 0 ? Integer.MIN_VALUE : maxLastDays[from - 1];
+        for (int i = from; i < size; i++) {
+            max = Math.max(max, lastDays[i]);
+            maxLastDays[i] = max;
+        }
+    }
+}
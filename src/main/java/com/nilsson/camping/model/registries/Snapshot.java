@@ -0,0 +1,45 @@
+package com.nilsson.camping.model.registries;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * An immutable copy of a registry collection, shared by every reader until the collection changes.
+ * Writers call invalidate while holding the registry's lock. The next read copies the collection once, under
+ * the same lock; every read after that is a single volatile read, so readers on other threads never block.
+ */
+class Snapshot<T> {
+
+    private final Object lock;
+    private final Iterable<T> source;
+    private volatile List<T> copy;
+
+    Snapshot(Object lock, Iterable<T> source) {
+        this.lock = lock;
+        this.source = source;
+    }
+
+    List<T> get() {
+        List<T> current = copy;
+        if (current != null) {
+            return current;
+        }
+        synchronized (lock) {
+            current = copy;
+            if (current == null) {
+                List<T> items = new ArrayList<>();
+                for (T item : source) {
+                    items.add(item);
+                }
+                current = Collections.unmodifiableList(items);
+                copy = current;
+            }
+            return current;
+        }
+    }
+
+    void invalidate() {
+        copy = null;
+    }
+}
@@ -0,0 +1,30 @@
+package com.nilsson.camping.model.registries;
+
+import java.lang.ref.WeakReference;
+
+/**
+ * Holds another listener weakly, like JavaFX's WeakListChangeListener, so a view that is thrown away
+ * (for example when the navigation is rebuilt after a language change) does not stay subscribed.
+ * The owner has to keep a strong reference to the wrapped listener; the registry drops the wrapper
+ * once the wrapped listener has been collected.
+ */
+public class WeakRegistryListener<T> implements RegistryListener<T> {
+
+    private final WeakReference<RegistryListener<T>> listener;
+
+    public WeakRegistryListener(RegistryListener<T> listener) {
+        this.listener = new WeakReference<>(listener);
+    }
+
+    boolean wasGarbageCollected() {
+        return listener.get() == null;
+    }
+
+    @Override
+    public void onChange(RegistryChange<T> change) {
+        RegistryListener<T> target = listener.get();
+        if (target != null) {
+            target.onChange(change);
+        }
+    }
+}
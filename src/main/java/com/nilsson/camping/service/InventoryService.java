@@ -1,7 +1,7 @@
 package com.nilsson.camping.service;
 
 import com.nilsson.camping.app.LanguageManager;
-import com.nilsson.camping.data.DataHandler;
+import com.nilsson.camping.data.WriteMetrics;
 import com.nilsson.camping.model.items.Gear;
 import com.nilsson.camping.model.items.IRentable;
 import com.nilsson.camping.model.items.RecreationalVehicle;
@@ -29,6 +29,7 @@ public class InventoryService {
 
             RecreationalVehicle newVehicleData = result.get();
             Inventory inventory = Inventory.getInstance();
+            WriteMetrics.beginAction("Add vehicle");
 
             // Add to registry
             inventory.addRecreationalVehicle(newVehicleData);
@@ -61,7 +62,9 @@ public class InventoryService {
         if (result.isPresent()) {
             RecreationalVehicle updatedRecreationalVehicle = result.get();
 
-            DataHandler.saveRecreationalVehicle(Inventory.getInstance().getRecreationalVehicleList());
+            WriteMetrics.beginAction("Edit vehicle");
+            Inventory.getInstance().markChanged(selectedRecreationalVehicle);
+            Inventory.getInstance().saveChanges();
 
             UIUtil.showInfoAlert(
                     LanguageManager.getInstance().getString("msg.vehicleUpdated"),
@@ -76,6 +79,7 @@ public class InventoryService {
             return false;
         }
 
+        WriteMetrics.beginAction("Remove vehicle");
         Inventory.getInstance().removeRecreationalVehicle(selectedRecreationalVehicle);
         UIUtil.showInfoAlert(
                 LanguageManager.getInstance().getString("msg.vehicleRemoved"),
@@ -100,6 +104,7 @@ public class InventoryService {
 
             Gear newGearData = result.get();
             Inventory inventory = Inventory.getInstance();
+            WriteMetrics.beginAction("Add gear");
 
             // Add to registry
             inventory.addGear(newGearData);
@@ -131,7 +136,9 @@ public class InventoryService {
         if (result.isPresent()) {
             Gear updatedGear = result.get();
 
-            DataHandler.saveGear(Inventory.getInstance().getGearList());
+            WriteMetrics.beginAction("Edit gear");
+            Inventory.getInstance().markChanged(selectedGear);
+            Inventory.getInstance().saveChanges();
 
             UIUtil.showInfoAlert(
                     LanguageManager.getInstance().getString("msg.gearAdded"),
@@ -146,6 +153,7 @@ public class InventoryService {
             return false;
         }
 
+        WriteMetrics.beginAction("Remove gear");
         boolean wasRemoved = Inventory.getInstance().removeGear(selectedGear);
 
         if (wasRemoved) {
@@ -195,15 +203,8 @@ public class InventoryService {
         return null;
     }
 
-    // Saves both the Recreational Vehicles list and the Gear list by calling the DataHandler methods.
+    // Saves the Recreational Vehicles list and the Gear list, skipping whichever has not changed since its last save.
     public void saveAllInventory() {
-
-        Inventory inventory = Inventory.getInstance();
-
-        // Save Vehicles
-        DataHandler.saveRecreationalVehicle(inventory.getAvailableRecreationalVehicleList());
-
-        // Save Gear
-        DataHandler.saveGear(inventory.getAvailableGearList());
+        Inventory.getInstance().saveChanges();
     }
 }
\ No newline at end of file
@@ -1,7 +1,7 @@
 package com.nilsson.camping.service;
 
 import com.nilsson.camping.app.LanguageManager;
-import com.nilsson.camping.data.DataHandler;
+import com.nilsson.camping.data.WriteMetrics;
 import com.nilsson.camping.model.Member;
 import com.nilsson.camping.model.registries.MemberRegistry;
 import com.nilsson.camping.ui.UIUtil;
@@ -34,6 +34,7 @@ public class MembershipService {
             );
 
             // Add to registry
+            WriteMetrics.beginAction("Add member");
             registry.addMember(newMember);
 
             // Show success confirmation
@@ -64,7 +65,9 @@ public class MembershipService {
         if (result.isPresent()) {
             Member updatedMember = result.get();
 
-            DataHandler.saveMembers(MemberRegistry.getInstance().getMembers());
+            WriteMetrics.beginAction("Edit member");
+            MemberRegistry.getInstance().markChanged(selectedMember);
+            MemberRegistry.getInstance().saveChanges();
 
             UIUtil.showInfoAlert(
                     LanguageManager.getInstance().getString("msg.memberUpdated"),
@@ -85,6 +88,7 @@ public class MembershipService {
         }
 
         // Call the Registry's remove method.
+        WriteMetrics.beginAction("Remove member");
         boolean wasRemoved = MemberRegistry.getInstance().removeMember(selectedMember);
 
         if (wasRemoved) {
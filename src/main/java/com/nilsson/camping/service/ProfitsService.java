@@ -1,32 +1,50 @@
 package com.nilsson.camping.service;
 
-import com.nilsson.camping.model.policies.IPricePolicy;
-import com.nilsson.camping.model.policies.PremiumPricePolicy;
-import com.nilsson.camping.model.policies.StandardPricePolicy;
-import com.nilsson.camping.model.policies.StudentPricePolicy;
-import com.nilsson.camping.data.ProfitsHandler;
+import com.nilsson.camping.data.RentalLedger;
+import com.nilsson.camping.data.UnitOfWork;
+import com.nilsson.camping.model.CompletedRental;
 import com.nilsson.camping.model.DailyProfit;
 import com.nilsson.camping.model.Member;
+import com.nilsson.camping.model.Money;
 import com.nilsson.camping.model.Rental;
 import com.nilsson.camping.model.items.IRentable;
 import com.nilsson.camping.model.registries.Inventory;
 import com.nilsson.camping.model.registries.MemberRegistry;
+import com.nilsson.camping.model.registries.MembershipTiers;
+import com.nilsson.camping.model.registries.PricingRules;
+import com.nilsson.camping.model.registries.ProfitsRegistry;
+import com.nilsson.camping.model.registries.RegistryChange;
+import com.nilsson.camping.model.registries.RegistryListener;
 import com.nilsson.camping.model.registries.RentalRegistry;
+import com.nilsson.camping.model.registries.WeakRegistryListener;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Comparator;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
 
 public class ProfitsService {
 
     private final RentalRegistry rentalRegistry = RentalRegistry.getInstance();
     private final Inventory inventory = Inventory.getInstance();
     private final MemberRegistry memberRegistry = MemberRegistry.getInstance();
-    private final ObservableList<DailyProfit> dailyProfits = FXCollections.observableArrayList(ProfitsHandler.loadProfits());
+    private final ProfitsRegistry profitsRegistry = ProfitsRegistry.getInstance();
+    private final MembershipTiers membershipTiers = MembershipTiers.getInstance();
+    private final PricingRules pricingRules = PricingRules.getInstance();
+    private final QuoteCache quoteCache = new QuoteCache(pricingRules);
+    private final ObservableList<DailyProfit> dailyProfits =
+            FXCollections.observableArrayList(profitsRegistry.getDailyProfits());
+
+    // Keeps dailyProfits in step with the registry one day at a time. Held here, registered weakly,
+    // so the registry does not keep a discarded service alive.
+    private final RegistryListener<DailyProfit> profitsListener = this::applyProfitChange;
+
+    public ProfitsService() {
+        profitsRegistry.addListener(new WeakRegistryListener<>(profitsListener));
+    }
 
     public ObservableList<DailyProfit> getObservableDailyProfits() {
         return dailyProfits;
@@ -36,65 +54,158 @@ public class ProfitsService {
         return dailyProfits;
     }
 
-    // Total income.
-    public double calculateTotalIncome() {
-        return rentalRegistry.getRentals().stream()
-                .mapToDouble(this::calculateRentalRevenue)
-                .sum();
+    // Total income in öre, from active rentals and the completed ones in the ledger.
+    // The active rentals are priced in batches from the rental columns.
+    public long calculateTotalIncome() {
+        RentalRates rates = currentRates();
+        long[] revenues = rentalRegistry.readColumns(rates::revenues);
+        long active = 0;
+        for (long revenue : revenues) {
+            active += revenue;
+        }
+        return RentalLedger.totalRevenue() + active;
     }
 
-    // Income today.
-    public double getIncomeToday() {
+    // Daily profits between two dates (inclusive), in date order.
+    public List<DailyProfit> getProfitsBetween(LocalDate from, LocalDate to) {
+        List<DailyProfit> profits = new ArrayList<>();
+        for (DailyProfit profit : dailyProfits) {
+            if (!profit.getDate().isBefore(from) && !profit.getDate().isAfter(to)) {
+                profits.add(profit);
+            }
+        }
+        profits.sort(Comparator.comparing(DailyProfit::getDate));
+        return profits;
+    }
+
+    // Income today, in öre.
+    public long getIncomeToday() {
         return dailyProfits.stream()
                 .filter(p -> p.getDate().isEqual(LocalDate.now()))
-                .mapToDouble(DailyProfit::getIncome)
+                .mapToLong(DailyProfit::getIncomeOre)
                 .findFirst()
-                .orElse(0.0);
+                .orElse(0);
+    }
+
+
+    // Applies one changed day to dailyProfits, which is kept in date order like the registry.
+    private void applyProfitChange(RegistryChange<DailyProfit> change) {
+        DailyProfit profit = change.getEntity();
+        int index = Collections.binarySearch(dailyProfits, profit, Comparator.comparing(DailyProfit::getDate));
+        if (change.isRemoved()) {
+            if (index >= 0) {
+                dailyProfits.remove(index);
+            }
+        } else if (index >= 0) {
+            dailyProfits.set(index, profit);
+        } else {
+            dailyProfits.add(-index - 1, profit);
+        }
+    }
+
+    /**
+     * Adds a new rental's income to its days, staged into the rental's unit of work.
+     * Only the rental's own days change, so nothing else is recalculated.
+     */
+    public void addRentalIncome(Rental rental, UnitOfWork unitOfWork) {
+        long dailyPrice = bookedDailyPrice(rental);
+        if (dailyPrice == RentalRates.NO_PRICE) {
+            System.err.println("ProfitsService: Skipped rental " + rental.getRentalId() +
+                    " due to unknown item ID " + rental.getItemId());
+            return;
+        }
+        profitsRegistry.addIncome(rental.getStartDate(), rental.getRentalDays(), dailyPrice, unitOfWork);
     }
 
+    /**
+     * The daily price in öre a rental is charged in the daily profits: the price it was booked at, so editing the
+     * item later changes neither its days nor its ledger entry. Rentals booked before the price was recorded use
+     * the item's current price, and RentalRates.NO_PRICE if the item is gone.
+     */
+    public long bookedDailyPrice(Rental rental) {
+        if (rental.getDailyPriceOre() > 0) {
+            return rental.getDailyPriceOre();
+        }
+        IRentable item = (IRentable) inventory.findItemById(rental.getItemId());
+        return item != null ? item.getDailyPriceOre() : RentalRates.NO_PRICE;
+    }
 
     public void recalculateProfitsFromRentals() {
+        UnitOfWork unitOfWork = UnitOfWork.begin();
+        recalculateProfitsFromRentals(unitOfWork);
+        unitOfWork.commit();
+    }
 
-        Map<LocalDate, Double> profitsMap = new HashMap<>();
+    /**
+     * Recalculates profits and stages the save into a unit of work, so it commits together with the rental that caused it.
+     * Only days from the earliest active rental onwards can change: they are rebuilt from the active rentals and the
+     * ledger entries overlapping them. Earlier days hold completed rentals only and are kept as they are.
+     */
+    public void recalculateProfitsFromRentals(UnitOfWork unitOfWork) {
 
-        for (Rental rental : rentalRegistry.getRentals()) {
+        LocalDate windowStart = rentalRegistry.getEarliestStartDate();
 
-            IRentable item = (IRentable) inventory.findItemById(rental.getItemId());
-            if (item == null) {
-                System.err.println("ProfitsService: Skipped rental " + rental.getRentalId() +
-                        " due to unknown item ID " + rental.getItemId());
-                continue;
+        List<DailyProfit> newProfits = new ArrayList<>();
+        for (DailyProfit profit : profitsRegistry.getDailyProfits()) {
+            if (windowStart == null || profit.getDate().isBefore(windowStart)) {
+                newProfits.add(profit);
             }
+        }
+
+        if (windowStart != null) {
+            DayTotals totals = new DayTotals(windowStart.toEpochDay());
 
-            double dailyPrice = item.getDailyPrice();
-            LocalDate startDate = rental.getStartDate();
-            LocalDate endDate = startDate.plusDays(rental.getRentalDays() - 1);
-
-            // Iterate through every day of the rental.
-            LocalDate currentDay = startDate;
-            while (!currentDay.isAfter(endDate)) {
-                // Add the daily price to the map for the specific date.
-                profitsMap.put(
-                        currentDay,
-                        profitsMap.getOrDefault(currentDay, 0.0) + dailyPrice
-                );
-                currentDay = currentDay.plusDays(1);
+            // Completed rentals keep the daily price they were charged.
+            RentalLedger.forEachInRange(windowStart, LocalDate.MAX, completed ->
+                    totals.add(completed.getStartDate().toEpochDay(), completed.getRentalDays(), completed.getDailyPriceOre()));
+
+            // Active rentals are read straight from the rental columns, one row at a time, at the price they were booked at.
+            RentalRates rates = currentRates();
+            int skipped = rentalRegistry.readColumns(columns -> {
+                int unknown = 0;
+                for (int row = 0; row < columns.size(); row++) {
+                    if (!rates.hasItem(columns.itemId(row))) {
+                        unknown++;
+                        continue;
+                    }
+                    totals.add(columns.startDay(row), columns.rentalDays(row),
+                            rates.dailyPrice(columns.itemId(row), columns.dailyPrice(row)));
+                }
+                return unknown;
+            });
+            if (skipped > 0) {
+                System.err.println("ProfitsService: Skipped " + skipped + " rentals due to unknown item IDs");
             }
+
+            totals.addTo(newProfits);
         }
+        newProfits.sort(Comparator.comparing(DailyProfit::getDate));
 
-        // Convert the map to a list of DailyProfit
-        List<DailyProfit> newProfits = profitsMap.entrySet().stream()
-                .map(entry -> new DailyProfit(entry.getKey(), entry.getValue()))
-                .sorted(Comparator.comparing(DailyProfit::getDate))
-                .collect(Collectors.toList());
+        // Nothing to update or save if the rentals produced the same profits as last time.
+        if (sameProfits(profitsRegistry.getDailyProfits(), newProfits)) {
+            return;
+        }
 
-        // Update the observable list and save
-        dailyProfits.setAll(newProfits);
-        ProfitsHandler.saveProfits(dailyProfits);
+        // Save the days that changed; the registry's change events update dailyProfits.
+        profitsRegistry.replaceAll(newProfits, unitOfWork);
+    }
+
+    private boolean sameProfits(List<DailyProfit> current, List<DailyProfit> recalculated) {
+        if (current.size() != recalculated.size()) {
+            return false;
+        }
+        for (int i = 0; i < current.size(); i++) {
+            DailyProfit a = current.get(i);
+            DailyProfit b = recalculated.get(i);
+            if (!a.getDate().isEqual(b.getDate()) || a.getIncomeOre() != b.getIncomeOre()) {
+                return false;
+            }
+        }
+        return true;
     }
 
-    // Revenue for a specific rental.
-    public double calculateRentalRevenue(Rental rental) {
+    // Revenue for a specific rental, in öre, at the daily price it was booked at.
+    public long calculateRentalRevenue(Rental rental) {
 
         IRentable item = (IRentable) inventory.findItemById(rental.getItemId());
         if (item == null) {
@@ -103,48 +214,127 @@ public class ProfitsService {
             return 0;
         }
 
-        // Check membership level
-        Member member = memberRegistry.findMemberById(rental.getMemberId());
-        String level = (member != null) ? member.getMembershipLevel() : "Standard";
-
-        // Which pricing policy to use
-        IPricePolicy policy;
-        double dailyRate = item.getDailyPrice();
-
-        switch (level) {
-            case "Student":
-                policy = new StudentPricePolicy(dailyRate);
-                break;
-            case "Premium":
-                policy = new PremiumPricePolicy(dailyRate);
-                break;
-            default:
-                policy = new StandardPricePolicy(dailyRate);
-                break;
-        }
-        return policy.calculatePrice(rental.getRentalDays());
+        long dailyPrice = rental.getDailyPriceOre() > 0 ? rental.getDailyPriceOre() : item.getDailyPriceOre();
+        return quote(memberRegistry.findMemberById(rental.getMemberId()), item,
+                rental.getStartDate(), rental.getRentalDays(), dailyPrice);
+    }
+
+    /**
+     * What the member would pay, in öre, to rent the item for the given days. Quotes are remembered until the
+     * item is edited, so repeated quotes for the same rental cost a lookup.
+     * The member's tier and the item's type decide the price; a null member pays the standard price.
+     */
+    public long quote(Member member, IRentable item, LocalDate startDate, int days) {
+        return quote(member, item, startDate, days, item.getDailyPriceOre());
+    }
+
+    // The same quote at a given daily price in öre, such as the one a rental was booked at.
+    public long quote(Member member, IRentable item, LocalDate startDate, int days, long dailyPrice) {
+        String level = (member != null) ? member.getMembershipLevel() : MembershipTiers.DEFAULT_TIER;
+        return quoteCache.quote(item, level, startDate, days, dailyPrice);
+    }
+
+    private RentalRates currentRates() {
+        return RentalRates.of(inventory.getAllItems(), memberRegistry.getMembers(), membershipTiers, pricingRules);
     }
 
-    // Revenue from a specific member (by memberId).
-    public double calculateMemberRevenue(int memberId) {
-        return rentalRegistry.getRentals().stream()
-                .filter(r -> r.getMemberId() == memberId)
-                .mapToDouble(this::calculateRentalRevenue)
+    // Revenue from a specific member (by memberId), active and completed rentals.
+    public long calculateMemberRevenue(int memberId) {
+        long[] completed = new long[1];
+        RentalLedger.forEachInRange(LocalDate.MIN, LocalDate.MAX, entry -> {
+            if (entry.getMemberId() == memberId) {
+                completed[0] += entry.getRevenueOre();
+            }
+        });
+        return completed[0] + activeMemberRevenue(memberId);
+    }
+
+    private long activeMemberRevenue(int memberId) {
+        return rentalRegistry.rentalsForMember(memberId).stream()
+                .mapToLong(this::calculateRentalRevenue)
                 .sum();
     }
 
-    // Revenue per member.
+    // Revenue per member. The ledger and the rental columns are each read once for all members.
     public String generateMemberRevenueReport() {
+        List<Member> members = memberRegistry.getMembers();
+        RentalRates rates = RentalRates.of(inventory.getAllItems(), members, membershipTiers, pricingRules);
+        long[] revenueByMember = new long[members.size()];
+
+        RentalLedger.forEachInRange(LocalDate.MIN, LocalDate.MAX, (CompletedRental entry) -> {
+            int index = rates.memberPosition(entry.getMemberId());
+            if (index >= 0) {
+                revenueByMember[index] += entry.getRevenueOre();
+            }
+        });
+
+        rentalRegistry.readColumns(columns -> {
+            long[] revenues = rates.revenues(columns);
+            for (int row = 0; row < columns.size(); row++) {
+                int index = rates.memberPosition(columns.memberId(row));
+                if (index >= 0) {
+                    revenueByMember[index] += revenues[row];
+                }
+            }
+            return null;
+        });
+
         StringBuilder sb = new StringBuilder();
 
-        for (Member member : memberRegistry.getMembers()) {
-            double revenue = calculateMemberRevenue(member.getId());
-            sb.append(String.format("%s %s: %.2f SEK%n",
-                    member.getFirstName(),
-                    member.getLastName(),
-                    revenue));
+        for (int i = 0; i < members.size(); i++) {
+            Member member = members.get(i);
+            sb.append(member.getFirstName()).append(' ')
+                    .append(member.getLastName()).append(": ")
+                    .append(Money.format(revenueByMember[i])).append(" SEK")
+                    .append(System.lineSeparator());
         }
 
         return sb.toString();
     }
-}
\ No newline at end of file
+
+    // ──────────────────────────────────────────────────────
+    //                  Day Totals
+    // ──────────────────────────────────────────────────────
+
+    /**
+     * Income in öre per day from a start day onwards, in a plain array indexed by days since the start.
+     * Days before the start are skipped; days no rental covers produce no DailyProfit.
+     */
+    private static class DayTotals {
+
+        private final long firstDay;
+        private long[] income = new long[64];
+        private boolean[] touched = new boolean[64];
+        private int length;
+
+        DayTotals(long firstDay) {
+            this.firstDay = firstDay;
+        }
+
+        void add(long startDay, int rentalDays, long dailyPrice) {
+            long from = Math.max(startDay, firstDay) - firstDay;
+            long to = startDay + rentalDays - firstDay;
+            if (to <= from) {
+                return;
+            }
+            if (to > income.length) {
+                int newLength = (int) Math.max(to, (long) income.length * 2);
+                income = Arrays.copyOf(income, newLength);
+                touched = Arrays.copyOf(touched, newLength);
+            }
+            for (int day = (int) from; day < to; day++) {
+                income[day] += dailyPrice;
+                touched[day] = true;
+            }
+            length = (int) Math.max(length, to);
+        }
+
+        void addTo(List<DailyProfit> profits) {
+            for (int day = 0; day < length; day++) {
+                if (touched[day]) {
+                    profits.add(new DailyProfit(LocalDate.ofEpochDay(firstDay + day), income[day]));
+                }
+            }
+        }
+    }
+}
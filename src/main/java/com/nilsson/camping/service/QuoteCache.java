@@ -0,0 +1,121 @@
+package com.nilsson.camping.service;
+
+import com.nilsson.camping.model.items.IRentable;
+import com.nilsson.camping.model.items.Item;
+import com.nilsson.camping.model.registries.Inventory;
+import com.nilsson.camping.model.registries.PricingRules;
+import com.nilsson.camping.model.registries.RegistryChange;
+import com.nilsson.camping.model.registries.RegistryListener;
+import com.nilsson.camping.model.registries.WeakRegistryListener;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers price quotes by item, membership tier, number of days, start date and daily price, so table cells and the
+ * new-rental preview do not price the same rental again on every refresh. The daily price is part of the key, since
+ * active rentals are priced at the rate they were booked at while new bookings use the item's current rate.
+ * Every quote remembers the item type it was made with, since the type picks the pricing rules,
+ * and is only used while the item still has it, so a quote made while the item was being edited is never served.
+ * Editing or removing an item also drops its quotes. The pricing rules themselves do not change while the app runs.
+ * A member whose level is edited simply looks up quotes under the new tier.
+ */
+class QuoteCache {
+
+    // Dropped all at once when reached; quotes are cheap to make again.
+    private static final int MAX_QUOTES = 10_000;
+
+    private final PricingRules pricingRules;
+    private final Map<QuoteKey, Quote> quotes = new ConcurrentHashMap<>();
+
+    // Registered weakly, so the inventory does not keep a discarded cache alive.
+    private final RegistryListener<Item> itemListener = this::applyItemChange;
+
+    QuoteCache(PricingRules pricingRules) {
+        this.pricingRules = pricingRules;
+        Inventory.getInstance().addListener(new WeakRegistryListener<>(itemListener));
+    }
+
+    // The price in öre of renting the item at the given membership level, at its current daily price.
+    long quote(IRentable item, String level, LocalDate startDate, int days) {
+        return quote(item, level, startDate, days, item.getDailyPriceOre());
+    }
+
+    // The price in öre of renting the item at the given membership level and daily price in öre.
+    long quote(IRentable item, String level, LocalDate startDate, int days, long dailyPrice) {
+        QuoteKey key = new QuoteKey(item.getItemId(), level, days, startDate.toEpochDay(), dailyPrice);
+        String itemType = item.getItemType();
+        Quote quote = quotes.get(key);
+        if (quote == null || !quote.isFor(itemType)) {
+            long price = pricingRules.policyFor(level, itemType)
+                    .calculatePrice(dailyPrice, (int) startDate.toEpochDay(), days);
+            if (quotes.size() >= MAX_QUOTES) {
+                quotes.clear();
+            }
+            quote = new Quote(itemType, price);
+            quotes.put(key, quote);
+        }
+        return quote.price;
+    }
+
+    // Drops the quotes of an item that was edited or removed. Any field may feed the price, so all of them are dropped.
+    private void applyItemChange(RegistryChange<Item> change) {
+        if (change.isAdded()) {
+            return;
+        }
+        int itemId = change.getEntity().getItemId();
+        quotes.keySet().removeIf(key -> key.itemId == itemId);
+    }
+
+    private static final class QuoteKey {
+
+        private final int itemId;
+        private final String level;
+        private final int days;
+        private final long startEpochDay;
+        private final long dailyPrice;
+
+        QuoteKey(int itemId, String level, int days, long startEpochDay, long dailyPrice) {
+            this.itemId = itemId;
+            this.level = level;
+            this.days = days;
+            this.startEpochDay = startEpochDay;
+            this.dailyPrice = dailyPrice;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof QuoteKey)) {
+                return false;
+            }
+            QuoteKey other = (QuoteKey) o;
+            return itemId == other.itemId && days == other.days && startEpochDay == other.startEpochDay
+                    && dailyPrice == other.dailyPrice && Objects.equals(level, other.level);
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = itemId;
+            hash = 31 * hash + days;
+            hash = 31 * hash + Long.hashCode(startEpochDay);
+            hash = 31 * hash + Long.hashCode(dailyPrice);
+            return 31 * hash + Objects.hashCode(level);
+        }
+    }
+
+    private static final class Quote {
+
+        private final String itemType;
+        private final long price;
+
+        Quote(String itemType, long price) {
+            this.itemType = itemType;
+            this.price = price;
+        }
+
+        boolean isFor(String itemType) {
+            return Objects.equals(this.itemType, itemType);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.nilsson.camping.service;
+
+import com.nilsson.camping.data.UnitOfWork;
+import com.nilsson.camping.model.items.IRentable;
+import com.nilsson.camping.model.items.Item;
+import com.nilsson.camping.model.registries.Inventory;
+import com.nilsson.camping.model.registries.RentalRegistry;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the items' rented flags in step with the calendar. A booking that starts after today only holds the
+ * item's calendar when it is made, so nothing else takes the item out on the day it starts.
+ * The flags are reconciled from the active rentals' start dates once the data is loaded and again just after every midnight.
+ */
+public class RentalDayService {
+
+    private static final ScheduledExecutorService TIMER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "RentalDayTimer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static boolean started = false;
+
+    private RentalDayService() {
+
+    }
+
+    // Reconciles now and then after every midnight. Called once the registries are loaded; later calls do nothing.
+    public static synchronized void start() {
+        if (started) {
+            return;
+        }
+        started = true;
+        TIMER.execute(RentalDayService::reconcileToday);
+    }
+
+    private static void reconcileToday() {
+        try {
+            int changed = reconcile(LocalDate.now());
+            if (changed > 0) {
+                System.out.println("INFO: Updated the rented state of " + changed + " items for " + LocalDate.now() + ".");
+            }
+        } catch (RuntimeException e) {
+            System.err.println("ERROR: Could not update rented items: " + e.getMessage());
+            e.printStackTrace();
+        } finally {
+            // Scheduled one day at a time, so a clock change or a late wake-up never skips a day.
+            LocalDateTime now = LocalDateTime.now();
+            long untilMidnight = Duration.between(now, now.toLocalDate().plusDays(1).atStartOfDay()).toMillis();
+            TIMER.schedule(RentalDayService::reconcileToday, untilMidnight + 1000, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Marks every item with an active rental that has started by the given day as rented, and every other item as
+     * available. Only the collections of items that changed are saved, as one unit of work.
+     * @return The number of items whose rented state changed.
+     */
+    public static int reconcile(LocalDate today) {
+        long todayEpochDay = today.toEpochDay();
+        Set<Integer> outItemIds = RentalRegistry.getInstance().readColumns(columns -> {
+            Set<Integer> ids = new HashSet<>();
+            for (int row = 0; row < columns.size(); row++) {
+                if (columns.startDay(row) <= todayEpochDay) {
+                    ids.add(columns.itemId(row));
+                }
+            }
+            return ids;
+        });
+
+        Inventory inventory = Inventory.getInstance();
+        int changed = 0;
+        for (Item item : inventory.getAllItems()) {
+            IRentable rentable = (IRentable) item;
+            if (inventory.setRented(rentable, outItemIds.contains(rentable.getItemId()))) {
+                changed++;
+            }
+        }
+
+        if (changed > 0) {
+            UnitOfWork unitOfWork = UnitOfWork.begin();
+            inventory.saveChanges(unitOfWork);
+            unitOfWork.commit();
+        }
+        return changed;
+    }
+}
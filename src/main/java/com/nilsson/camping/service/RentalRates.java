@@ -0,0 +1,177 @@
+package com.nilsson.camping.service;
+
+import com.nilsson.camping.model.Member;
+import com.nilsson.camping.model.items.Item;
+import com.nilsson.camping.model.policies.IPricePolicy;
+import com.nilsson.camping.model.items.IRentable;
+import com.nilsson.camping.model.registries.MembershipTiers;
+import com.nilsson.camping.model.registries.PricingRules;
+import com.nilsson.camping.model.registries.RentalColumns;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The daily price in öre of every item, its price policy for every membership tier and every member's tier, in arrays indexed by id.
+ * Built once per scan, so a scan over millions of rental rows looks up prices without locks or boxing.
+ * Item and member ids are handed out sequentially, so the arrays stay about as long as the number of items and members.
+ * Items of the same type share their policies, so re-pricing every rental takes one batch per distinct policy.
+ */
+class RentalRates {
+
+    // What dailyPrice returns for an id that is not an item.
+    static final long NO_PRICE = Long.MIN_VALUE;
+
+    private final int firstItemId;
+    private final long[] dailyPrices;
+    // Policy of item slot i for tier slot t at distinctPolicies[policyIndex[i * tierSlots + t]].
+    private final int[] policyIndex;
+    private final IPricePolicy[] distinctPolicies;
+    private final int tierSlots;
+    private final int firstMemberId;
+    private final int[] memberTiers;
+    private final int[] memberPositions;
+    private final int defaultTier;
+
+    private RentalRates(List<Item> items, List<Member> members, MembershipTiers tiers, PricingRules rules) {
+        // One slot per tier, and a last one for levels that are not a tier.
+        List<String> tierNames = tiers.getTierNames();
+        tierSlots = tierNames.size() + 1;
+        // Unknown members pay the standard price, as in ProfitsService.calculateRentalRevenue.
+        defaultTier = tierSlot(tierNames, MembershipTiers.DEFAULT_TIER);
+
+        int minItemId = Integer.MAX_VALUE;
+        int maxItemId = Integer.MIN_VALUE;
+        for (Item item : items) {
+            minItemId = Math.min(minItemId, item.getItemId());
+            maxItemId = Math.max(maxItemId, item.getItemId());
+        }
+        firstItemId = minItemId;
+        dailyPrices = new long[items.isEmpty() ? 0 : maxItemId - minItemId + 1];
+        Arrays.fill(dailyPrices, NO_PRICE);
+        policyIndex = new int[dailyPrices.length * tierSlots];
+        Map<IPricePolicy, Integer> indexByPolicy = new IdentityHashMap<>();
+        for (Item item : items) {
+            int slot = item.getItemId() - firstItemId;
+            dailyPrices[slot] = item.getDailyPriceOre();
+            String itemType = ((IRentable) item).getItemType();
+            for (int tier = 0; tier < tierSlots; tier++) {
+                String level = tier < tierNames.size() ? tierNames.get(tier) : null;
+                IPricePolicy policy = rules.policyFor(level, itemType);
+                Integer index = indexByPolicy.get(policy);
+                if (index == null) {
+                    index = indexByPolicy.size();
+                    indexByPolicy.put(policy, index);
+                }
+                policyIndex[slot * tierSlots + tier] = index;
+            }
+        }
+        distinctPolicies = new IPricePolicy[indexByPolicy.size()];
+        for (Map.Entry<IPricePolicy, Integer> entry : indexByPolicy.entrySet()) {
+            distinctPolicies[entry.getValue()] = entry.getKey();
+        }
+
+        int minMemberId = Integer.MAX_VALUE;
+        int maxMemberId = Integer.MIN_VALUE;
+        for (Member member : members) {
+            minMemberId = Math.min(minMemberId, member.getId());
+            maxMemberId = Math.max(maxMemberId, member.getId());
+        }
+        firstMemberId = minMemberId;
+        memberTiers = new int[members.isEmpty() ? 0 : maxMemberId - minMemberId + 1];
+        memberPositions = new int[memberTiers.length];
+        Arrays.fill(memberTiers, defaultTier);
+        Arrays.fill(memberPositions, -1);
+        for (int i = 0; i < members.size(); i++) {
+            Member member = members.get(i);
+            memberTiers[member.getId() - firstMemberId] = tierSlot(tierNames, member.getMembershipLevel());
+            memberPositions[member.getId() - firstMemberId] = i;
+        }
+    }
+
+    static RentalRates of(List<Item> items, List<Member> members, MembershipTiers tiers, PricingRules rules) {
+        return new RentalRates(items, members, tiers, rules);
+    }
+
+    boolean hasItem(int itemId) {
+        return dailyPrice(itemId) != NO_PRICE;
+    }
+
+    // The item's daily price in öre, or NO_PRICE if there is no such item.
+    long dailyPrice(int itemId) {
+        int slot = itemId - firstItemId;
+        return slot >= 0 && slot < dailyPrices.length ? dailyPrices[slot] : NO_PRICE;
+    }
+
+    // Position of the member in the list the rates were built from, or -1 if there is no such member.
+    int memberPosition(int memberId) {
+        int slot = memberId - firstMemberId;
+        return slot >= 0 && slot < memberPositions.length ? memberPositions[slot] : -1;
+    }
+
+    // The daily price in öre a rental is charged: the one it was booked at, or the item's current one if it has none.
+    long dailyPrice(int itemId, long bookedDailyPrice) {
+        return bookedDailyPrice > 0 ? bookedDailyPrice : dailyPrice(itemId);
+    }
+
+    /**
+     * What every active rental pays, in öre, indexed by row, at the daily price it was booked at; rentals booked
+     * before that was recorded pay the item's current price. Rows whose item is gone get 0.
+     * The rows are sorted by price policy and each policy prices its rows in one calculatePrices batch.
+     */
+    long[] revenues(RentalColumns columns) {
+        int rows = columns.size();
+        int[] policyOfRow = new int[rows];
+        int[] groupStarts = new int[distinctPolicies.length + 1];
+        for (int row = 0; row < rows; row++) {
+            int itemSlot = columns.itemId(row) - firstItemId;
+            if (itemSlot < 0 || itemSlot >= dailyPrices.length || dailyPrices[itemSlot] == NO_PRICE) {
+                policyOfRow[row] = -1;
+                continue;
+            }
+            int memberSlot = columns.memberId(row) - firstMemberId;
+            int tier = memberSlot >= 0 && memberSlot < memberTiers.length ? memberTiers[memberSlot] : defaultTier;
+            policyOfRow[row] = policyIndex[itemSlot * tierSlots + tier];
+            groupStarts[policyOfRow[row] + 1]++;
+        }
+        for (int policy = 0; policy < distinctPolicies.length; policy++) {
+            groupStarts[policy + 1] += groupStarts[policy];
+        }
+
+        long[] revenues = new long[rows];
+        int[] filled = Arrays.copyOf(groupStarts, distinctPolicies.length);
+        int[] rowAt = new int[groupStarts[distinctPolicies.length]];
+        for (int row = 0; row < rows; row++) {
+            if (policyOfRow[row] >= 0) {
+                rowAt[filled[policyOfRow[row]]++] = row;
+            }
+        }
+        for (int policy = 0; policy < distinctPolicies.length; policy++) {
+            int size = groupStarts[policy + 1] - groupStarts[policy];
+            if (size == 0) {
+                continue;
+            }
+            long[] rates = new long[size];
+            int[] days = new int[size];
+            int[] startDays = new int[size];
+            for (int i = 0; i < size; i++) {
+                int row = rowAt[groupStarts[policy] + i];
+                rates[i] = dailyPrice(columns.itemId(row), columns.dailyPrice(row));
+                days[i] = columns.rentalDays(row);
+                startDays[i] = columns.startDay(row);
+            }
+            long[] prices = new long[size];
+            distinctPolicies[policy].calculatePrices(rates, days, startDays, prices);
+            for (int i = 0; i < size; i++) {
+                revenues[rowAt[groupStarts[policy] + i]] = prices[i];
+            }
+        }
+        return revenues;
+    }
+
+    private static int tierSlot(List<String> tierNames, String level) {
+        int index = tierNames.indexOf(level);
+        return index >= 0 ? index : tierNames.size();
+    }
+}
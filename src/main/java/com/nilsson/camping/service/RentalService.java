@@ -1,13 +1,18 @@
 package com.nilsson.camping.service;
 
-import com.nilsson.camping.data.DataHandler;
+import com.nilsson.camping.data.RentalLedger;
+import com.nilsson.camping.data.UnitOfWork;
+import com.nilsson.camping.data.WriteMetrics;
+import com.nilsson.camping.model.CompletedRental;
 import com.nilsson.camping.model.Member;
 import com.nilsson.camping.model.Rental;
 import com.nilsson.camping.model.items.IRentable;
 import com.nilsson.camping.model.registries.Inventory;
+import com.nilsson.camping.model.registries.ItemQuery;
 import com.nilsson.camping.model.registries.MemberRegistry;
 import com.nilsson.camping.model.registries.RentalRegistry;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
 
 public class RentalService {
@@ -15,13 +20,27 @@ public class RentalService {
     private final RentalRegistry rentalRegistry = RentalRegistry.getInstance();
     private final Inventory inventory = Inventory.getInstance();
     private final MemberRegistry memberRegistry = MemberRegistry.getInstance();
+    private final ProfitsService profitsService;
 
-    // New Rental
+    // Profits are updated as part of every new rental, so they commit in the same unit of work.
+    public RentalService(ProfitsService profitsService) {
+        this.profitsService = profitsService;
+    }
+
+    // New Rental. Rejected if the item is already booked for any of the days, or is out right now and the rental starts today.
     public boolean handleNewRental(Member member, IRentable item, LocalDate startDate, int rentalDays) {
-        if (member == null || item == null || rentalDays <= 0) {
+        if (member == null || item == null || startDate == null || rentalDays <= 0) {
+            return false;
+        }
+
+        LocalDate endDate = startDate.plusDays(rentalDays - 1);
+        if (!rentalRegistry.canBook(item, startDate, endDate)) {
+            System.out.println("INFO: " + item.getItemName() + " is already booked between " + startDate + " and " + endDate + ".");
             return false;
         }
 
+        WriteMetrics.beginAction("New rental");
+
         int newRentalId = rentalRegistry.getNextId();
 
         Rental rental = new Rental(
@@ -32,40 +51,75 @@ public class RentalService {
                 rentalDays
         );
 
-        // Mark item as rented.
-        item.setRented(true);
-
-        // Add to registry.
-        rentalRegistry.getRentals().add(rental);
+        // Journal entry, changed inventory collection and profits are committed as one unit.
+        UnitOfWork unitOfWork = UnitOfWork.begin();
+        if (!rentalRegistry.addRentalIfFree(rental, unitOfWork)) {
+            // Another booking of the same days got in first.
+            System.out.println("INFO: " + item.getItemName() + " was booked between " + startDate + " and " + endDate + " in the meantime.");
+            return false;
+        }
 
-        // Save Rentals and Inventory.
-        DataHandler.saveRentals(rentalRegistry.getRentals());
-        DataHandler.saveRecreationalVehicle(inventory.getRecreationalVehicleList());
-        DataHandler.saveGear(inventory.getGearList());
+        // A rental starting today or earlier takes the item out now. Later bookings only hold its calendar
+        // until RentalDayService takes the item out on their first day.
+        // Only the item's own collection becomes dirty.
+        if (!startDate.isAfter(LocalDate.now())) {
+            inventory.setRented(item, true);
+        }
+        inventory.saveChanges(unitOfWork);
+        profitsService.addRentalIncome(rental, unitOfWork);
+        unitOfWork.commit();
 
         return true;
     }
 
+    // Vehicles and gear of the given type (all types if null) that can be rented from startDate to endDate.
+    public List<IRentable> findFreeItems(String type, LocalDate startDate, LocalDate endDate) {
+        ItemQuery query = new ItemQuery().type(type);
+        List<IRentable> result = new ArrayList<>();
+        result.addAll(rentalRegistry.bookableItems(inventory.findRecreationalVehicles(query), startDate, endDate));
+        result.addAll(rentalRegistry.bookableItems(inventory.findGear(query), startDate, endDate));
+        return result;
+    }
+
     // Return Rental
     public boolean handleReturnRental(Rental rental) {
         if (rental == null) return false;
 
+        WriteMetrics.beginAction("Return rental");
+
         IRentable item = (IRentable) inventory.findItemById(rental.getItemId());
+
+        // Journal entry, ledger entry and changed inventory collection are committed as one unit.
+        UnitOfWork unitOfWork = UnitOfWork.begin();
+        boolean removed = rentalRegistry.removeRental(rental, unitOfWork);
         if (item != null) {
-            item.setRented(false);
+            // The item stays out if another of its bookings has already started.
+            inventory.setRented(item, hasStartedRental(item.getItemId()));
         }
-
-        // Remove rental
-        boolean removed = rentalRegistry.getRentals().remove(rental);
-
-        // Save Rentals and Inventory.
-        DataHandler.saveRentals(rentalRegistry.getRentals());
-        DataHandler.saveRecreationalVehicle(inventory.getRecreationalVehicleList());
-        DataHandler.saveGear(inventory.getGearList());
+        inventory.saveChanges(unitOfWork);
+        if (removed) {
+            // The returned rental keeps its income in the ledger instead of vanishing from the history.
+            // Its daily price and revenue there are both at the price it was booked at, so the daily profits
+            // and income totals stay as they are even if the item was re-priced in the meantime.
+            long dailyPrice = Math.max(profitsService.bookedDailyPrice(rental), 0);
+            RentalLedger.record(new CompletedRental(rental, dailyPrice,
+                    profitsService.calculateRentalRevenue(rental), LocalDate.now()), unitOfWork);
+        }
+        unitOfWork.commit();
 
         return removed;
     }
 
+    private boolean hasStartedRental(int itemId) {
+        LocalDate today = LocalDate.now();
+        for (Rental other : rentalRegistry.rentalsForItem(itemId)) {
+            if (!other.getStartDate().isAfter(today)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     // Get all rentals.
     public List<Rental> getAllRentals() {
         return rentalRegistry.getRentals();
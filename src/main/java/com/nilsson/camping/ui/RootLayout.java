@@ -1,5 +1,6 @@
 package com.nilsson.camping.ui;
 
+import com.nilsson.camping.app.UserSession;
 import com.nilsson.camping.ui.views.HomeView;
 import javafx.scene.Node;
 import javafx.scene.layout.BorderPane;
@@ -45,8 +46,10 @@ public class RootLayout extends BorderPane {
         // Initialize the global theme tracker, start in Dark-mode
         currentThemeUrl = getClass().getResource(DARK_THEME_CSS).toExternalForm();
 
-        // Initialize Side Navigation and set default content
-        refreshSideNavigation();
+        // Side Navigation builds every view, so it waits for login; the preload is still running before then.
+        if (UserSession.isLoggedIn()) {
+            refreshSideNavigation();
+        }
         setContent(new HomeView());
     }
 
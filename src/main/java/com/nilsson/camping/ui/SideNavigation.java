@@ -45,8 +45,8 @@ public class SideNavigation extends VBox {
         // Initialize ProfitsView
         this.profitsView = new ProfitsView();
 
-        // Initialize RentalView, passing the update method from ProfitsView
-        this.rentalView = new RentalView(this.profitsView::updateView);
+        // Initialize RentalView. Both views follow the registries' change events.
+        this.rentalView = new RentalView();
 
 
         // Apply CSS class for the side navigation container
@@ -105,7 +105,7 @@ public class SideNavigation extends VBox {
         Button btnProfits = createNavButton(LanguageManager.getInstance().getString("nav.profits"), FontAwesome.MONEY);
         btnProfits.setOnAction(e -> {
             rootLayout.setContent(profitsView);
-            profitsView.updateView();
+            profitsView.refreshDisplay();
             setActiveButton(btnProfits);
         });
 
@@ -1,6 +1,7 @@
 package com.nilsson.camping.ui;
 
 import com.nilsson.camping.app.LanguageManager;
+import javafx.application.Platform;
 import javafx.scene.Node;
 import javafx.scene.control.*;
 import javafx.scene.layout.GridPane;
@@ -23,6 +24,18 @@ public class UIUtil {
     private static double xOffset = 0;
     private static double yOffset = 0;
 
+    /**
+     * Runs the action on the JavaFX thread: right away if already on it, otherwise as soon as possible.
+     * Registry listeners use it, since registries notify on the thread that made the change.
+     */
+    public static void runOnFxThread(Runnable action) {
+        if (Platform.isFxApplicationThread()) {
+            action.run();
+        } else {
+            Platform.runLater(action);
+        }
+    }
+
     /**
      * Applies the custom theme (retrieved from RootLayout), removes the title bar (undecorated style),
      * and adds drag functionality to any JavaFX Dialog or Alert.
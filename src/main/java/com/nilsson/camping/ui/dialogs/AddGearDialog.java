@@ -81,9 +81,7 @@ public class AddGearDialog extends Dialog<Gear> {
             if (dialogButton == addButtonType) {
 
                 // New ID.
-                int nextId = Inventory.getInstance().getAllItems().stream()
-                        .mapToInt(i -> i.getItemId())
-                        .max().orElse(9999) + 1;
+                int nextId = Inventory.getInstance().getNextItemId();
 
                 return new Gear(
                         nextId,
@@ -94,9 +94,7 @@ public class AddVehicleDialog extends Dialog<RecreationalVehicle> {
             if (dialogButton == addButtonType) {
 
                 // New ID.
-                int nextId = Inventory.getInstance().getAllItems().stream()
-                        .mapToInt(v -> v.getItemId())
-                        .max().orElse(9999) + 1;
+                int nextId = Inventory.getInstance().getNextItemId();
 
                 return new RecreationalVehicle(
                         nextId,
@@ -2,6 +2,7 @@ package com.nilsson.camping.ui.dialogs;
 
 import com.nilsson.camping.app.LanguageManager;
 import com.nilsson.camping.model.Member;
+import com.nilsson.camping.model.registries.MembershipTiers;
 import com.nilsson.camping.ui.UIUtil;
 import javafx.application.Platform;
 import javafx.geometry.Insets;
@@ -18,9 +19,7 @@ public class EditMemberDialog extends Dialog<Member> {
     private final TextField lastNameField = new TextField();
     private final ComboBox<String> levelBox = new ComboBox<>();
 
-    private static final String DEFAULT_LEVEL = "Standard";
-    private static final String PREMIUM_LEVEL = "Premium";
-    private static final String STUDENT_LEVEL = "Student";
+    private static final String DEFAULT_LEVEL = MembershipTiers.DEFAULT_TIER;
 
     private final Member memberToEdit;
 
@@ -48,7 +47,8 @@ public class EditMemberDialog extends Dialog<Member> {
         GridPane grid = createGridPane();;
 
         // ComboBox
-        levelBox.getItems().addAll(DEFAULT_LEVEL, PREMIUM_LEVEL, STUDENT_LEVEL);
+        // The tiers come from tiers.json
+        levelBox.getItems().addAll(MembershipTiers.getInstance().getTierNames());
         levelBox.setValue(DEFAULT_LEVEL);
         levelBox.setMaxWidth(Double.MAX_VALUE);
 
@@ -2,11 +2,15 @@ package com.nilsson.camping.ui.dialogs;
 
 import com.nilsson.camping.app.LanguageManager;
 import com.nilsson.camping.model.Member;
+import com.nilsson.camping.model.Money;
 import com.nilsson.camping.model.NewRentalResult;
 import com.nilsson.camping.model.items.Gear;
+import com.nilsson.camping.model.items.IRentable;
 import com.nilsson.camping.model.items.RecreationalVehicle;
 import com.nilsson.camping.model.registries.Inventory;
 import com.nilsson.camping.model.registries.MemberRegistry;
+import com.nilsson.camping.model.registries.RentalRegistry;
+import com.nilsson.camping.service.ProfitsService;
 import com.nilsson.camping.ui.UIUtil;
 import javafx.application.Platform;
 import javafx.geometry.Insets;
@@ -23,11 +27,15 @@ public class NewRentalDialog extends Dialog<NewRentalResult> {
     private final ComboBox<RecreationalVehicle> vehicleBox = new ComboBox<>();
     private final DatePicker startDatePicker = new DatePicker(LocalDate.now());
     private final TextField daysField = new TextField();
+    private final Label quoteLabel = new Label();
+    private final ProfitsService profitsService;
 
     private static final String TYPE_GEAR = LanguageManager.getInstance().getString("txt.newRentalTypeGear");
     private static final String TYPE_VEHICLE = LanguageManager.getInstance().getString("txt.newRentalTypeVehicle");
 
-    public NewRentalDialog() {
+    // Quotes come from the caller's ProfitsService, so the preview and the rental table share its quote cache.
+    public NewRentalDialog(ProfitsService profitsService) {
+        this.profitsService = profitsService;
 
         setTitle(LanguageManager.getInstance().getString("txt.newRentalTitle"));
         setHeaderText(LanguageManager.getInstance().getString("txt.newRentalHeader"));
@@ -101,6 +109,10 @@ public class NewRentalDialog extends Dialog<NewRentalResult> {
         // Days
         daysField.setPromptText(LanguageManager.getInstance().getString("txt.daysPrompt"));
 
+        // Only offer items that are free for the chosen days.
+        startDatePicker.valueProperty().addListener((obs, oldV, newV) -> reloadBookableItems());
+        daysField.textProperty().addListener((obs, oldV, newV) -> reloadBookableItems());
+
         // Layout
         grid.add(new Label(LanguageManager.getInstance().getString("table.member")), 0, 0);
         grid.add(memberBox, 1, 0);
@@ -120,12 +132,23 @@ public class NewRentalDialog extends Dialog<NewRentalResult> {
         grid.add(new Label(LanguageManager.getInstance().getString("txt.numberOfDays")), 0, 5);
         grid.add(daysField, 1, 5);
 
+        grid.add(new Label(LanguageManager.getInstance().getString("txt.quote")), 0, 6);
+        grid.add(quoteLabel, 1, 6);
+
         getDialogPane().setContent(grid);
 
         // Toggle which item combo is active
         updateItemComboVisibility();
         itemTypeBox.valueProperty().addListener((obs, oldV, newV) -> updateItemComboVisibility());
 
+        // Live price while the member, item or period changes.
+        memberBox.valueProperty().addListener((obs, oldV, newV) -> updateQuote());
+        gearBox.valueProperty().addListener((obs, oldV, newV) -> updateQuote());
+        vehicleBox.valueProperty().addListener((obs, oldV, newV) -> updateQuote());
+        startDatePicker.valueProperty().addListener((obs, oldV, newV) -> updateQuote());
+        daysField.textProperty().addListener((obs, oldV, newV) -> updateQuote());
+        updateQuote();
+
         // Focus
         Platform.runLater(memberBox::requestFocus);
 
@@ -204,10 +227,54 @@ public class NewRentalDialog extends Dialog<NewRentalResult> {
     }
 
     private void loadAvailableGear() {
-        gearBox.getItems().setAll(Inventory.getInstance().getAvailableGearList());
+        gearBox.getItems().setAll(RentalRegistry.getInstance().bookableItems(
+                Inventory.getInstance().getGearList(), bookingStart(), bookingEnd()));
     }
 
     private void loadAvailableVehicles() {
-        vehicleBox.getItems().setAll(Inventory.getInstance().getAvailableRecreationalVehicleList());
+        vehicleBox.getItems().setAll(RentalRegistry.getInstance().bookableItems(
+                Inventory.getInstance().getRecreationalVehicleList(), bookingStart(), bookingEnd()));
+    }
+
+    // Reloads both item lists for the current dates, keeping the selections that are still free.
+    private void reloadBookableItems() {
+        Gear selectedGear = gearBox.getValue();
+        RecreationalVehicle selectedVehicle = vehicleBox.getValue();
+        loadAvailableGear();
+        loadAvailableVehicles();
+        gearBox.setValue(gearBox.getItems().contains(selectedGear) ? selectedGear : null);
+        vehicleBox.setValue(vehicleBox.getItems().contains(selectedVehicle) ? selectedVehicle : null);
+    }
+
+    // Shows the price of the rental as entered so far, or a dash until member, item and days are all set.
+    private void updateQuote() {
+        IRentable item = TYPE_GEAR.equals(itemTypeBox.getValue()) ? gearBox.getValue() : vehicleBox.getValue();
+        int days = enteredDays();
+        if (memberBox.getValue() == null || item == null || days <= 0) {
+            quoteLabel.setText("-");
+            return;
+        }
+        long price = profitsService.quote(memberBox.getValue(), item, bookingStart(), days);
+        quoteLabel.setText(Money.formatGrouped(price) + " SEK");
+    }
+
+    // The number of days entered, or 0 while the field is empty or not a number.
+    private int enteredDays() {
+        try {
+            return Integer.parseInt(daysField.getText().trim());
+        } catch (NumberFormatException ex) {
+            return 0;
+        }
+    }
+
+    private LocalDate bookingStart() {
+        return startDatePicker.getValue() != null ? startDatePicker.getValue() : LocalDate.now();
+    }
+
+    // Last day of the booking; a single day until a valid number of days is entered.
+    private LocalDate bookingEnd() {
+        // Keep one day while the field is empty or being edited.
+        int days = Math.max(1, enteredDays());
+        return bookingStart().plusDays(days - 1);
     }
-}
\ No newline at end of file
+}
@@ -1,8 +1,13 @@
 package com.nilsson.camping.ui.views;
 
 import com.nilsson.camping.app.LanguageManager;
+import com.nilsson.camping.model.items.Item;
 import com.nilsson.camping.model.items.Gear;
 import com.nilsson.camping.model.registries.Inventory;
+import com.nilsson.camping.model.registries.ItemQuery;
+import com.nilsson.camping.model.registries.RegistryChange;
+import com.nilsson.camping.model.registries.RegistryListener;
+import com.nilsson.camping.model.registries.WeakRegistryListener;
 import com.nilsson.camping.service.InventoryService;
 import com.nilsson.camping.ui.UIUtil;
 import com.nilsson.camping.ui.dialogs.ShowAllGearDialog;
@@ -18,7 +23,9 @@ import javafx.scene.layout.HBox;
 import javafx.scene.layout.Priority;
 import javafx.scene.layout.VBox;
 
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 public class GearView extends VBox {
 
@@ -26,8 +33,14 @@ public class GearView extends VBox {
     private final ObservableList<Gear> masterData = FXCollections.observableArrayList();
     private final InventoryService inventoryService = new InventoryService();
     private final TextField searchField = new TextField();
+    private final ComboBox<String> typeFilter = new ComboBox<>();
+    private final TextField minCapacityField = new TextField();
+    private final TextField maxPriceField = new TextField();
     private FilteredList<Gear> filteredData;
 
+    // Applies inventory changes to the table one item at a time. Registered weakly, so a discarded view is not kept alive.
+    private final RegistryListener<Item> itemListener = change -> UIUtil.runOnFxThread(() -> applyItemChange(change));
+
     public GearView() {
 
         // Apply CSS
@@ -43,6 +56,7 @@ public class GearView extends VBox {
         // Search Field Setup
         searchField.setPromptText(LanguageManager.getInstance().getString("txt.searchGear"));
         searchField.setMaxWidth(315);
+        HBox filterBar = createFilterBar();
 
         // TableView
         loadMasterData();
@@ -51,7 +65,9 @@ public class GearView extends VBox {
         HBox buttonBar = createButtonBar();
 
         // Add all sections to the main VBox
-        this.getChildren().addAll(title, buttonBar, searchField, gearTable);
+        this.getChildren().addAll(title, buttonBar, filterBar, gearTable);
+
+        Inventory.getInstance().addListener(new WeakRegistryListener<>(itemListener));
     }
 
     @SuppressWarnings("unchecked")
@@ -85,30 +101,11 @@ public class GearView extends VBox {
         // Filtering using Streams
         filteredData = new FilteredList<>(masterData, p -> true);
 
-        // Set the filter predicate when the search field text changes.
-        searchField.textProperty().addListener((observable, oldValue, newValue) -> {
-            filteredData.setPredicate(gear -> {
-                // If the search field is empty, display all gear.
-                if (newValue == null || newValue.isEmpty()) {
-                    return true;
-                }
-
-                String lowerCaseFilter = newValue.toLowerCase();
-
-                // Check if search string matches
-                if (gear.getModel().toLowerCase().contains(lowerCaseFilter)) {
-                    return true;
-                } else if (gear.getCapacity().toLowerCase().contains(lowerCaseFilter)) {
-                    return true;
-                } else if (gear.getType().toLowerCase().contains(lowerCaseFilter)) {
-                    return true;
-                } else if (String.valueOf(gear.getDailyPrice()).contains(lowerCaseFilter)) {
-                    return true;
-                }
-                // No match found.
-                return false;
-            });
-        });
+        // Re-apply the filters when the search text or any facet changes.
+        searchField.textProperty().addListener((observable, oldValue, newValue) -> applyFilters());
+        typeFilter.valueProperty().addListener((observable, oldValue, newValue) -> applyFilters());
+        minCapacityField.textProperty().addListener((observable, oldValue, newValue) -> applyFilters());
+        maxPriceField.textProperty().addListener((observable, oldValue, newValue) -> applyFilters());
 
         // Wrap the FilteredList in a SortedList to ensure sorting works with filtering.
         SortedList<Gear> sortedData = new SortedList<>(filteredData);
@@ -120,6 +117,98 @@ public class GearView extends VBox {
         gearTable.setItems(sortedData);
     }
 
+    // Combines the facet query, answered by the inventory's facet indexes, with the free-text search.
+    private void applyFilters() {
+        String typeValue = typeFilter.getValue();
+        ItemQuery query = new ItemQuery()
+                .type(typeValue == null || typeValue.equals(LanguageManager.getInstance().getString("txt.allTypes")) ? null : typeValue)
+                .minCapacity(parseInteger(minCapacityField.getText()))
+                .maxPrice(parseDouble(maxPriceField.getText()));
+        Set<Gear> facetMatches = new HashSet<>(Inventory.getInstance().findGear(query));
+        String searchText = searchField.getText();
+
+        filteredData.setPredicate(gear -> facetMatches.contains(gear) && matchesSearchText(gear, searchText));
+    }
+
+    private boolean hasFacetFilter() {
+        String typeValue = typeFilter.getValue();
+        boolean typeSet = typeValue != null && !typeValue.equals(LanguageManager.getInstance().getString("txt.allTypes"));
+        return typeSet || !minCapacityField.getText().trim().isEmpty()
+                || !maxPriceField.getText().trim().isEmpty();
+    }
+
+    private boolean matchesSearchText(Gear gear, String searchText) {
+        // If the search field is empty, display all gear.
+        if (searchText == null || searchText.isEmpty()) {
+            return true;
+        }
+
+        String lowerCaseFilter = searchText.toLowerCase();
+
+        // Check if search string matches
+        return gear.getModel().toLowerCase().contains(lowerCaseFilter)
+                || gear.getType().toLowerCase().contains(lowerCaseFilter);
+    }
+
+    // Unparseable or empty facet fields leave that facet unset.
+    private static Integer parseInteger(String text) {
+        try {
+            return text == null || text.trim().isEmpty() ? null : Integer.valueOf(text.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static Double parseDouble(String text) {
+        try {
+            return text == null || text.trim().isEmpty() ? null : Double.valueOf(text.trim().replace(',', '.'));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    // Search field plus the type, capacity and price facets.
+    private HBox createFilterBar() {
+        String allTypes = LanguageManager.getInstance().getString("txt.allTypes");
+        typeFilter.getItems().addAll(allTypes,
+                LanguageManager.getInstance().getString("txt.tent"),
+                LanguageManager.getInstance().getString("txt.backpack"),
+                LanguageManager.getInstance().getString("txt.otherGear"));
+        typeFilter.setValue(allTypes);
+
+        minCapacityField.setPromptText(LanguageManager.getInstance().getString("txt.minCapacity"));
+        minCapacityField.setMaxWidth(140);
+        maxPriceField.setPromptText(LanguageManager.getInstance().getString("txt.maxPrice"));
+        maxPriceField.setMaxWidth(140);
+
+        HBox filterBar = new HBox(10, searchField, typeFilter, minCapacityField, maxPriceField);
+        filterBar.setAlignment(Pos.CENTER_LEFT);
+        return filterBar;
+    }
+
+    // The table lists available items only: an item leaves it when rented or removed and comes back when returned.
+    private void applyItemChange(RegistryChange<Item> change) {
+        if (!(change.getEntity() instanceof Gear)) {
+            return;
+        }
+        Gear gear = (Gear) change.getEntity();
+        int index = masterData.indexOf(gear);
+        boolean listed = !change.isRemoved() && !gear.isRented();
+        if (!listed) {
+            if (index >= 0) {
+                masterData.remove(index);
+            }
+        } else if (index >= 0) {
+            masterData.set(index, gear);
+        } else {
+            masterData.add(gear);
+        }
+        // The facet matches were computed before this change.
+        if (hasFacetFilter()) {
+            applyFilters();
+        }
+    }
+
     // Load vehicle data from the registry into the ObservableList.
     private void loadMasterData() {
         List<Gear> gearList = Inventory.getInstance().getAvailableGearList();
@@ -127,11 +216,8 @@ public class GearView extends VBox {
     }
 
     private void handleAddGear() {
-        Gear newGear = inventoryService.handleAddGear();
-
-        if (newGear != null) {
-            masterData.add(newGear);
-        }
+        // The inventory reports the new item, which adds the row.
+        inventoryService.handleAddGear();
     }
 
     private void handleEditGear() {
@@ -145,16 +231,8 @@ public class GearView extends VBox {
                     LanguageManager.getInstance().getString("error.pleaseSelectEditItem"));
             return;
         }
+        // The inventory reports the edit, which updates the row.
         inventoryService.handleEditGear(selectedGear);
-
-        // Refresh the TableView.
-        refreshTable();
-    }
-
-    // Utility method to force the TableView to refresh its content
-    private void refreshTable() {
-        gearTable.getColumns().get(0).setVisible(false);
-        gearTable.getColumns().get(0).setVisible(true);
     }
 
     private void handleRemoveGear() {
@@ -176,11 +254,9 @@ public class GearView extends VBox {
                         selectedGear.getModel() + "?");
 
         if (confirmed) {
+            // The inventory reports the removal, which removes the row.
             boolean wasRemovedFromRegistry = inventoryService.handleRemoveGear(selectedGear);
-
-            if (wasRemovedFromRegistry) {
-                masterData.remove(selectedGear);
-            } else {
+            if (!wasRemovedFromRegistry) {
                 UIUtil.showErrorAlert(
                         LanguageManager.getInstance().getString("error.removalFailed"),
                         LanguageManager.getInstance().getString("error.operationError"),
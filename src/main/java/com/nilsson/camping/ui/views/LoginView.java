@@ -1,5 +1,6 @@
 package com.nilsson.camping.ui.views;
 
+import com.nilsson.camping.data.PersistenceQueue;
 import com.nilsson.camping.ui.UIUtil;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
@@ -9,6 +10,7 @@ import javafx.scene.image.ImageView;
 import javafx.scene.layout.VBox;
 import javafx.stage.Stage;
 import com.nilsson.camping.ui.RootLayout;
+import com.nilsson.camping.app.StartupLoader;
 import com.nilsson.camping.app.UserSession;
 import org.kordamp.ikonli.fontawesome.FontAwesome;
 import org.kordamp.ikonli.javafx.FontIcon;
@@ -80,6 +82,7 @@ public class LoginView extends VBox {
         exitButton.setOnAction(e -> {
             // Perform UserSession cleanup before closing
             UserSession.logout();
+            PersistenceQueue.flush();
             primaryStage.close();
         });
         exitButton.setGraphic(new FontIcon(FontAwesome.POWER_OFF));
@@ -136,6 +139,9 @@ public class LoginView extends VBox {
 
                 if (rootLayout != null) {
 
+                    // Make sure the preloaded registries are published before the views use them
+                    StartupLoader.awaitReady();
+
                     // Refresh SideNavigation
                     rootLayout.refreshSideNavigation();
 
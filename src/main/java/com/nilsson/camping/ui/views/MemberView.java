@@ -3,6 +3,9 @@ package com.nilsson.camping.ui.views;
 import com.nilsson.camping.app.LanguageManager;
 import com.nilsson.camping.model.Member;
 import com.nilsson.camping.model.registries.MemberRegistry;
+import com.nilsson.camping.model.registries.RegistryChange;
+import com.nilsson.camping.model.registries.RegistryListener;
+import com.nilsson.camping.model.registries.WeakRegistryListener;
 import com.nilsson.camping.service.MembershipService;
 import com.nilsson.camping.ui.UIUtil;
 import com.nilsson.camping.ui.dialogs.HistoryDialog;
@@ -17,6 +20,7 @@ import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.Priority;
 import javafx.scene.layout.VBox;
+import java.util.Arrays;
 import java.util.List;
 
 public class MemberView extends VBox {
@@ -27,6 +31,9 @@ public class MemberView extends VBox {
     private final TextField searchField = new TextField();
     private FilteredList<Member> filteredData;
 
+    // Applies registry changes to the table one member at a time. Registered weakly, so a discarded view is not kept alive.
+    private final RegistryListener<Member> memberListener = change -> UIUtil.runOnFxThread(() -> applyMemberChange(change));
+
     public MemberView() {
 
         // Apply CSS and Layout
@@ -51,6 +58,8 @@ public class MemberView extends VBox {
 
         // Add all sections to the main VBox
         this.getChildren().addAll(title, buttonBar, searchField, memberTable);
+
+        MemberRegistry.getInstance().addListener(new WeakRegistryListener<>(memberListener));
     }
 
     @SuppressWarnings("unchecked")
@@ -81,33 +90,11 @@ public class MemberView extends VBox {
         memberTable.setItems(masterMemberData);
         memberTable.setColumnResizePolicy(TableView.CONSTRAINED_RESIZE_POLICY);
 
-        // Filtering using Streams
+        // Filtering through the registry's search index
         filteredData = new FilteredList<>(masterMemberData, p -> true);
 
         // Set the filter predicate when the search field text changes.
-        searchField.textProperty().addListener((observable, oldValue, newValue) -> {
-            filteredData.setPredicate(member -> {
-                // If the search field is empty, display all members.
-                if (newValue == null || newValue.isEmpty()) {
-                    return true;
-                }
-
-                String lowerCaseFilter = newValue.toLowerCase();
-
-                // Check if search string matches
-                if (member.getFirstName().toLowerCase().contains(lowerCaseFilter)) {
-                    return true;
-                } else if (member.getLastName().toLowerCase().contains(lowerCaseFilter)) {
-                    return true;
-                } else if (member.getMembershipLevel().toLowerCase().contains(lowerCaseFilter)) {
-                    return true;
-                } else if (String.valueOf(member.getId()).contains(lowerCaseFilter)) {
-                    return true;
-                }
-                // No match found.
-                return false;
-            });
-        });
+        searchField.textProperty().addListener((observable, oldValue, newValue) -> applySearch(newValue));
 
         // Wrap the FilteredList in a SortedList to ensure sorting works with filtering.
         SortedList<Member> sortedData = new SortedList<>(filteredData);
@@ -119,6 +106,37 @@ public class MemberView extends VBox {
         memberTable.setItems(sortedData);
     }
 
+    private void applySearch(String query) {
+        // If the search field is empty, display all members.
+        if (query == null || query.isEmpty()) {
+            filteredData.setPredicate(member -> true);
+            return;
+        }
+
+        // Matches first name, last name, membership level and ID, ignoring case.
+        int[] matchingIds = MemberRegistry.getInstance().searchMemberIds(query);
+        filteredData.setPredicate(member -> Arrays.binarySearch(matchingIds, member.getId()) >= 0);
+    }
+
+    // Adds, removes or replaces the one member that changed, and re-runs an active search, which may now match differently.
+    private void applyMemberChange(RegistryChange<Member> change) {
+        Member member = change.getEntity();
+        int index = masterMemberData.indexOf(member);
+        if (change.isRemoved()) {
+            if (index >= 0) {
+                masterMemberData.remove(index);
+            }
+        } else if (index >= 0) {
+            masterMemberData.set(index, member);
+        } else {
+            masterMemberData.add(member);
+        }
+        String query = searchField.getText();
+        if (query != null && !query.isEmpty()) {
+            applySearch(query);
+        }
+    }
+
     // Loads member data from the registry into the ObservableList.
     private void loadMasterData() {
         List<Member> members = MemberRegistry.getInstance().getMembers();
@@ -136,16 +154,8 @@ public class MemberView extends VBox {
                     LanguageManager.getInstance().getString("error.pleaseSelectEditItem"));
             return;
         }
+        // The registry reports the edit, which updates the row.
         membershipService.handleEditMember(selectedMember);
-
-        // Refresh the TableView.
-        refreshTable();
-    }
-
-    // Utility method to force the TableView to refresh its content
-    private void refreshTable() {
-        memberTable.getColumns().get(0).setVisible(false);
-        memberTable.getColumns().get(0).setVisible(true);
     }
 
     // Removing a member, involving both the Service and UI update.
@@ -168,10 +178,9 @@ public class MemberView extends VBox {
                         selectedMember.getFirstName() + "?");
 
         if (confirmed) {
+            // The registry reports the removal, which removes the row.
             boolean wasRemovedFromRegistry = membershipService.removeMemberFromRegistry(selectedMember);
-            if (wasRemovedFromRegistry) {
-                masterMemberData.remove(selectedMember);
-            } else {
+            if (!wasRemovedFromRegistry) {
                 UIUtil.showErrorAlert(
                         LanguageManager.getInstance().getString("confirm.removal"),
                         LanguageManager.getInstance().getString("error.operationError"),
@@ -202,14 +211,8 @@ public class MemberView extends VBox {
 
         Button btnAdd = new Button(LanguageManager.getInstance().getString("btn.addMember"));
         btnAdd.getStyleClass().add("action-button");
-        btnAdd.setOnAction(actionEvent -> {
-            Member newMember = membershipService.handleAddMember();
-
-            // Check if the member was successfully created and added
-            if (newMember != null) {
-                masterMemberData.add(newMember);
-            }
-        });
+        // The registry reports a new member, which adds the row.
+        btnAdd.setOnAction(actionEvent -> membershipService.handleAddMember());
 
         Button btnEdit = new Button(LanguageManager.getInstance().getString("btn.editMember"));
         btnEdit.getStyleClass().add("action-button");
@@ -2,6 +2,10 @@ package com.nilsson.camping.ui.views;
 
 import com.nilsson.camping.app.LanguageManager;
 import com.nilsson.camping.model.DailyProfit;
+import com.nilsson.camping.model.Money;
+import com.nilsson.camping.model.registries.ProfitsRegistry;
+import com.nilsson.camping.model.registries.RegistryListener;
+import com.nilsson.camping.model.registries.WeakRegistryListener;
 import com.nilsson.camping.service.ProfitsService;
 import javafx.application.Platform;
 import javafx.beans.binding.Bindings;
@@ -19,7 +23,6 @@ import javafx.scene.layout.HBox;
 import javafx.scene.layout.VBox;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
-import java.util.Comparator;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -33,6 +36,10 @@ public class ProfitsView extends VBox {
     private final Label totalLabelValue = new Label(); // Made field for dynamic update
     private final XYChart.Series<String, Number> profitSeries = new XYChart.Series<>();
 
+    // A rental changes several days at once; their change events are redrawn together, once.
+    private boolean redrawPending;
+    private final RegistryListener<DailyProfit> profitsListener = change -> scheduleRedraw();
+
     public ProfitsView() {
 
         // Apply CSS and Layout
@@ -68,7 +75,7 @@ public class ProfitsView extends VBox {
         // Live binding for Today's Income
         incomeTodayValueLabel.textProperty().bind(
                 Bindings.createStringBinding(() ->
-                        String.format("%,.2f SEK", profitsService.getIncomeToday()), profitsService.getObservableDailyProfits()
+                        Money.formatGrouped(profitsService.getIncomeToday()) + " SEK", profitsService.getObservableDailyProfits()
                 )
         );
 
@@ -79,13 +86,21 @@ public class ProfitsView extends VBox {
 
         // Add all to layout
         this.getChildren().addAll(title, incomeTodayBox, totalIncomeBox, refreshBtn, incomeChart);
+
+        // Registered weakly, so a discarded view is not kept alive.
+        ProfitsRegistry.getInstance().addListener(new WeakRegistryListener<>(profitsListener));
     }
 
-    // Logic for updating all stats and the chart data.
+    // Recalculates all profits from the rentals and the ledger, then redraws. Rental changes update the profits on their own.
     public void updateView() {
         // Recalculate and save the profits based on current rentals
         profitsService.recalculateProfitsFromRentals();
 
+        refreshDisplay();
+    }
+
+    // Redraws the stats and the chart from the current profits, e.g. when the view is shown on a new day.
+    public void refreshDisplay() {
         // Update the total income display
         updateTotalIncomeDisplay();
 
@@ -93,25 +108,33 @@ public class ProfitsView extends VBox {
         updateChartData();
     }
 
-    // Calculates the total sum of all daily profits and updates the label.
+    private void scheduleRedraw() {
+        if (redrawPending) {
+            return;
+        }
+        redrawPending = true;
+        Platform.runLater(() -> {
+            redrawPending = false;
+            refreshDisplay();
+        });
+    }
+
+    // Calculates the total sum of all daily profits, exactly in öre, and updates the label.
     private void updateTotalIncomeDisplay() {
-        double totalIncome = profitsService.getDailyProfits().stream()
-                .mapToDouble(DailyProfit::getIncome)
-                .sum();
+        long totalIncome = 0;
+        for (DailyProfit profit : profitsService.getDailyProfits()) {
+            totalIncome += profit.getIncomeOre();
+        }
 
-        totalLabelValue.setText(String.format("%,.2f SEK", totalIncome));
+        totalLabelValue.setText(Money.formatGrouped(totalIncome) + " SEK");
     }
 
     private void updateChartData() {
         LocalDate today = LocalDate.now();
         LocalDate fourteenDaysAgo = today.minusDays(14);
 
-        // Filter profits to include only the last 14 days
-        List<DailyProfit> recentProfits = profitsService.getDailyProfits().stream()
-                .filter(p -> !p.getDate().isBefore(fourteenDaysAgo))
-                .filter(p -> !p.getDate().isAfter(today))
-                .sorted(Comparator.comparing(DailyProfit::getDate))
-                .collect(Collectors.toList());
+        // Only the last 14 days
+        List<DailyProfit> recentProfits = profitsService.getProfitsBetween(fourteenDaysAgo, today);
 
         ObservableList<XYChart.Data<String, Number>> newData = FXCollections.observableArrayList();
         for (DailyProfit profit : recentProfits) {
@@ -2,9 +2,16 @@ package com.nilsson.camping.ui.views;
 
 import com.nilsson.camping.app.LanguageManager;
 import com.nilsson.camping.model.Member;
+import com.nilsson.camping.model.Money;
 import com.nilsson.camping.model.Rental;
 import com.nilsson.camping.model.items.IRentable;
+import com.nilsson.camping.model.items.Item;
+import com.nilsson.camping.model.registries.Inventory;
+import com.nilsson.camping.model.registries.MemberRegistry;
+import com.nilsson.camping.model.registries.RegistryChange;
+import com.nilsson.camping.model.registries.RegistryListener;
 import com.nilsson.camping.model.registries.RentalRegistry;
+import com.nilsson.camping.model.registries.WeakRegistryListener;
 import com.nilsson.camping.service.MembershipService;
 import com.nilsson.camping.service.ProfitsService;
 import com.nilsson.camping.service.RentalService;
@@ -22,22 +29,34 @@ import javafx.scene.layout.HBox;
 import javafx.scene.layout.Priority;
 import javafx.scene.layout.VBox;
 import java.util.List;
+import java.util.function.Predicate;
 
 public class RentalView extends VBox {
 
     private final TableView<Rental> rentalTable = new TableView<>();
     private final ObservableList<Rental> masterData = FXCollections.observableArrayList();
 
-    private final RentalService rentalService = new RentalService();
     private final ProfitsService profitsService = new ProfitsService();
+    private final RentalService rentalService = new RentalService(profitsService);
     private final MembershipService membershipService = new MembershipService(); // ADDED: Required for Add Member button
 
     private final TextField searchField = new TextField();
     private FilteredList<Rental> filteredData;
-    private final Runnable externalRefreshAction;
 
-    public RentalView(Runnable refreshAction) {
-        this.externalRefreshAction = refreshAction;
+    // Apply registry changes to the table one row at a time. Registered weakly, so a discarded view is not kept alive.
+    private final RegistryListener<Rental> rentalListener = change -> UIUtil.runOnFxThread(() -> applyRentalChange(change));
+    private final RegistryListener<Member> memberListener = change -> UIUtil.runOnFxThread(() -> {
+        if (change.isUpdated()) {
+            refreshRows(rental -> rental.getMemberId() == change.getEntity().getId());
+        }
+    });
+    private final RegistryListener<Item> itemListener = change -> UIUtil.runOnFxThread(() -> {
+        if (change.isUpdated()) {
+            refreshRows(rental -> rental.getItemId() == change.getEntity().getItemId());
+        }
+    });
+
+    public RentalView() {
 
         // Apply CSS and Layout
         this.getStyleClass().add("content-view");
@@ -61,6 +80,10 @@ public class RentalView extends VBox {
 
         // Add all sections to the main VBox
         this.getChildren().addAll(title, buttonBar, searchField, rentalTable);
+
+        RentalRegistry.getInstance().addListener(new WeakRegistryListener<>(rentalListener));
+        MemberRegistry.getInstance().addListener(new WeakRegistryListener<>(memberListener));
+        Inventory.getInstance().addListener(new WeakRegistryListener<>(itemListener));
     }
 
     // Loads rental data from the registry into the ObservableList.
@@ -69,9 +92,28 @@ public class RentalView extends VBox {
         masterData.setAll(rentals);
     }
 
-    // Replaces all items in the table's master list with the current data from the registry.
-    private void refreshData() {
-        masterData.setAll(RentalRegistry.getInstance().getRentals());
+    // Adds or removes the one rental that changed.
+    private void applyRentalChange(RegistryChange<Rental> change) {
+        Rental rental = change.getEntity();
+        int index = masterData.indexOf(rental);
+        if (change.isRemoved()) {
+            if (index >= 0) {
+                masterData.remove(index);
+            }
+        } else if (index >= 0) {
+            masterData.set(index, rental);
+        } else {
+            masterData.add(rental);
+        }
+    }
+
+    // Re-renders the rows showing an edited member or item, whose name and price may have changed.
+    private void refreshRows(Predicate<Rental> affected) {
+        for (int i = 0; i < masterData.size(); i++) {
+            if (affected.test(masterData.get(i))) {
+                masterData.set(i, masterData.get(i));
+            }
+        }
     }
 
     // Table setup
@@ -114,8 +156,8 @@ public class RentalView extends VBox {
         // Price
         TableColumn<Rental, String> priceCol = new TableColumn<>(LanguageManager.getInstance().getString("table.total"));
         priceCol.setCellValueFactory(c -> {
-            double total = profitsService.calculateRentalRevenue(c.getValue());
-            return new SimpleStringProperty(String.format("%.2f", total));
+            long total = profitsService.calculateRentalRevenue(c.getValue());
+            return new SimpleStringProperty(Money.format(total));
         });
 
         rentalTable.getColumns().addAll(idCol, memberCol, itemCol, startDateCol, daysCol, priceCol);
@@ -199,7 +241,7 @@ public class RentalView extends VBox {
 
     // New Rental
     private void openNewRentalDialog() {
-        NewRentalDialog dialog = new NewRentalDialog();
+        NewRentalDialog dialog = new NewRentalDialog(profitsService);
         dialog.showAndWait().ifPresent(result -> {
 
             Member member = result.getSelectedMember();
@@ -221,16 +263,8 @@ public class RentalView extends VBox {
 
             boolean success = rentalService.handleNewRental(member, item, result.getStartDate(), days);
 
-            if (success) {
-                // Refresh all data to include the new rental
-                refreshData();
-
-                // Recalculate profits and refresh views
-                profitsService.recalculateProfitsFromRentals();
-                if (externalRefreshAction != null) {
-                    externalRefreshAction.run();
-                }
-            } else {
+            // The registries report the new rental and the changed profits to the views.
+            if (!success) {
                 UIUtil.showErrorAlert(LanguageManager.getInstance().getString("error.rentalFailed"),
                         LanguageManager.getInstance().getString("error.operationError"),
                         LanguageManager.getInstance().getString("error.rentalFailed"));
@@ -258,17 +292,9 @@ public class RentalView extends VBox {
                         rentalService.getMemberNameFromId(selectedRental.getMemberId()) + "?");
 
         if (confirmed) {
+            // The registry reports the return, which removes the row.
             boolean removed = rentalService.handleReturnRental(selectedRental);
-            if (removed) {
-                // Remove directly from masterData
-                masterData.remove(selectedRental);
-
-                // Recalculate profits and refresh views
-                profitsService.recalculateProfitsFromRentals();
-                if (externalRefreshAction != null) {
-                    externalRefreshAction.run();
-                }
-            } else {
+            if (!removed) {
                 UIUtil.showErrorAlert(LanguageManager.getInstance().getString("error.returnFailed"),
                         LanguageManager.getInstance().getString("error.operationError"),
                         LanguageManager.getInstance().getString("error.message"));
@@ -1,8 +1,13 @@
 package com.nilsson.camping.ui.views;
 
 import com.nilsson.camping.app.LanguageManager;
+import com.nilsson.camping.model.items.Item;
 import com.nilsson.camping.model.items.RecreationalVehicle;
 import com.nilsson.camping.model.registries.Inventory;
+import com.nilsson.camping.model.registries.ItemQuery;
+import com.nilsson.camping.model.registries.RegistryChange;
+import com.nilsson.camping.model.registries.RegistryListener;
+import com.nilsson.camping.model.registries.WeakRegistryListener;
 import com.nilsson.camping.service.InventoryService;
 import com.nilsson.camping.ui.UIUtil;
 import com.nilsson.camping.ui.dialogs.ShowAllVehiclesDialog;
@@ -18,7 +23,9 @@ import javafx.scene.layout.HBox;
 import javafx.scene.layout.Priority;
 import javafx.scene.layout.VBox;
 
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 public class VehicleView extends VBox {
 
@@ -26,8 +33,15 @@ public class VehicleView extends VBox {
     private final ObservableList<RecreationalVehicle> masterData = FXCollections.observableArrayList();
     private final InventoryService inventoryService = new InventoryService();
     private final TextField searchField = new TextField();
+    private final ComboBox<String> typeFilter = new ComboBox<>();
+    private final TextField minCapacityField = new TextField();
+    private final TextField maxPriceField = new TextField();
+    private final TextField minYearField = new TextField();
     private FilteredList<RecreationalVehicle> filteredData;
 
+    // Applies inventory changes to the table one item at a time. Registered weakly, so a discarded view is not kept alive.
+    private final RegistryListener<Item> itemListener = change -> UIUtil.runOnFxThread(() -> applyItemChange(change));
+
     public VehicleView() {
 
         // Apply CSS and Layout
@@ -43,6 +57,7 @@ public class VehicleView extends VBox {
         // Search Field Setup
         searchField.setPromptText(LanguageManager.getInstance().getString("txt.searchVehicles"));
         searchField.setMaxWidth(360);
+        HBox filterBar = createFilterBar();
 
         // TableView
         loadMasterData();
@@ -51,7 +66,9 @@ public class VehicleView extends VBox {
         HBox buttonBar = createButtonBar();
 
         // Add all sections to the main VBox
-        this.getChildren().addAll(title, buttonBar, searchField, recreationalVehicleTable);
+        this.getChildren().addAll(title, buttonBar, filterBar, recreationalVehicleTable);
+
+        Inventory.getInstance().addListener(new WeakRegistryListener<>(itemListener));
     }
 
     @SuppressWarnings("unchecked")
@@ -93,34 +110,12 @@ public class VehicleView extends VBox {
         // Filtering using Streams
         filteredData = new FilteredList<>(masterData, p -> true);
 
-        // Set the filter predicate when the search field text changes.
-        searchField.textProperty().addListener((observable, oldValue, newValue) -> {
-            filteredData.setPredicate(recreationalVehicle -> {
-                // If the search field is empty, display all vehicles.
-                if (newValue == null || newValue.isEmpty()) {
-                    return true;
-                }
-
-                String lowerCaseFilter = newValue.toLowerCase();
-
-                // Check if search string matches
-                if (recreationalVehicle.getMake().toLowerCase().contains(lowerCaseFilter)) {
-                    return true;
-                } else if (recreationalVehicle.getModel().toLowerCase().contains(lowerCaseFilter)) {
-                    return true;
-                } else if (recreationalVehicle.getCapacity().toLowerCase().contains(lowerCaseFilter)) {
-                    return true;
-                } else if (recreationalVehicle.getYear().toLowerCase().contains(lowerCaseFilter)) {
-                    return true;
-                } else if (recreationalVehicle.getType().toLowerCase().contains(lowerCaseFilter)) {
-                    return true;
-                } else if (String.valueOf(recreationalVehicle.getDailyPrice()).contains(lowerCaseFilter)) {
-                    return true;
-                }
-                // No match found.
-                return false;
-            });
-        });
+        // Re-apply the filters when the search text or any facet changes.
+        searchField.textProperty().addListener((observable, oldValue, newValue) -> applyFilters());
+        typeFilter.valueProperty().addListener((observable, oldValue, newValue) -> applyFilters());
+        minCapacityField.textProperty().addListener((observable, oldValue, newValue) -> applyFilters());
+        maxPriceField.textProperty().addListener((observable, oldValue, newValue) -> applyFilters());
+        minYearField.textProperty().addListener((observable, oldValue, newValue) -> applyFilters());
 
         // Wrap the FilteredList in a SortedList to ensure sorting works with filtering.
         SortedList<RecreationalVehicle> sortedData = new SortedList<>(filteredData);
@@ -132,6 +127,104 @@ public class VehicleView extends VBox {
         recreationalVehicleTable.setItems(sortedData);
     }
 
+    // Combines the facet query, answered by the inventory's facet indexes, with the free-text search.
+    private void applyFilters() {
+        String typeValue = typeFilter.getValue();
+        ItemQuery query = new ItemQuery()
+                .type(typeValue == null || typeValue.equals(LanguageManager.getInstance().getString("txt.allTypes")) ? null : typeValue)
+                .minCapacity(parseInteger(minCapacityField.getText()))
+                .maxPrice(parseDouble(maxPriceField.getText()))
+                .minYear(parseInteger(minYearField.getText()));
+        Set<RecreationalVehicle> facetMatches = new HashSet<>(Inventory.getInstance().findRecreationalVehicles(query));
+        String searchText = searchField.getText();
+
+        filteredData.setPredicate(recreationalVehicle ->
+                facetMatches.contains(recreationalVehicle) && matchesSearchText(recreationalVehicle, searchText));
+    }
+
+    private boolean hasFacetFilter() {
+        String typeValue = typeFilter.getValue();
+        boolean typeSet = typeValue != null && !typeValue.equals(LanguageManager.getInstance().getString("txt.allTypes"));
+        return typeSet || !minCapacityField.getText().trim().isEmpty()
+                || !maxPriceField.getText().trim().isEmpty()
+                || !minYearField.getText().trim().isEmpty();
+    }
+
+    private boolean matchesSearchText(RecreationalVehicle recreationalVehicle, String searchText) {
+        // If the search field is empty, display all vehicles.
+        if (searchText == null || searchText.isEmpty()) {
+            return true;
+        }
+
+        String lowerCaseFilter = searchText.toLowerCase();
+
+        // Check if search string matches
+        return recreationalVehicle.getMake().toLowerCase().contains(lowerCaseFilter)
+                || recreationalVehicle.getModel().toLowerCase().contains(lowerCaseFilter)
+                || recreationalVehicle.getType().toLowerCase().contains(lowerCaseFilter);
+    }
+
+    // Unparseable or empty facet fields leave that facet unset.
+    private static Integer parseInteger(String text) {
+        try {
+            return text == null || text.trim().isEmpty() ? null : Integer.valueOf(text.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static Double parseDouble(String text) {
+        try {
+            return text == null || text.trim().isEmpty() ? null : Double.valueOf(text.trim().replace(',', '.'));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    // Search field plus the type, capacity, price and year facets.
+    private HBox createFilterBar() {
+        String allTypes = LanguageManager.getInstance().getString("txt.allTypes");
+        typeFilter.getItems().addAll(allTypes,
+                LanguageManager.getInstance().getString("txt.caravan"),
+                LanguageManager.getInstance().getString("txt.campervan"),
+                LanguageManager.getInstance().getString("txt.motorhome"));
+        typeFilter.setValue(allTypes);
+
+        minCapacityField.setPromptText(LanguageManager.getInstance().getString("txt.minCapacity"));
+        minCapacityField.setMaxWidth(140);
+        maxPriceField.setPromptText(LanguageManager.getInstance().getString("txt.maxPrice"));
+        maxPriceField.setMaxWidth(140);
+        minYearField.setPromptText(LanguageManager.getInstance().getString("txt.minYear"));
+        minYearField.setMaxWidth(140);
+
+        HBox filterBar = new HBox(10, searchField, typeFilter, minCapacityField, maxPriceField, minYearField);
+        filterBar.setAlignment(Pos.CENTER_LEFT);
+        return filterBar;
+    }
+
+    // The table lists available items only: an item leaves it when rented or removed and comes back when returned.
+    private void applyItemChange(RegistryChange<Item> change) {
+        if (!(change.getEntity() instanceof RecreationalVehicle)) {
+            return;
+        }
+        RecreationalVehicle recreationalVehicle = (RecreationalVehicle) change.getEntity();
+        int index = masterData.indexOf(recreationalVehicle);
+        boolean listed = !change.isRemoved() && !recreationalVehicle.isRented();
+        if (!listed) {
+            if (index >= 0) {
+                masterData.remove(index);
+            }
+        } else if (index >= 0) {
+            masterData.set(index, recreationalVehicle);
+        } else {
+            masterData.add(recreationalVehicle);
+        }
+        // The facet matches were computed before this change.
+        if (hasFacetFilter()) {
+            applyFilters();
+        }
+    }
+
     // Load vehicle data from the registry into the ObservableList.
     private void loadMasterData() {
         List<RecreationalVehicle> recreationalVehicles = Inventory.getInstance().getAvailableRecreationalVehicleList();
@@ -139,11 +232,8 @@ public class VehicleView extends VBox {
     }
 
     private void handleAddRecreationalVehicle() {
-        RecreationalVehicle newRecreationalVehicle = inventoryService.handleAddRecreationalVehicle();
-
-        if (newRecreationalVehicle != null) {
-            masterData.add(newRecreationalVehicle);
-        }
+        // The inventory reports the new item, which adds the row.
+        inventoryService.handleAddRecreationalVehicle();
     }
 
     private void handleEditRecreationalVehicle() {
@@ -157,16 +247,8 @@ public class VehicleView extends VBox {
                     LanguageManager.getInstance().getString("error.pleaseSelectEditItem"));
             return;
         }
+        // The inventory reports the edit, which updates the row.
         inventoryService.handleEditRecreationalVehicle(selectedRecreationalVehicle);
-
-        // Refresh the TableView.
-        refreshTable();
-    }
-
-    // Utility method to force the TableView to refresh its content
-    private void refreshTable() {
-        recreationalVehicleTable.getColumns().get(0).setVisible(false);
-        recreationalVehicleTable.getColumns().get(0).setVisible(true);
     }
 
     // Removing a vehicle, involving both the Service and the View UI update.
@@ -189,10 +271,9 @@ public class VehicleView extends VBox {
                         selectedRecreationalVehicle.getMake() + " " + selectedRecreationalVehicle.getModel() + "?");
 
         if (confirmed) {
+            // The inventory reports the removal, which removes the row.
             boolean wasRemovedFromRegistry = inventoryService.handleRemoveRecreationalVehicle(selectedRecreationalVehicle);
-            if (wasRemovedFromRegistry) {
-                masterData.remove(selectedRecreationalVehicle);
-            } else {
+            if (!wasRemovedFromRegistry) {
                 UIUtil.showErrorAlert(LanguageManager.getInstance().getString("error.removalFailed"),
                         LanguageManager.getInstance().getString("error.operationError"),
                         LanguageManager.getInstance().getString("error.message"));
@@ -210,12 +291,7 @@ public class VehicleView extends VBox {
 
         Button btnAdd = new Button(LanguageManager.getInstance().getString("btn.addVehicle"));
         btnAdd.getStyleClass().add("action-button");
-        btnAdd.setOnAction(actionEvent -> {
-            RecreationalVehicle newVehicle = inventoryService.handleAddRecreationalVehicle();
-            if (newVehicle != null) {
-                masterData.add(newVehicle);
-            }
-        });
+        btnAdd.setOnAction(actionEvent -> handleAddRecreationalVehicle());
 
         Button btnEdit = new Button(LanguageManager.getInstance().getString("btn.editVehicle"));
         btnEdit.getStyleClass().add("action-button");
@@ -0,0 +1,181 @@
+package com.nilsson.camping.data;
+
+import com.nilsson.camping.model.DailyProfit;
+import com.nilsson.camping.model.Member;
+import com.nilsson.camping.model.Rental;
+import com.nilsson.camping.model.items.Gear;
+import com.nilsson.camping.model.items.RecreationalVehicle;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DataHandlerTest {
+
+    private static final File DATA_DIR = new File(System.getProperty("user.dir"), "src/main/resources/data/json");
+
+    private final ByteArrayOutputStream errors = new ByteArrayOutputStream();
+    private PrintStream originalErr;
+
+    @BeforeEach
+    void setUp() {
+        DATA_DIR.mkdirs();
+        for (File file : DATA_DIR.listFiles()) {
+            file.delete();
+        }
+        originalErr = System.err;
+        System.setErr(new PrintStream(errors, true));
+    }
+
+    @AfterEach
+    void tearDown() {
+        System.setErr(originalErr);
+    }
+
+    // A checkpoint after the last rental is returned writes "[]"; the next start must load it as no rentals.
+    @Test
+    void loadsEmptyArrays() throws IOException {
+        write("members.json", "[ ]");
+        write("vehicles.json", "[]");
+        write("gear.json", "[ ]\n");
+        write("rentals.json", "[ ]");
+
+        List<Object> loaded = new ArrayList<>();
+        DataHandler.loadMembers(loaded::add);
+        DataHandler.loadRecreationalVehicles(loaded::add);
+        DataHandler.loadGear(loaded::add);
+        DataHandler.loadRentals(loaded::add);
+
+        assertEquals(0, loaded.size());
+        assertFalse(errorOutput().contains("FATAL ERROR"), errorOutput());
+    }
+
+    @Test
+    void streamsEveryRental() throws IOException {
+        write("rentals.json", "[ {\n" +
+                "  \"rentalId\" : 1001, \"memberId\" : 8519, \"itemId\" : 10001,\n" +
+                "  \"startDate\" : [ 2025, 11, 20 ], \"rentalDays\" : 7\n" +
+                "}, {\n" +
+                "  \"rentalId\" : 1002, \"memberId\" : 2640, \"itemId\" : 11002,\n" +
+                "  \"startDate\" : [ 2025, 11, 25 ], \"rentalDays\" : 3, \"dailyPriceOre\" : 49900\n" +
+                "}, {\n" +
+                "  \"rentalId\" : 1003, \"memberId\" : 2640, \"itemId\" : 11003,\n" +
+                "  \"note\" : { \"text\" : [ 1, 2 ] }, \"startDate\" : \"2025-12-01\", \"rentalDays\" : 2\n" +
+                "} ]");
+
+        List<Rental> rentals = new ArrayList<>();
+        DataHandler.loadRentals(rentals::add);
+
+        assertEquals(3, rentals.size());
+        assertEquals(1001, rentals.get(0).getRentalId());
+        assertEquals(8519, rentals.get(0).getMemberId());
+        assertEquals(10001, rentals.get(0).getItemId());
+        assertEquals(LocalDate.of(2025, 11, 25), rentals.get(1).getStartDate());
+        assertEquals(3, rentals.get(1).getRentalDays());
+        // Rentals booked before the daily price was recorded have none.
+        assertEquals(0, rentals.get(0).getDailyPriceOre());
+        assertEquals(49900, rentals.get(1).getDailyPriceOre());
+        // Unknown fields are skipped and ISO dates are read like JavaTimeModule reads them.
+        assertEquals(LocalDate.of(2025, 12, 1), rentals.get(2).getStartDate());
+        assertEquals(2, rentals.get(2).getRentalDays());
+        assertFalse(errorOutput().contains("FATAL ERROR"), errorOutput());
+    }
+
+    // Loading replays the journal in memory; folding it into rentals.json is left to a later save.
+    @Test
+    void loadingRentalsWritesNothing() throws Exception {
+        String snapshot = "[ { \"rentalId\" : 1001, \"memberId\" : 8519, \"itemId\" : 10001,\n" +
+                "  \"startDate\" : [ 2025, 11, 20 ], \"rentalDays\" : 7 } ]";
+        String journal = "{\"op\":\"ADD\",\"rentalId\":1002,\"rental\":{\"rentalId\":1002,\"memberId\":2640," +
+                "\"itemId\":11002,\"startDate\":\"2025-11-25\",\"rentalDays\":3}}\n" +
+                "{\"op\":\"REMOVE\",\"rentalId\":1001}\n";
+        write("rentals.json", snapshot);
+        write("rentals.journal", journal);
+
+        List<Rental> rentals = new ArrayList<>();
+        new JsonRentalRepository().loadAll(rentals::add);
+        CountDownLatch done = new CountDownLatch(1);
+        PersistenceQueue.execute(done::countDown);
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+
+        assertEquals(1, rentals.size());
+        assertEquals(1002, rentals.get(0).getRentalId());
+        assertEquals(snapshot, read("rentals.json"));
+        assertEquals(journal, read("rentals.journal"));
+    }
+
+    // The binary snapshot keeps the daily price a rental was booked at.
+    @Test
+    void snapshotKeepsTheBookedDailyPrice() throws IOException {
+        Rental rental = new Rental();
+        rental.setRentalId(1001);
+        rental.setItemId(10001);
+        rental.setStartDate(LocalDate.of(2025, 11, 20));
+        rental.setRentalDays(7);
+        rental.setDailyPriceOre(49900);
+        File snapshot = new File(DATA_DIR, "rentals.bin");
+        List<Rental> written = new ArrayList<>();
+        written.add(rental);
+        BinarySnapshot.writeRentals(snapshot, written);
+
+        List<Rental> rentals = new ArrayList<>();
+        BinarySnapshot.readRentals(snapshot, rentals::add);
+
+        assertEquals(1, rentals.size());
+        assertEquals(7, rentals.get(0).getRentalDays());
+        assertEquals(49900, rentals.get(0).getDailyPriceOre());
+    }
+
+    // profits.json files written before income was kept in öre hold it as kronor under "income".
+    @Test
+    void loadsLegacyProfitIncome() throws IOException {
+        write("profits.json", "[ { \"date\" : [ 2025, 11, 20 ], \"income\" : 1223.0 }, " +
+                "{ \"date\" : [ 2025, 11, 21 ], \"incomeOre\" : 49950 } ]");
+
+        List<DailyProfit> profits = ProfitsHandler.loadProfits();
+
+        assertEquals(2, profits.size());
+        assertEquals(122_300, profits.get(0).getIncomeOre());
+        assertEquals(49_950, profits.get(1).getIncomeOre());
+        assertFalse(errorOutput().contains("FATAL ERROR"), errorOutput());
+    }
+
+    @Test
+    void loadsNothingFromAMissingFile() {
+        List<Member> members = new ArrayList<>();
+        List<RecreationalVehicle> vehicles = new ArrayList<>();
+        List<Gear> gear = new ArrayList<>();
+        DataHandler.loadMembers(members::add);
+        DataHandler.loadRecreationalVehicles(vehicles::add);
+        DataHandler.loadGear(gear::add);
+
+        assertEquals(0, members.size() + vehicles.size() + gear.size());
+        assertFalse(errorOutput().contains("FATAL ERROR"), errorOutput());
+    }
+
+    private static void write(String name, String json) throws IOException {
+        Files.write(new File(DATA_DIR, name).toPath(), json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String read(String name) throws IOException {
+        return new String(Files.readAllBytes(new File(DATA_DIR, name).toPath()), StandardCharsets.UTF_8);
+    }
+
+    private String errorOutput() {
+        return new String(errors.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,167 @@
+package com.nilsson.camping.data;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GroupCommitLogTest {
+
+    private static final File LOG = new File(System.getProperty("user.dir"), "src/main/resources/data/json/commit.log");
+
+    @TempDir
+    Path dir;
+
+    @BeforeEach
+    void startClean() {
+        GroupCommitLog.replay();
+    }
+
+    // A crash after the appends were applied but before a checkpoint leaves them in the log.
+    @Test
+    void replayDoesNotAppendAppliedLinesAgain() throws Exception {
+        String journal = file("rentals.journal");
+        commitAppend(journal, "first\n");
+        commitAppend(journal, "second\n");
+        awaitWrites();
+        assertTrue(LOG.exists(), "no checkpoint yet, so the groups are still in the log");
+
+        GroupCommitLog.replay();
+
+        assertEquals("first\nsecond\n", read(journal));
+        assertFalse(LOG.exists());
+    }
+
+    // A crash can also lose appended bytes that were logged but never reached the data file.
+    @Test
+    void replayRestoresLostAppends() throws Exception {
+        String journal = file("rentals.journal");
+        commitAppend(journal, "first\n");
+        commitAppend(journal, "second\n");
+        awaitWrites();
+        try (RandomAccessFile file = new RandomAccessFile(journal, "rw")) {
+            file.setLength("first\n".length());
+        }
+
+        GroupCommitLog.replay();
+
+        assertEquals("first\nsecond\n", read(journal));
+    }
+
+    @Test
+    void replayKeepsDeletesInOrder() throws Exception {
+        String journal = file("rentals.journal");
+        commitAppend(journal, "compacted\n");
+        UnitOfWork compaction = UnitOfWork.begin();
+        compaction.stageDelete(journal);
+        compaction.commit();
+        commitAppend(journal, "after\n");
+        awaitWrites();
+        assertEquals("after\n", read(journal));
+
+        GroupCommitLog.replay();
+
+        assertEquals("after\n", read(journal));
+    }
+
+    // Appends to a file that already holds data before the log was started land after that data.
+    @Test
+    void appendsContinueExistingFiles() throws Exception {
+        String journal = file("rentals.journal");
+        Files.write(new File(journal).toPath(), "old\n".getBytes(StandardCharsets.UTF_8));
+        commitAppend(journal, "new\n");
+        awaitWrites();
+
+        GroupCommitLog.replay();
+
+        assertEquals("old\nnew\n", read(journal));
+    }
+
+    @Test
+    void unitWithUnserializableWriteIsDroppedWhole() throws Exception {
+        String snapshot = file("rentals.json");
+        String journal = file("rentals.journal");
+        commitAppend(journal, "kept\n");
+        UnitOfWork compaction = UnitOfWork.begin();
+        compaction.stageReplace(snapshot, () -> {
+            throw new IOException("simulated");
+        }, null);
+        compaction.stageDelete(journal);
+        compaction.commit();
+        awaitWrites();
+
+        assertFalse(new File(snapshot).exists());
+        assertEquals("kept\n", read(journal));
+    }
+
+    // A group that never reached the log must not move the offsets of later appends past the end of the file.
+    @Test
+    void failedLogWriteLeavesNoGap() throws Exception {
+        String journal = file("rentals.journal");
+        assertTrue(LOG.mkdirs(), "a directory in place of the log makes writing it fail");
+        try {
+            commitAppend(journal, "lost\n");
+            awaitWrites();
+        } finally {
+            assertTrue(LOG.delete());
+        }
+        commitAppend(journal, "kept\n");
+        awaitWrites();
+
+        assertEquals("kept\n", read(journal));
+        GroupCommitLog.replay();
+        assertEquals("kept\n", read(journal));
+    }
+
+    // A write that could not be applied is applied again at the next checkpoint, which then truncates the log.
+    @Test
+    void checkpointRetriesFailedWrites() throws Exception {
+        File blocked = dir.resolve("ledger").toFile();
+        Files.write(blocked.toPath(), new byte[0]);
+        String month = new File(blocked, "2025-11.jsonl").getPath();
+        commitAppend(month, "first\n");
+        awaitWrites();
+        assertFalse(new File(month).exists());
+
+        assertTrue(blocked.delete());
+        commitAppend(month, "second\n");
+        awaitWrites();
+        PersistenceQueue.execute(GroupCommitLog::checkpoint);
+        awaitWrites();
+
+        assertEquals("first\nsecond\n", read(month));
+        assertFalse(LOG.exists());
+    }
+
+    private String file(String name) {
+        return dir.resolve(name).toString();
+    }
+
+    private static void commitAppend(String path, String line) {
+        UnitOfWork unitOfWork = UnitOfWork.begin();
+        unitOfWork.stageAppend(path, line.getBytes(StandardCharsets.UTF_8));
+        unitOfWork.commit();
+    }
+
+    // Waits until the persistence thread has applied everything committed so far.
+    private static void awaitWrites() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        PersistenceQueue.execute(done::countDown);
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+    }
+
+    private static String read(String path) throws IOException {
+        return new String(Files.readAllBytes(new File(path).toPath()), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,131 @@
+package com.nilsson.camping.data;
+
+import com.nilsson.camping.model.CompletedRental;
+import com.nilsson.camping.model.Rental;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RentalLedgerTest {
+
+    private static final File DATA_DIR = new File(System.getProperty("user.dir"), "src/main/resources/data/json");
+    private static final File LEDGER_DIR = new File(DATA_DIR, "ledger");
+    private static final File COMMIT_LOG = new File(DATA_DIR, "commit.log");
+
+    @BeforeEach
+    void startClean() throws IOException {
+        GroupCommitLog.replay();
+        deleteAll(LEDGER_DIR);
+        deleteAll(new File(DATA_DIR, "archive"));
+        RentalLedger.reload();
+    }
+
+    // The returns are applied to the month files, then the process dies before a checkpoint truncates the log.
+    @Test
+    void recoveryAfterACrashCountsEveryReturnOnce() throws Exception {
+        LocalDate thisMonth = LocalDate.now().withDayOfMonth(1);
+        LocalDate nextMonth = thisMonth.plusMonths(1);
+        record(1001, thisMonth, 3, 50_000);
+        record(1002, thisMonth.plusDays(10), 2, 70_000);
+        record(1003, nextMonth, 1, 30_000);
+        awaitWrites();
+        assertTrue(COMMIT_LOG.exists(), "no checkpoint yet, so the returns are still in the log");
+
+        GroupCommitLog.replay();
+        RentalLedger.reload();
+
+        List<CompletedRental> entries = allEntries();
+        assertEquals(3, entries.size());
+        assertEquals(3, uniqueRentalIds(entries).size());
+        assertEquals(3 * 50_000 + 2 * 70_000 + 30_000, RentalLedger.totalRevenue());
+        assertEquals(3, RentalLedger.size());
+        assertEquals(3, lineCount(LEDGER_DIR));
+    }
+
+    // Archived months are deleted through the log too, so replaying the appends that filled them does not bring them back.
+    @Test
+    void archivedMonthsStayDeletedAfterACrash() throws Exception {
+        LocalDate longAgo = LocalDate.now().minusYears(5).withDayOfMonth(1);
+        record(2001, longAgo, 2, 40_000);
+        record(2002, longAgo.plusMonths(1), 1, 60_000);
+        assertEquals(2, RentalLedger.archiveOldYears());
+        awaitWrites();
+
+        GroupCommitLog.replay();
+        RentalLedger.reload();
+
+        assertEquals(0, lineCount(LEDGER_DIR));
+        List<CompletedRental> entries = allEntries();
+        assertEquals(2, entries.size());
+        assertEquals(2, uniqueRentalIds(entries).size());
+        assertEquals(2 * 40_000 + 60_000, RentalLedger.totalRevenue());
+    }
+
+    private static void record(int rentalId, LocalDate startDate, int days, long dailyPriceOre) {
+        Rental rental = new Rental();
+        rental.setRentalId(rentalId);
+        rental.setMemberId(1);
+        rental.setItemId(10_001);
+        rental.setStartDate(startDate);
+        rental.setRentalDays(days);
+        UnitOfWork unitOfWork = UnitOfWork.begin();
+        RentalLedger.record(new CompletedRental(rental, dailyPriceOre, days * dailyPriceOre, startDate.plusDays(days)),
+                unitOfWork);
+        unitOfWork.commit();
+    }
+
+    private static List<CompletedRental> allEntries() {
+        List<CompletedRental> entries = new ArrayList<>();
+        RentalLedger.forEachInRange(LocalDate.MIN, LocalDate.MAX, entries::add);
+        return entries;
+    }
+
+    private static Set<Integer> uniqueRentalIds(List<CompletedRental> entries) {
+        Set<Integer> ids = new HashSet<>();
+        for (CompletedRental entry : entries) {
+            ids.add(entry.getRentalId());
+        }
+        return ids;
+    }
+
+    // Lines in all month files of the ledger.
+    private static long lineCount(File ledger) throws IOException {
+        long lines = 0;
+        File[] months = ledger.listFiles((dir, name) -> name.endsWith(".jsonl"));
+        if (months != null) {
+            for (File month : months) {
+                lines += Files.readAllLines(month.toPath()).size();
+            }
+        }
+        return lines;
+    }
+
+    private static void awaitWrites() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        PersistenceQueue.execute(done::countDown);
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+    }
+
+    private static void deleteAll(File directory) {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        assertFalse(files != null && directory.listFiles().length > 0);
+    }
+}
@@ -0,0 +1,109 @@
+package com.nilsson.camping.data;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.nilsson.camping.model.Member;
+import com.nilsson.camping.model.Rental;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import java.io.File;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cold start: the first load of members and rentals in a fresh JVM, from the JSON files and from the binary
+ * snapshots. Every fork measures one load, so class loading and unwarmed code are part of the time,
+ * as they are when the application starts.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(value = 10, jvmArgsAppend = "-Xmx1g")
+public class SnapshotLoadBenchmark {
+
+    private static final String[] LEVELS = {"Standard", "Premium", "Student"};
+
+    @Param({"100000"})
+    private int members;
+
+    @Param({"500000"})
+    private int rentals;
+
+    private File membersJson;
+    private File membersSnapshot;
+    private File rentalsJson;
+    private File rentalsSnapshot;
+
+    @Setup(Level.Trial)
+    public void writeFiles() throws IOException {
+        List<Member> memberList = new ArrayList<>(members);
+        for (int i = 0; i < members; i++) {
+            memberList.add(new Member(1000 + i, "First" + i, "Last" + i, LEVELS[i % LEVELS.length],
+                    Arrays.asList("Rented Vehicle: Ford E-Series RV (1001) for 7 days, starting 2025-11-20",
+                            "Rented Gear: Expedition 110L (1011) for 3 days, starting 2025-12-04")));
+        }
+        List<Rental> rentalList = new ArrayList<>(rentals);
+        LocalDate start = LocalDate.of(2025, 1, 1);
+        for (int i = 0; i < rentals; i++) {
+            Rental rental = new Rental();
+            rental.setRentalId(1000 + i);
+            rental.setMemberId(1000 + i % members);
+            rental.setItemId(10_000 + i % 5_000);
+            rental.setStartDate(start.plusDays(i % 365));
+            rental.setRentalDays(1 + i % 14);
+            rentalList.add(rental);
+        }
+
+        // Written the way DataHandler writes them.
+        ObjectMapper mapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .enable(SerializationFeature.INDENT_OUTPUT);
+        membersJson = File.createTempFile("members", ".json");
+        rentalsJson = File.createTempFile("rentals", ".json");
+        membersSnapshot = File.createTempFile("members", ".bin");
+        rentalsSnapshot = File.createTempFile("rentals", ".bin");
+        mapper.writeValue(membersJson, memberList);
+        mapper.writeValue(rentalsJson, rentalList);
+        BinarySnapshot.writeMembers(membersSnapshot, memberList);
+        BinarySnapshot.writeRentals(rentalsSnapshot, rentalList);
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteFiles() {
+        membersJson.delete();
+        rentalsJson.delete();
+        membersSnapshot.delete();
+        rentalsSnapshot.delete();
+    }
+
+    @Benchmark
+    public int json(Blackhole blackhole) throws IOException {
+        return DataHandler.streamArray(membersJson, DataHandler.MEMBER_READER, blackhole::consume)
+                + DataHandler.streamRentals(rentalsJson, blackhole::consume);
+    }
+
+    @Benchmark
+    public int snapshot(Blackhole blackhole) throws IOException {
+        return BinarySnapshot.readMembers(membersSnapshot, blackhole::consume)
+                + BinarySnapshot.readRentals(rentalsSnapshot, blackhole::consume);
+    }
+}
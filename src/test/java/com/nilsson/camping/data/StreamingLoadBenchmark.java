@@ -0,0 +1,97 @@
+package com.nilsson.camping.data;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.nilsson.camping.model.Rental;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import java.io.File;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loading 500k rentals the way DataHandler used to, as one List through a pretty-printing ObjectMapper,
+ * against the streaming loaders. Run with -prof gc to compare allocation per load as well.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 8, time = 2)
+@Fork(value = 3, jvmArgsAppend = "-Xmx1g")
+public class StreamingLoadBenchmark {
+
+    // The loader before streaming: one mapper for reading and pretty-printed writing.
+    private static final ObjectMapper LIST_MAPPER = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .enable(SerializationFeature.INDENT_OUTPUT);
+
+    private static final ObjectReader RENTAL_READER = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .readerFor(Rental.class);
+
+    @Param({"500000"})
+    private int rentals;
+
+    private File file;
+
+    @Setup(Level.Trial)
+    public void writeRentals() throws IOException {
+        List<Rental> generated = new ArrayList<>(rentals);
+        LocalDate start = LocalDate.of(2025, 1, 1);
+        for (int i = 0; i < rentals; i++) {
+            Rental rental = new Rental();
+            rental.setRentalId(1000 + i);
+            rental.setMemberId(1000 + i % 10_000);
+            rental.setItemId(10_000 + i % 5_000);
+            rental.setStartDate(start.plusDays(i % 365));
+            rental.setRentalDays(1 + i % 14);
+            generated.add(rental);
+        }
+        file = File.createTempFile("rentals", ".json");
+        LIST_MAPPER.writeValue(file, generated);
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteRentals() {
+        file.delete();
+    }
+
+    @Benchmark
+    public void listLoad(Blackhole blackhole) throws IOException {
+        List<Rental> loaded = LIST_MAPPER.readValue(file, new TypeReference<List<Rental>>() {});
+        for (Rental rental : loaded) {
+            blackhole.consume(rental);
+        }
+    }
+
+    // Members, vehicles and gear: one record at a time through a pre-built ObjectReader.
+    @Benchmark
+    public int readerLoad(Blackhole blackhole) throws IOException {
+        return DataHandler.streamArray(file, RENTAL_READER, blackhole::consume);
+    }
+
+    // Rentals: read field by field.
+    @Benchmark
+    public int rentalLoad(Blackhole blackhole) throws IOException {
+        return DataHandler.streamRentals(file, blackhole::consume);
+    }
+}
@@ -0,0 +1,64 @@
+package com.nilsson.camping.model.policies;
+
+import org.junit.jupiter.api.Test;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class RulePricePolicyTest {
+
+    // The batch prices every rental exactly like pricing it on its own.
+    @Test
+    void batchMatchesSinglePrices() {
+        RulePricePolicy policy = RulePricePolicy.compile(rules("06-15", "08-31", 1.25)).withTierMultiplier(0.9);
+        int count = 500;
+        long[] rates = new long[count];
+        int[] days = new int[count];
+        int[] starts = new int[count];
+        long[] expected = new long[count];
+        int firstDay = (int) LocalDate.of(2025, 5, 1).toEpochDay();
+        for (int i = 0; i < count; i++) {
+            rates[i] = 30_000 + 1_000 * (i % 7);
+            days[i] = 1 + i % 21;
+            starts[i] = firstDay + i;
+            expected[i] = policy.calculatePrice(rates[i], starts[i], days[i]);
+        }
+
+        long[] prices = new long[count];
+        policy.calculatePrices(rates, days, starts, prices);
+
+        assertArrayEquals(expected, prices);
+    }
+
+    // Item types with the same seasons and weekends share one compiled calendar.
+    @Test
+    void equalRulesShareTheirCalendar() {
+        PricingCalendar first = PricingCalendar.compile(rules("12-20", "01-06", 1.5).getSeasons(), 1.1);
+        PricingCalendar second = PricingCalendar.compile(rules("12-20", "01-06", 1.5).getSeasons(), 1.1);
+
+        assertSame(first, second);
+    }
+
+    private static PricingRuleSet rules(String from, String to, double multiplier) {
+        PricingRuleSet.Season season = new PricingRuleSet.Season();
+        season.setFrom(from);
+        season.setTo(to);
+        season.setMultiplier(multiplier);
+        List<PricingRuleSet.Season> seasons = new ArrayList<>();
+        seasons.add(season);
+        PricingRuleSet.LongStay longStay = new PricingRuleSet.LongStay();
+        longStay.setFromDay(8);
+        longStay.setMultiplier(0.7);
+        List<PricingRuleSet.LongStay> longStays = new ArrayList<>();
+        longStays.add(longStay);
+
+        PricingRuleSet rules = new PricingRuleSet();
+        rules.setSeasons(seasons);
+        rules.setLongStay(longStays);
+        rules.setWeekendMultiplier(1.2);
+        return rules;
+    }
+}
@@ -0,0 +1,90 @@
+package com.nilsson.camping.model.registries;
+
+import com.nilsson.camping.model.Member;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Member lookup by id as MemberRegistry.findMemberById does it, an IntObjectMap read under the registry lock,
+ * against the linear scan of the member list it replaced. Ids are looked up in random order.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class MemberLookupBenchmark {
+
+    // Ids in shuffled order, looked up in turn, so lookups do not walk the table in insertion order.
+    private static final int LOOKUPS = 4096;
+
+    @Param({"1000", "10000", "100000"})
+    private int members;
+
+    private final Object lock = new Object();
+    private final List<Member> membersList = new ArrayList<>();
+    private final IntObjectMap<Member> membersById = new IntObjectMap<>();
+    private int[] ids;
+    private int next;
+
+    @Setup
+    public void fillRegistry() {
+        Random random = new Random(42);
+        List<Integer> shuffled = new ArrayList<>();
+        for (int i = 0; i < members; i++) {
+            // Spread out like allocated ids, not 0..n.
+            int id = 1000 + i * 7;
+            Member member = new Member(id, "First" + i, "Last" + i, "Standard", new ArrayList<>());
+            membersList.add(member);
+            membersById.put(id, member);
+            shuffled.add(id);
+        }
+        Collections.shuffle(shuffled, random);
+        ids = new int[LOOKUPS];
+        for (int i = 0; i < LOOKUPS; i++) {
+            ids[i] = shuffled.get(i % shuffled.size());
+        }
+    }
+
+    private int nextId() {
+        int id = ids[next];
+        next = (next + 1) & (LOOKUPS - 1);
+        return id;
+    }
+
+    @Benchmark
+    public Member indexLookup() {
+        int id = nextId();
+        synchronized (lock) {
+            return membersById.get(id);
+        }
+    }
+
+    @Benchmark
+    public Member linearScan() {
+        int id = nextId();
+        synchronized (lock) {
+            for (Member member : membersList) {
+                if (member.getId() == id) {
+                    return member;
+                }
+            }
+            return null;
+        }
+    }
+}
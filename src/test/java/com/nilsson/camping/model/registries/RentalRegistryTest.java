@@ -0,0 +1,96 @@
+package com.nilsson.camping.model.registries;
+
+import com.nilsson.camping.model.Rental;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import java.io.File;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RentalRegistryTest {
+
+    private static final File DATA_DIR = new File(System.getProperty("user.dir"), "src/main/resources/data/json");
+
+    // Created per test instance, so after the data directory was emptied.
+    private final RentalRegistry registry = RentalRegistry.getInstance();
+
+    // The registry loads whatever an earlier run left behind, so start without any rentals.
+    @BeforeAll
+    static void emptyDataDirectory() {
+        File[] files = DATA_DIR.listFiles(File::isFile);
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+    }
+
+    @Test
+    void returnsKeepTheOtherRentalsInBookingOrder() {
+        LocalDate start = LocalDate.now().plusYears(1);
+        Rental first = rental(start, 10_001);
+        Rental second = rental(start.plusDays(1), 10_002);
+        Rental third = rental(start.plusDays(2), 10_003);
+        registry.addRental(first);
+        registry.addRental(second);
+        registry.addRental(third);
+
+        assertTrue(registry.removeRental(second));
+
+        assertEquals(ids(first, third), ids(registry.getRentals()));
+        assertNull(registry.findRentalById(second.getRentalId()));
+        assertSame(third, registry.findRentalById(third.getRentalId()));
+        assertTrue(registry.rentalsForItem(10_002).isEmpty());
+        assertEquals(2, (int) registry.readColumns(RentalColumns::size));
+
+        registry.removeRental(first);
+        registry.removeRental(third);
+    }
+
+    // Only the registered instance is removed, not another rental with the same id.
+    @Test
+    void removesOnlyTheRegisteredRental() {
+        Rental booked = rental(LocalDate.now().plusYears(2), 10_004);
+        registry.addRental(booked);
+        Rental copy = new Rental();
+        copy.setRentalId(booked.getRentalId());
+        copy.setItemId(booked.getItemId());
+        copy.setStartDate(booked.getStartDate());
+        copy.setRentalDays(booked.getRentalDays());
+
+        assertFalse(registry.removeRental(copy));
+        assertSame(booked, registry.findRentalById(booked.getRentalId()));
+
+        assertTrue(registry.removeRental(booked));
+        assertFalse(registry.removeRental(booked));
+    }
+
+    private Rental rental(LocalDate startDate, int itemId) {
+        Rental rental = new Rental();
+        rental.setRentalId(registry.getNextId());
+        rental.setMemberId(1);
+        rental.setItemId(itemId);
+        rental.setStartDate(startDate);
+        rental.setRentalDays(3);
+        return rental;
+    }
+
+    private static List<Integer> ids(Rental... rentals) {
+        List<Integer> ids = new ArrayList<>();
+        for (Rental rental : rentals) {
+            ids.add(rental.getRentalId());
+        }
+        return ids;
+    }
+
+    private static List<Integer> ids(List<Rental> rentals) {
+        return ids(rentals.toArray(new Rental[0]));
+    }
+}
@@ -0,0 +1,48 @@
+package com.nilsson.camping.service;
+
+import com.nilsson.camping.model.items.RecreationalVehicle;
+import com.nilsson.camping.model.registries.PricingRules;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class QuoteCacheTest {
+
+    private static final File DATA_DIR = new File(System.getProperty("user.dir"), "src/main/resources/data/json");
+
+    // Tents cost double from the first day; every other type pays the plain daily price.
+    @BeforeAll
+    static void writePricingRules() throws IOException {
+        DATA_DIR.mkdirs();
+        File[] files = DATA_DIR.listFiles(File::isFile);
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        String rules = "{ \"itemTypes\" : { \"Tent\" : { \"longStay\" : [ { \"fromDay\" : 1, \"multiplier\" : 2.0 } ] } } }";
+        Files.write(new File(DATA_DIR, "pricing-rules.json").toPath(), rules.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // The item type picks the pricing rules, so a quote made for the old type is not served after a type change.
+    @Test
+    void quotesAgainWhenTheItemTypeChanges() {
+        QuoteCache cache = new QuoteCache(PricingRules.getInstance());
+        RecreationalVehicle vehicle = new RecreationalVehicle(10_001, "Kabe", "Royal", "Caravan", 500, "2020", "4");
+        LocalDate start = LocalDate.of(2025, 11, 19);
+
+        long caravan = cache.quote(vehicle, null, start, 2);
+        vehicle.setType("Tent");
+        long tent = cache.quote(vehicle, null, start, 2);
+
+        assertEquals(2 * caravan, tent);
+        vehicle.setType("Caravan");
+        assertEquals(caravan, cache.quote(vehicle, null, start, 2));
+    }
+}
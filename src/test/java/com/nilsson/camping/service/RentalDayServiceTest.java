@@ -0,0 +1,61 @@
+package com.nilsson.camping.service;
+
+import com.nilsson.camping.model.Rental;
+import com.nilsson.camping.model.items.RecreationalVehicle;
+import com.nilsson.camping.model.registries.Inventory;
+import com.nilsson.camping.model.registries.RentalRegistry;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import java.io.File;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RentalDayServiceTest {
+
+    private static final File DATA_DIR = new File(System.getProperty("user.dir"), "src/main/resources/data/json");
+
+    // The registries load whatever an earlier run left behind, so start without any items or rentals.
+    @BeforeAll
+    static void emptyDataDirectory() {
+        File[] files = DATA_DIR.listFiles(File::isFile);
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+    }
+
+    // A booking made ahead of time takes its item out on the day it starts, and a returned one brings it back.
+    @Test
+    void itemIsRentedFromTheDayItsBookingStarts() {
+        Inventory inventory = Inventory.getInstance();
+        RentalRegistry rentals = RentalRegistry.getInstance();
+
+        RecreationalVehicle vehicle = new RecreationalVehicle(inventory.getNextItemId(), "Kabe", "Royal", "Caravan",
+                500, "2020", "4");
+        inventory.addRecreationalVehicle(vehicle);
+
+        LocalDate start = LocalDate.now().plusDays(7);
+        Rental rental = new Rental();
+        rental.setRentalId(rentals.getNextId());
+        rental.setMemberId(1);
+        rental.setItemId(vehicle.getItemId());
+        rental.setStartDate(start);
+        rental.setRentalDays(3);
+        rentals.addRental(rental);
+
+        assertEquals(0, RentalDayService.reconcile(start.minusDays(1)));
+        assertFalse(vehicle.isRented());
+
+        assertEquals(1, RentalDayService.reconcile(start));
+        assertTrue(vehicle.isRented());
+        assertEquals(0, RentalDayService.reconcile(start.plusDays(1)));
+
+        rentals.removeRental(rental);
+        assertEquals(1, RentalDayService.reconcile(start.plusDays(1)));
+        assertFalse(vehicle.isRented());
+    }
+}
@@ -0,0 +1,79 @@
+package com.nilsson.camping.service;
+
+import com.nilsson.camping.data.RentalLedger;
+import com.nilsson.camping.model.CompletedRental;
+import com.nilsson.camping.model.Member;
+import com.nilsson.camping.model.Money;
+import com.nilsson.camping.model.Rental;
+import com.nilsson.camping.model.items.RecreationalVehicle;
+import com.nilsson.camping.model.registries.Inventory;
+import com.nilsson.camping.model.registries.MemberRegistry;
+import com.nilsson.camping.model.registries.MembershipTiers;
+import com.nilsson.camping.model.registries.RentalRegistry;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import java.io.File;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RentalServiceTest {
+
+    private static final File DATA_DIR = new File(System.getProperty("user.dir"), "src/main/resources/data/json");
+
+    // The registries load whatever an earlier run left behind, so start without any data.
+    @BeforeAll
+    static void emptyDataDirectory() {
+        File[] files = DATA_DIR.listFiles(File::isFile);
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+    }
+
+    // An item re-priced while it is rented out changes neither the income totals nor what the ledger charges the rental.
+    @Test
+    void returnChargesTheBookedPrice() {
+        Inventory inventory = Inventory.getInstance();
+        MemberRegistry members = MemberRegistry.getInstance();
+        ProfitsService profitsService = new ProfitsService();
+        RentalService rentalService = new RentalService(profitsService);
+
+        Member member = new Member(members.getUniqueID(), "Anna", "Berg", MembershipTiers.DEFAULT_TIER, new ArrayList<>());
+        members.addMember(member);
+        RecreationalVehicle vehicle = new RecreationalVehicle(inventory.getNextItemId(), "Kabe", "Royal", "Caravan",
+                500, "2020", "4");
+        inventory.addRecreationalVehicle(vehicle);
+
+        assertTrue(rentalService.handleNewRental(member, vehicle, LocalDate.now(), 3));
+        Rental rental = RentalRegistry.getInstance().rentalsForItem(vehicle.getItemId()).get(0);
+        long bookedRevenue = profitsService.calculateRentalRevenue(rental);
+        long totalIncome = profitsService.calculateTotalIncome();
+
+        vehicle.setDailyPrice(900);
+        inventory.markChanged(vehicle);
+        assertEquals(bookedRevenue, profitsService.calculateRentalRevenue(rental));
+        assertNotEquals(bookedRevenue, profitsService.quote(member, vehicle, rental.getStartDate(), 3));
+        assertEquals(totalIncome, profitsService.calculateTotalIncome());
+        assertTrue(profitsService.generateMemberRevenueReport()
+                .contains("Anna Berg: " + Money.format(bookedRevenue) + " SEK"));
+
+        assertTrue(rentalService.handleReturnRental(rental));
+
+        List<CompletedRental> entries = new ArrayList<>();
+        RentalLedger.forEachInRange(LocalDate.MIN, LocalDate.MAX, entry -> {
+            if (entry.getRentalId() == rental.getRentalId()) {
+                entries.add(entry);
+            }
+        });
+        assertEquals(1, entries.size());
+        assertEquals(50_000, entries.get(0).getDailyPriceOre());
+        assertEquals(bookedRevenue, entries.get(0).getRevenueOre());
+        assertEquals(bookedRevenue, profitsService.calculateMemberRevenue(member.getId()));
+    }
+}